@@ -1,221 +1,442 @@
-package net.runelite.client.plugins.coxmegascale;
-
-import net.runelite.client.config.*;
-
-@ConfigGroup("coxmegascale")
-public interface CoxMegaScaleConfig extends Config
-{
-    @ConfigSection(
-            name = "Scouting",
-            description = "Settings related to raid scouting",
-            position = 0
-    )
-    String scoutingSection = "scouting";
-
-    @ConfigItem(
-            keyName = "raidStartOrder",
-            name = "Raid Start Order",
-            description = "Select the desired raid start order code",
-            position = 1,
-            section = scoutingSection
-    )
-    default RaidStartOrder raidStartOrder()
-    {
-        return RaidStartOrder.ANY;
-    }
-
-    // Include options for selecting desired rooms
-    @ConfigItem(
-            keyName = "includeMystics",
-            name = "Include Mystics",
-            description = "Include Mystics in desired rooms",
-            position = 2,
-            section = scoutingSection
-    )
-    default boolean includeMystics()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeShamans",
-            name = "Include Shamans",
-            description = "Include Shamans in desired rooms",
-            position = 3,
-            section = scoutingSection
-    )
-    default boolean includeShamans()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeVasa",
-            name = "Include Vasa",
-            description = "Include Vasa in desired rooms",
-            position = 4,
-            section = scoutingSection
-    )
-    default boolean includeVasa()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeTightrope",
-            name = "Include Tightrope",
-            description = "Include Tightrope in desired rooms",
-            position = 5,
-            section = scoutingSection
-    )
-    default boolean includeTightrope()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeThieving",
-            name = "Include Thieving",
-            description = "Include Thieving in desired rooms",
-            position = 6,
-            section = scoutingSection
-    )
-    default boolean includeThieving()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeIceDemon",
-            name = "Include Ice Demon",
-            description = "Include Ice Demon in desired rooms",
-            position = 7,
-            section = scoutingSection
-    )
-    default boolean includeIceDemon()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeGuardians",
-            name = "Include Guardians",
-            description = "Include Guardians in desired rooms",
-            position = 8,
-            section = scoutingSection
-    )
-    default boolean includeGuardians()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeVespula",
-            name = "Include Vespula",
-            description = "Include Vespula in desired rooms",
-            position = 9,
-            section = scoutingSection
-    )
-    default boolean includeVespula()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeTekton",
-            name = "Include Tekton",
-            description = "Include Tekton in desired rooms",
-            position = 10,
-            section = scoutingSection
-    )
-    default boolean includeTekton()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeVanguards",
-            name = "Include Vanguards",
-            description = "Include Vanguards in desired rooms",
-            position = 11,
-            section = scoutingSection
-    )
-    default boolean includeVanguards()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "includeMuttadiles",
-            name = "Include Muttadiles",
-            description = "Include Muttadiles in desired rooms",
-            position = 12,
-            section = scoutingSection
-    )
-    default boolean includeMuttadiles()
-    {
-        return false;
-    }
-
-    @ConfigItem(
-            keyName = "roomCount",
-            name = "Room Count",
-            description = "Select the desired total number of rooms",
-            position = 13,
-            section = scoutingSection
-    )
-    default RoomCount roomCount()
-    {
-        return RoomCount.ANY;
-    }
-
-    enum RoomCount
-    {
-        ANY("Any"),
-        FIVE("5"),
-        SIX("6");
-
-        private final String name;
-
-        RoomCount(String name)
-        {
-            this.name = name;
-        }
-
-        @Override
-        public String toString()
-        {
-            return name;
-        }
-    }
-
-    @ConfigItem(
-            keyName = "enableSuppliesCalculationOverlay",
-            name = "Enable Supplies Calculation Overlay",
-            description = "Show Supplies Calculation Overlay with Overloads, Fish, and Golpar counts."
-    )
-    default boolean enableSuppliesCalculationOverlay()
-    {
-        return true;
-    }
-
-    @ConfigItem(
-            keyName = "enablePointsOverlay",
-            name = "Enable Points Overlay",
-            description = "Show Points Overlay with Total Points and Lost Points."
-    )
-    default boolean enablePointsOverlay()
-    {
-        return true;
-    }
-
-    @ConfigItem(
-            keyName = "enableDropChanceOverlay",
-            name = "Enable Drop Chance Overlay",
-            description = "Show Drop Chance Overlay with Unique Chance and Fixed Chance."
-    )
-    default boolean enableDropChanceOverlay()
-    {
-        return true;
-    }
-}
+package net.runelite.client.plugins.coxmegascale;
+
+import net.runelite.client.config.*;
+
+@ConfigGroup(CoxMegaScaleConfig.GROUP)
+public interface CoxMegaScaleConfig extends Config
+{
+    String GROUP = "coxmegascale";
+
+    @ConfigSection(
+            name = "Scouting",
+            description = "Settings related to raid scouting",
+            position = 0
+    )
+    String scoutingSection = "scouting";
+
+    @ConfigItem(
+            keyName = "raidStartOrder",
+            name = "Raid Start Order",
+            description = "Select the desired raid start order code",
+            position = 1,
+            section = scoutingSection
+    )
+    default RaidStartOrder raidStartOrder()
+    {
+        return RaidStartOrder.ANY;
+    }
+
+    // Include options for selecting desired rooms
+    @ConfigItem(
+            keyName = "includeMystics",
+            name = "Include Mystics",
+            description = "Include Mystics in desired rooms",
+            position = 2,
+            section = scoutingSection
+    )
+    default boolean includeMystics()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeShamans",
+            name = "Include Shamans",
+            description = "Include Shamans in desired rooms",
+            position = 3,
+            section = scoutingSection
+    )
+    default boolean includeShamans()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeVasa",
+            name = "Include Vasa",
+            description = "Include Vasa in desired rooms",
+            position = 4,
+            section = scoutingSection
+    )
+    default boolean includeVasa()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeTightrope",
+            name = "Include Tightrope",
+            description = "Include Tightrope in desired rooms",
+            position = 5,
+            section = scoutingSection
+    )
+    default boolean includeTightrope()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeThieving",
+            name = "Include Thieving",
+            description = "Include Thieving in desired rooms",
+            position = 6,
+            section = scoutingSection
+    )
+    default boolean includeThieving()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeIceDemon",
+            name = "Include Ice Demon",
+            description = "Include Ice Demon in desired rooms",
+            position = 7,
+            section = scoutingSection
+    )
+    default boolean includeIceDemon()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeGuardians",
+            name = "Include Guardians",
+            description = "Include Guardians in desired rooms",
+            position = 8,
+            section = scoutingSection
+    )
+    default boolean includeGuardians()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeVespula",
+            name = "Include Vespula",
+            description = "Include Vespula in desired rooms",
+            position = 9,
+            section = scoutingSection
+    )
+    default boolean includeVespula()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeTekton",
+            name = "Include Tekton",
+            description = "Include Tekton in desired rooms",
+            position = 10,
+            section = scoutingSection
+    )
+    default boolean includeTekton()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeVanguards",
+            name = "Include Vanguards",
+            description = "Include Vanguards in desired rooms",
+            position = 11,
+            section = scoutingSection
+    )
+    default boolean includeVanguards()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "includeMuttadiles",
+            name = "Include Muttadiles",
+            description = "Include Muttadiles in desired rooms",
+            position = 12,
+            section = scoutingSection
+    )
+    default boolean includeMuttadiles()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "roomCount",
+            name = "Room Count",
+            description = "Select the desired total number of rooms",
+            position = 13,
+            section = scoutingSection
+    )
+    default RoomCount roomCount()
+    {
+        return RoomCount.ANY;
+    }
+
+    @ConfigItem(
+            keyName = "scoutingRule",
+            name = "Scouting Rule",
+            description = "Extra rule a layout must satisfy, e.g. 'tekton before vasa & !vespula & puzzle in (thieving, tightrope) & rooms<=6'."
+                    + " Combine room names, 'a before b', 'a after b', 'puzzle in (...)', 'combat in (...)' and 'rooms', 'combat' or 'puzzle'"
+                    + " compared to a number with &, |, ! and parentheses.",
+            position = 14,
+            section = scoutingSection
+    )
+    default String scoutingRule()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "scoutingProfiles",
+            name = "Scouting Profiles",
+            description = "Named layouts, one 'name: rule' per line in the scouting rule language, e.g. 'speed: rooms<=5 & !vespula'."
+                    + " Lines starting with # are ignored. A layout matching any profile, or the selection above, is desirable.",
+            position = 15,
+            section = scoutingSection
+    )
+    default String scoutingProfiles()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "layoutPatterns",
+            name = "Layout Patterns",
+            description = "Room orders the layout must match at least one of, comma or line separated, e.g. 'SCP*, *|CP*'."
+                    + " Use S, C, P and F for scavengers, combat, puzzle and farming, ? for any room, * for any rooms and | for the change of floor.",
+            position = 16,
+            section = scoutingSection
+    )
+    default String layoutPatterns()
+    {
+        return "";
+    }
+
+    @ConfigSection(
+            name = "Scoring",
+            description = "Accept layouts that are close to what you want by scoring them with weights",
+            position = 16,
+            closedByDefault = true
+    )
+    String scoringSection = "scoring";
+
+    @ConfigItem(
+            keyName = "layoutWeights",
+            name = "Layout Weights",
+            description = "Weights of layout features as 'name=weight', comma or line separated, e.g. 'tekton=5, vespula=-10, tekton@1=3, puzzle=-1, rooms5=4'."
+                    + " Use a room name, 'room@n' for the n-th room, 'combat' or 'puzzle' per room of that type,"
+                    + " and 'roomsN', 'combatN' or 'puzzleN' for exactly N rooms. Leave empty to disable scoring.",
+            position = 17,
+            section = scoringSection
+    )
+    default String layoutWeights()
+    {
+        return "";
+    }
+
+    @Range(
+            min = -10_000,
+            max = 10_000
+    )
+    @ConfigItem(
+            keyName = "scoreThreshold",
+            name = "Score Threshold",
+            description = "A layout whose score reaches this threshold is desirable.",
+            position = 18,
+            section = scoringSection
+    )
+    default int scoreThreshold()
+    {
+        return 10;
+    }
+
+    @Range(
+            max = 1000
+    )
+    @ConfigItem(
+            keyName = "scoreRelaxAfterReloads",
+            name = "Relax After Reloads",
+            description = "Lower the score threshold after this many reloads without a desirable layout, and again every as many reloads. 0 never lowers it.",
+            position = 19,
+            section = scoringSection
+    )
+    default int scoreRelaxAfterReloads()
+    {
+        return 0;
+    }
+
+    @Range(
+            max = 10_000
+    )
+    @ConfigItem(
+            keyName = "scoreRelaxStep",
+            name = "Relax Step",
+            description = "How much the score threshold is lowered each time.",
+            position = 20,
+            section = scoringSection
+    )
+    default int scoreRelaxStep()
+    {
+        return 1;
+    }
+
+    enum RoomCount
+    {
+        ANY("Any"),
+        FIVE("5"),
+        SIX("6");
+
+        private final String name;
+
+        RoomCount(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
+    @ConfigItem(
+            keyName = "enableSuppliesCalculationOverlay",
+            name = "Enable Supplies Calculation Overlay",
+            description = "Show Supplies Calculation Overlay with Overloads, Fish, and Golpar counts."
+    )
+    default boolean enableSuppliesCalculationOverlay()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "enablePointsOverlay",
+            name = "Enable Points Overlay",
+            description = "Show Points Overlay with Total Points and Lost Points."
+    )
+    default boolean enablePointsOverlay()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "enableDropChanceOverlay",
+            name = "Enable Drop Chance Overlay",
+            description = "Show Drop Chance Overlay with Unique Chance and Fixed Chance."
+    )
+    default boolean enableDropChanceOverlay()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "enableScoutingOverlay",
+            name = "Enable Scouting Overlay",
+            description = "While scouting, show how often scouted layouts match the criteria and the expected reloads and time to find one."
+    )
+    default boolean enableScoutingOverlay()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "useCompositeHud",
+            name = "Combine Overlays",
+            description = "Draw the enabled overlays as a single pre-rendered panel that is only redrawn when points, party size or drop chance change."
+    )
+    default boolean useCompositeHud()
+    {
+        return false;
+    }
+
+    @Range(
+            min = 1,
+            max = 300
+    )
+    @Units(Units.MINUTES)
+    @ConfigItem(
+            keyName = "expectedRaidMinutes",
+            name = "Expected Raid Duration",
+            description = "Raid duration used to project the end-of-raid points and unique chance from the current points rate."
+    )
+    default int expectedRaidMinutes()
+    {
+        return 60;
+    }
+
+    @ConfigSection(
+            name = "Performance",
+            description = "Settings that trade accuracy for per-tick cost",
+            position = 20,
+            closedByDefault = true
+    )
+    String performanceSection = "performance";
+
+    @Range(
+            max = 1000
+    )
+    @Units(Units.TICKS)
+    @ConfigItem(
+            keyName = "reconcileIntervalTicks",
+            name = "Reconcile Interval",
+            description = "How often the raid varbits are re-read in case a change event was missed. 0 disables it.",
+            position = 21,
+            section = performanceSection
+    )
+    default int reconcileIntervalTicks()
+    {
+        return 100;
+    }
+
+    @Range(
+            max = 10_000_000
+    )
+    @ConfigItem(
+            keyName = "lootSimulationTrials",
+            name = "Loot Simulation Trials",
+            description = "Raid completions simulated to cross-check how purples split across the party. 0 computes the split exactly instead.",
+            position = 22,
+            section = performanceSection
+    )
+    default int lootSimulationTrials()
+    {
+        return 0;
+    }
+
+    @ConfigItem(
+            keyName = "recordSessions",
+            name = "Record Sessions",
+            description = "Record the raid events the plugin reacts to under .runelite/cox-mega-scale/sessions, for offline replay.",
+            position = 23,
+            section = performanceSection
+    )
+    default boolean recordSessions()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "recordScoutHistory",
+            name = "Record Scouting History",
+            description = "Append every scouted layout, its verdict and the party size to .runelite/cox-mega-scale/history.",
+            position = 24,
+            section = performanceSection
+    )
+    default boolean recordScoutHistory()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "enableLatencyOverlay",
+            name = "Scout Latency Overlay",
+            description = "Show how long a scouted layout takes to reach its verdict, the steps menu and the Reload or Climb click."
+                    + " Type ::coxlatency to export the histograms under .runelite/cox-mega-scale, ::coxlatency reset to clear them.",
+            position = 25,
+            section = performanceSection
+    )
+    default boolean enableLatencyOverlay()
+    {
+        return false;
+    }
+}
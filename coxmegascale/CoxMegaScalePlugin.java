@@ -1,623 +1,1200 @@
-package net.runelite.client.plugins.coxmegascale;
-
-import com.google.inject.Provides;
-import javax.inject.Inject;
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.Client;
-import net.runelite.api.MenuEntry;
-import net.runelite.api.Varbits;
-import net.runelite.api.events.GameTick;
-import net.runelite.api.events.MenuEntryAdded;
-import net.runelite.api.events.MenuOpened;
-import net.runelite.api.events.VarbitChanged;
-import net.runelite.client.eventbus.EventBus;
-import net.runelite.client.callback.ClientThread;
-import net.runelite.client.config.ConfigManager;
-import net.runelite.client.eventbus.Subscribe;
-import net.runelite.client.plugins.Plugin;
-import net.runelite.client.plugins.PluginDescriptor;
-import net.runelite.client.plugins.coxmegascale.events.PartySizeChanged;
-import net.runelite.client.plugins.coxmegascale.overlays.DropChanceOverlay;
-import net.runelite.client.plugins.coxmegascale.overlays.PointsOverlay;
-import net.runelite.client.plugins.coxmegascale.overlays.SuppliesCalculationOverlay;
-import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig.RoomCount;
-import net.runelite.client.ui.overlay.OverlayManager;
-import net.runelite.client.util.Text;
-
-import net.runelite.client.plugins.raids.Raid;
-import net.runelite.client.plugins.raids.RaidsPlugin;
-import net.runelite.client.plugins.raids.RaidRoom;
-import net.runelite.client.plugins.raids.events.RaidReset;
-import net.runelite.client.plugins.raids.events.RaidScouted;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-
-@Slf4j
-@PluginDescriptor(
-        name = "Cox Mega Scale",
-        description = "Enhances scouting with points tracking, drop chances, and supplies calculations.",
-        tags = {"cox", "scouting", "points", "drop", "supplies"},
-        enabledByDefault = false
-)
-public class CoxMegaScalePlugin extends Plugin {
-    @Inject
-    private Client client;
-
-    @Inject
-    private EventBus eventBus;
-
-    @Inject
-    private CoxMegaScaleConfig config;
-
-    @Inject
-    private ClientThread clientThread;
-
-    @Inject
-    private OverlayManager overlayManager;
-
-    @Inject
-    private PointsOverlay pointsOverlay;
-
-    @Inject
-    private DropChanceOverlay dropChanceOverlay;
-
-    @Inject
-    private SuppliesCalculationOverlay suppliesCalculationOverlay;
-
-    @Getter
-    private Raid currentRaid;
-
-    @Getter
-    private int scaledPartySize = 1; // Default value for virtual players (if needed)
-
-    @Getter
-    private int actualPartySize = 1; // Default value for total party size (real + virtual players)
-
-    @Getter
-    private int totalPoints = 0;
-
-    @Getter
-    private int lostPoints = 0;
-
-    @Getter
-    private double uniqueChance = 0.0;
-
-    private boolean inRaidChambers = false;
-
-    private boolean desirableRaidFound = false;
-
-    @Getter
-    private boolean isInRaid = false;
-
-    // Correct Varbit IDs based on user description
-    private static final int IN_RAID_VARBIT_ID = 5432; // Verify if this is correct
-    private static final int RAID_PARTY_SIZE_VARBIT_ID = 9539; // Scaled party size varbit (if needed)
-    private static final int ACTUAL_PARTY_SIZE_VARBIT_ID = 9540; // Actual party size varbit
-    private static final int RAID_PARTY_SIZE_SCALING_VARBIT_ID = 9541; // Additional scaled party size varbit (if needed)
-    private static final int TOTAL_POINTS_VARBIT_ID = Varbits.TOTAL_POINTS; // Total raid points varbit
-
-    @Provides
-    CoxMegaScaleConfig provideConfig(ConfigManager configManager) {
-        return configManager.getConfig(CoxMegaScaleConfig.class);
-    }
-
-    @Override
-    protected void startUp() throws Exception {
-        log.info("Cox Mega Scale plugin started!");
-        // Do not register overlays here. They will be managed based on raid status.
-
-        // Check if the player is already in a raid at startup
-        clientThread.invokeLater(() -> {
-            try {
-                int inRaidValue = client.getVarbitValue(IN_RAID_VARBIT_ID);
-                log.debug("startUp - IN_RAID Varbit (ID {}): {}", IN_RAID_VARBIT_ID, inRaidValue);
-                if (inRaidValue == 1 && !inRaidChambers) {
-                    inRaidChambers = true;
-                    isInRaid = true;
-                    actualPartySize = calculateActualPartySize();
-                    totalPoints = client.getVar(TOTAL_POINTS_VARBIT_ID);
-                    log.info("Player is already in a raid. Total Points: {}", totalPoints);
-                    eventBus.post(new PartySizeChanged(actualPartySize));
-
-                    // Add overlays if enabled in config
-                    addOverlays();
-                }
-            } catch (Exception e) {
-                log.error("Error during startUp Varbit check: ", e);
-            }
-        });
-    }
-
-    @Override
-    protected void shutDown() throws Exception {
-        log.info("Cox Mega Scale plugin stopped!");
-
-        // Remove Overlays
-        removeOverlays();
-
-        // Reset variables
-        currentRaid = null;
-        inRaidChambers = false;
-        desirableRaidFound = false;
-        isInRaid = false;
-        scaledPartySize = 1;
-        actualPartySize = 1;
-        totalPoints = 0;
-        lostPoints = 0;
-        uniqueChance = 0.0;
-    }
-
-    @Subscribe
-    public void onVarbitChanged(VarbitChanged event) {
-        int varbitId = event.getVarbitId();
-        int varbitValue = event.getValue();
-
-        if (varbitId == IN_RAID_VARBIT_ID) {
-            boolean currentlyInRaid = varbitValue == 1;
-            log.debug("VarbitChanged - IN_RAID_VARBIT_ID ({}): {}", IN_RAID_VARBIT_ID, currentlyInRaid ? "In Raid" : "Not in Raid");
-
-            if (currentlyInRaid && !isInRaid) {
-                // Player has entered a raid
-                isInRaid = true;
-                inRaidChambers = true;
-                actualPartySize = calculateActualPartySize();
-                totalPoints = client.getVar(TOTAL_POINTS_VARBIT_ID);
-                log.info("Raid Entry Detected. Total Points: {}", totalPoints);
-                eventBus.post(new PartySizeChanged(actualPartySize));
-
-                // Add overlays if enabled in config
-                addOverlays();
-            } else if (!currentlyInRaid && isInRaid) {
-                // Player has exited the raid
-                isInRaid = false;
-                inRaidChambers = false;
-                scaledPartySize = 1; // Reset to default if needed
-                actualPartySize = 1; // Reset to default
-                totalPoints = 0;
-                lostPoints = 0;
-                uniqueChance = 0.0;
-                log.info("Raid Exit Detected. Total Points Reset.");
-                eventBus.post(new PartySizeChanged(actualPartySize));
-
-                // Remove overlays
-                removeOverlays();
-            }
-        }
-
-        // Monitor ACTUAL_PARTY_SIZE_VARBIT_ID changes
-        if (varbitId == ACTUAL_PARTY_SIZE_VARBIT_ID) {
-            if (isInRaid) {
-                int newActualSize = calculateActualPartySize();
-                if (newActualSize != actualPartySize) {
-                    actualPartySize = newActualSize;
-                    log.info("Actual Party Size Updated: {}", actualPartySize);
-                    eventBus.post(new PartySizeChanged(actualPartySize));
-                }
-            }
-        }
-
-        // Update totalPoints when TOTAL_POINTS_VARBIT_ID changes
-        if (varbitId == TOTAL_POINTS_VARBIT_ID) {
-            if (isInRaid) {
-                int newTotalPoints = client.getVar(TOTAL_POINTS_VARBIT_ID);
-                if (newTotalPoints != totalPoints) {
-                    totalPoints = newTotalPoints;
-                    log.info("Total Raid Points updated to: {}", totalPoints);
-                }
-            }
-        }
-    }
-
-    @Subscribe
-    public void onGameTick(GameTick event) {
-        if (isInRaid) {
-            // Update total points on every game tick
-            updateTotalPoints();
-
-            int currentActualSize = calculateActualPartySize();
-            if (currentActualSize != actualPartySize) {
-                actualPartySize = currentActualSize;
-                eventBus.post(new PartySizeChanged(actualPartySize));
-            }
-        }
-    }
-
-    /**
-     * Fetches and updates the total raid points from varbits.
-     */
-    private void updateTotalPoints() {
-        try {
-            int newTotalPoints = client.getVar(TOTAL_POINTS_VARBIT_ID);
-            if (newTotalPoints != totalPoints) {
-                totalPoints = newTotalPoints;
-                log.info("Total Raid Points updated to: {}", totalPoints);
-            }
-        } catch (Exception e) {
-            log.error("Error updating total raid points: ", e);
-        }
-    }
-
-    /**
-     * Fetches the actual party size by reading the relevant varbit.
-     *
-     * @return The actual party size.
-     */
-    private int calculateActualPartySize() {
-        try {
-            int actualSize = client.getVarbitValue(ACTUAL_PARTY_SIZE_VARBIT_ID); // Varbit 9540
-            log.debug("Fetched Actual Party Size - Varbit {}: {}", ACTUAL_PARTY_SIZE_VARBIT_ID, actualSize);
-            return Math.max(actualSize, 1); // Ensure party size is at least 1
-        } catch (Exception e) {
-            log.error("Error fetching actual party size: ", e);
-            return actualPartySize; // Fallback to last known value
-        }
-    }
-
-    /**
-     * Adds the necessary overlays based on the configuration.
-     */
-    private void addOverlays() {
-        if (config.enablePointsOverlay()) {
-            overlayManager.add(pointsOverlay);
-            log.debug("PointsOverlay added to OverlayManager.");
-        }
-
-        if (config.enableDropChanceOverlay()) {
-            overlayManager.add(dropChanceOverlay);
-            log.debug("DropChanceOverlay added to OverlayManager.");
-        }
-
-        if (config.enableSuppliesCalculationOverlay()) {
-            overlayManager.add(suppliesCalculationOverlay);
-            log.debug("SuppliesCalculationOverlay added to OverlayManager.");
-        }
-    }
-
-    /**
-     * Removes the overlays from the OverlayManager.
-     */
-    private void removeOverlays() {
-        if (config.enablePointsOverlay()) {
-            overlayManager.remove(pointsOverlay);
-            log.debug("PointsOverlay removed from OverlayManager.");
-        }
-
-        if (config.enableDropChanceOverlay()) {
-            overlayManager.remove(dropChanceOverlay);
-            log.debug("DropChanceOverlay removed from OverlayManager.");
-        }
-
-        if (config.enableSuppliesCalculationOverlay()) {
-            overlayManager.remove(suppliesCalculationOverlay);
-            log.debug("SuppliesCalculationOverlay removed from OverlayManager.");
-        }
-    }
-
-    /**
-     * Returns the current scaled party size.
-     *
-     * @return The scaled party size.
-     */
-    public int getScaledPartySize() {
-        return this.scaledPartySize;
-    }
-
-    /**
-     * Returns the actual party size.
-     *
-     * @return The actual party size.
-     */
-    public int getActualPartySizeValue() {
-        return this.actualPartySize;
-    }
-
-    /**
-     * Returns the total points.
-     *
-     * @return The total points.
-     */
-    public int getTotalPoints() {
-        return this.totalPoints;
-    }
-
-    /**
-     * Returns the lost points.
-     *
-     * @return The lost points.
-     */
-    public int getLostPoints() {
-        return this.lostPoints;
-    }
-
-    /**
-     * Returns the unique drop chance.
-     *
-     * @return The unique drop chance.
-     */
-    public double getUniqueChance() {
-        return this.uniqueChance;
-    }
-
-    /**
-     * Example method to update total points.
-     * Replace with actual logic to calculate points.
-     *
-     * @param newTotalPoints The new total points.
-     */
-    public void updateTotalPoints(int newTotalPoints) {
-        this.totalPoints = newTotalPoints;
-        log.debug("Total Points updated to: {}", this.totalPoints);
-    }
-
-    /**
-     * Example method to update lost points.
-     * Replace with actual logic to calculate lost points.
-     *
-     * @param newLostPoints The new lost points.
-     */
-    public void updateLostPoints(int newLostPoints) {
-        this.lostPoints = newLostPoints;
-        log.debug("Lost Points updated to: {}", this.lostPoints);
-    }
-
-    /**
-     * Example method to update unique drop chance.
-     * Replace with actual logic to calculate unique drop chance.
-     *
-     * @param newUniqueChance The new unique drop chance.
-     */
-    public void updateUniqueChance(double newUniqueChance) {
-        this.uniqueChance = newUniqueChance;
-        log.debug("Unique Chance updated to: {}%", this.uniqueChance);
-    }
-
-    @Subscribe
-    public void onRaidScouted(RaidScouted event) {
-        this.currentRaid = event.getRaid();
-        log.debug("RaidScouted event received: {}", event.getRaid());
-
-        // Access the raid layout code
-        String layoutCode = currentRaid.getLayout().toCodeString();
-        log.debug("Raid Layout Code: {}", layoutCode);
-
-        // Get the first 3 letters of the layout code
-        String raidStartOrderCode = layoutCode.length() >= 3 ? layoutCode.substring(0, 3).toUpperCase() : layoutCode.toUpperCase();
-        log.debug("Raid Start Order Code: {}", raidStartOrderCode);
-
-        // Get the selected raid start order from config
-        RaidStartOrder selectedStartOrder = config.raidStartOrder();
-        log.debug("Selected Raid Start Order: {}", selectedStartOrder);
-
-        // Check if the selected start order matches the raid's start order code
-        boolean startOrderMatches = selectedStartOrder == RaidStartOrder.ANY ||
-                raidStartOrderCode.equals(selectedStartOrder.toString());
-        log.debug("Start Order Matches: {}", startOrderMatches);
-
-        // List of room names to ignore (case-insensitive)
-        List<String> roomsToIgnore = Arrays.asList("farming", "scavengers", "end", "start", "empty");
-        log.debug("Rooms to Ignore: {}", roomsToIgnore);
-
-        // Build the room order string, ignoring specified rooms
-        List<String> roomNames = Arrays.stream(currentRaid.getRooms())
-                .filter(room -> room != null)
-                .filter(room -> !roomsToIgnore.contains(room.getName().toLowerCase()))
-                .map(RaidRoom::getName)
-                .collect(Collectors.toList());
-        log.debug("Filtered Raid Rooms: {}", roomNames);
-
-        // Count the total number of rooms (excluding ignored ones)
-        int totalRooms = roomNames.size();
-        log.debug("Total Rooms (after filtering): {}", totalRooms);
-
-        // Collect the rooms selected by the user
-        List<String> selectedRooms = getSelectedRooms();
-        log.debug("Selected Rooms from Config: {}", selectedRooms);
-
-        // Check if all selected rooms are present in the raid layout
-        Set<String> raidRoomSet = roomNames.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-
-        Set<String> selectedRoomSet = selectedRooms.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-
-        boolean roomsMatch = raidRoomSet.containsAll(selectedRoomSet);
-        log.debug("Rooms Match: {}", roomsMatch);
-
-        // Check if the total number of rooms matches the user's selection
-        boolean roomCountMatches = doesRoomCountMatch(totalRooms);
-        log.debug("Room Count Matches: {}", roomCountMatches);
-
-        // Determine if the raid is desirable
-        if (!selectedRooms.isEmpty() && roomsMatch && roomCountMatches && startOrderMatches) {
-            desirableRaidFound = true;
-            log.info("Desirable raid found based on selected criteria.");
-        } else if (!selectedRooms.isEmpty()) {
-            desirableRaidFound = false;
-            log.info("Raid is not desirable based on selected criteria.");
-        } else {
-            desirableRaidFound = false;
-            log.info("No selected rooms specified. Raid is not marked as desirable.");
-        }
-
-        // Update actual party size from Raid object if available
-        if (currentRaid != null) {
-            try {
-                // Assuming Raid object has methods to get actual party size
-                // Replace these with actual methods if available
-                int actualSize = calculateActualPartySize();
-                log.debug("Actual Party Size from Raid object: {}", actualSize);
-
-                if (actualSize > 0 && actualSize != actualPartySize) {
-                    actualPartySize = Math.max(actualSize, 1);
-                    log.info("Actual Party Size updated to: {}", actualPartySize);
-                    eventBus.post(new PartySizeChanged(actualPartySize));
-                }
-            } catch (NoSuchMethodError | UnsupportedOperationException e) {
-                // If the method does not exist, fallback to Varbit
-                log.warn("Actual party size methods not found in Raid object. Falling back to Varbit.");
-                actualPartySize = calculateActualPartySize();
-                log.info("Actual Party Size updated via Varbit: {}", actualPartySize);
-                eventBus.post(new PartySizeChanged(actualPartySize));
-            }
-        }
-    }
-
-    /**
-     * Collects the selected rooms from the configuration.
-     *
-     * @return A list of selected room names.
-     */
-    private List<String> getSelectedRooms() {
-        // Collect selected rooms from the config
-        List<String> selectedRooms = new ArrayList<>();
-
-        if (config.includeMystics()) {
-            selectedRooms.add("Mystics");
-        }
-        if (config.includeShamans()) {
-            selectedRooms.add("Shamans");
-        }
-        if (config.includeVasa()) {
-            selectedRooms.add("Vasa");
-        }
-        if (config.includeTightrope()) {
-            selectedRooms.add("Tightrope");
-        }
-        if (config.includeThieving()) {
-            selectedRooms.add("Thieving");
-        }
-        if (config.includeIceDemon()) {
-            selectedRooms.add("Ice Demon");
-        }
-        if (config.includeGuardians()) {
-            selectedRooms.add("Guardians");
-        }
-        if (config.includeVespula()) {
-            selectedRooms.add("Vespula");
-        }
-        if (config.includeTekton()) {
-            selectedRooms.add("Tekton");
-        }
-        if (config.includeVanguards()) {
-            selectedRooms.add("Vanguards");
-        }
-        if (config.includeMuttadiles()) {
-            selectedRooms.add("Muttadiles");
-        }
-
-        log.debug("Collected Selected Rooms: {}", selectedRooms);
-        return selectedRooms;
-    }
-
-    /**
-     * Checks if the total number of rooms matches the user's selected criteria.
-     *
-     * @param totalRooms The total number of rooms in the raid.
-     * @return True if the room count matches; otherwise, false.
-     */
-    private boolean doesRoomCountMatch(int totalRooms) {
-        RoomCount selectedRoomCount = config.roomCount();
-        log.debug("Selected Room Count Criteria: {}", selectedRoomCount);
-        if (selectedRoomCount == RoomCount.ANY) {
-            return true;
-        } else if (selectedRoomCount == RoomCount.FIVE) {
-            return totalRooms == 5;
-        } else if (selectedRoomCount == RoomCount.SIX) {
-            return totalRooms == 6;
-        }
-        return false;
-    }
-
-    @Subscribe
-    public void onMenuEntryAdded(MenuEntryAdded event) {
-        if (!inRaidChambers) {
-            return;
-        }
-
-        MenuEntry entry = event.getMenuEntry();
-        String option = Text.removeTags(entry.getOption()).toLowerCase();
-        String target = Text.removeTags(entry.getTarget()).toLowerCase();
-
-        if (target.contains("steps")) {
-            if (desirableRaidFound) {
-                // When raid is desirable, deprioritize "Climb" and "Reload"
-                if (option.equals("climb") || option.equals("reload")) {
-                    entry.setDeprioritized(true);
-                    log.debug("Deprioritized option '{}' for target '{}'.", option, target);
-                }
-            } else {
-                // When raid is not desirable, prioritize "Reload" and deprioritize "Climb"
-                if (option.equals("reload")) {
-                    entry.setDeprioritized(false);
-                    log.debug("Prioritized option 'reload' for target '{}'.", target);
-                } else if (option.equals("climb")) {
-                    entry.setDeprioritized(true);
-                    log.debug("Deprioritized option 'climb' for target '{}'.", target);
-                }
-            }
-        }
-    }
-
-    @Subscribe(priority = -1) // Ensure this runs after other menu modifications
-    public void onMenuOpened(MenuOpened event) {
-        if (!inRaidChambers) {
-            return;
-        }
-
-        MenuEntry[] menuEntries = client.getMenuEntries();
-        List<MenuEntry> entries = new ArrayList<>(Arrays.asList(menuEntries));
-        MenuEntry reloadEntry = null;
-        MenuEntry climbEntry = null;
-        MenuEntry walkHereEntry = null;
-
-        // Identify the menu entries for "Reload", "Climb", and "Walk here"
-        for (MenuEntry entry : entries) {
-            String option = Text.removeTags(entry.getOption()).toLowerCase();
-            String target = Text.removeTags(entry.getTarget()).toLowerCase();
-
-            if (target.contains("steps")) {
-                if (option.equals("reload")) {
-                    reloadEntry = entry;
-                } else if (option.equals("climb")) {
-                    climbEntry = entry;
-                } else if (option.equals("walk here")) {
-                    walkHereEntry = entry;
-                }
-            }
-        }
-
-        if (!desirableRaidFound) {
-            // Undesirable raid: Make "Reload" the default left-click action
-            if (reloadEntry != null) {
-                entries.remove(reloadEntry);
-                entries.add(reloadEntry); // Add to end to make it first
-                log.debug("Set 'Reload' as default left-click action.");
-            }
-        } else {
-            // Desirable raid: Make "Walk here" the default left-click action
-            if (walkHereEntry != null) {
-                entries.remove(walkHereEntry);
-                entries.add(walkHereEntry); // Add to end to make it first
-                log.debug("Set 'Walk here' as default left-click action.");
-            }
-        }
-
-        // Update menu entries
-        client.setMenuEntries(entries.toArray(new MenuEntry[0]));
-    }
-
-    @Subscribe
-    public void onRaidReset(RaidReset event) {
-        // Reset the current raid when the raid ends or the player leaves
-        currentRaid = null;
-        desirableRaidFound = false;
-        log.info("RaidReset event received. Resetting currentRaid and desirableRaidFound.");
-    }
-}
+package net.runelite.client.plugins.coxmegascale;
+
+import com.google.inject.Provides;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Player;
+import net.runelite.api.Varbits;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.CommandExecuted;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.RuneLite;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.plugins.Plugin;
+import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.plugins.coxmegascale.drops.DropChanceEngine;
+import net.runelite.client.plugins.coxmegascale.drops.DropChances;
+import net.runelite.client.plugins.coxmegascale.drops.LootDistribution;
+import net.runelite.client.plugins.coxmegascale.drops.LootSimulator;
+import net.runelite.client.plugins.coxmegascale.events.PartySizeChangedPublisher;
+import net.runelite.client.plugins.coxmegascale.history.ScoutHistoryReader;
+import net.runelite.client.plugins.coxmegascale.history.ScoutHistoryWriter;
+import net.runelite.client.plugins.coxmegascale.menu.StepsMenuClassifier;
+import net.runelite.client.plugins.coxmegascale.menu.StepsMenuClassifier.StepsOption;
+import net.runelite.client.plugins.coxmegascale.overlays.CompositeHudOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.DropChanceOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.PointsOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.ScoutLatencyOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.ScoutingOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.SuppliesCalculationOverlay;
+import net.runelite.client.plugins.coxmegascale.points.LostPointsTracker;
+import net.runelite.client.plugins.coxmegascale.points.PointsProjection;
+import net.runelite.client.plugins.coxmegascale.points.PointsRateEstimator;
+import net.runelite.client.plugins.coxmegascale.replay.SessionRecorder;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutKey;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutPatterns;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutScorer;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutVerdictCache;
+import net.runelite.client.plugins.coxmegascale.scouting.ReloadEstimator;
+import net.runelite.client.plugins.coxmegascale.scouting.RuleSyntaxException;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutVerdict;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutingCriteria;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutingProfiles;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutingRule;
+import net.runelite.client.plugins.coxmegascale.supplies.SuppliesPlanner;
+import net.runelite.client.plugins.coxmegascale.trace.ScoutLatencyTracker;
+import net.runelite.client.plugins.coxmegascale.trace.ScoutLatencyTracker.Stage;
+import net.runelite.client.plugins.coxmegascale.trace.TraceEvent;
+import net.runelite.client.plugins.coxmegascale.trace.TraceRecorder;
+import net.runelite.client.plugins.coxmegascale.util.Utils;
+import net.runelite.client.plugins.coxmegascale.util.VarbitDispatcher;
+import net.runelite.client.ui.overlay.OverlayManager;
+
+import net.runelite.client.plugins.raids.Raid;
+import net.runelite.client.plugins.raids.RaidsPlugin;
+import net.runelite.client.plugins.raids.events.RaidReset;
+import net.runelite.client.plugins.raids.events.RaidScouted;
+
+@Slf4j
+@PluginDescriptor(
+        name = "Cox Mega Scale",
+        description = "Enhances scouting with points tracking, drop chances, and supplies calculations.",
+        tags = {"cox", "scouting", "points", "drop", "supplies"},
+        enabledByDefault = false
+)
+public class CoxMegaScalePlugin extends Plugin {
+    @Inject
+    private Client client;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private CoxMegaScaleConfig config;
+
+    @Inject
+    private ClientThread clientThread;
+
+    @Inject
+    private OverlayManager overlayManager;
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    @Inject
+    private PartySizeChangedPublisher partySizePublisher;
+
+    @Inject
+    private PointsOverlay pointsOverlay;
+
+    @Inject
+    private DropChanceOverlay dropChanceOverlay;
+
+    @Inject
+    private SuppliesCalculationOverlay suppliesCalculationOverlay;
+
+    @Inject
+    private CompositeHudOverlay compositeHudOverlay;
+
+    @Inject
+    private ScoutingOverlay scoutingOverlay;
+
+    @Inject
+    private ScoutLatencyOverlay scoutLatencyOverlay;
+
+    @Getter
+    private Raid currentRaid;
+
+    @Getter
+    private int scaledPartySize = 1; // Default value for virtual players (if needed)
+
+    @Getter
+    private int actualPartySize = 1; // Default value for total party size (real + virtual players)
+
+    @Getter
+    private int totalPoints = 0;
+
+    @Getter
+    private int lostPoints = 0;
+
+    @Getter
+    private double uniqueChance = 0.0;
+
+    @Getter
+    private boolean desirableRaidFound = false;
+
+    @Getter
+    private RaidState raidState = RaidState.OUTSIDE;
+
+    // Packed layout of the last scouted raid
+    private long currentLayoutKey = LayoutKey.NO_KEY;
+
+    // Written once per tick on the client thread, read by overlays and off-thread consumers
+    private volatile RaidStateSnapshot snapshot = RaidStateSnapshot.EMPTY;
+
+    // Raid-only handlers, registered with the EventBus while the player is inside the chambers
+    private final RaidEventSubscriber raidEventSubscriber = new RaidEventSubscriber(this);
+
+    // Correct Varbit IDs based on user description
+    private static final int IN_RAID_VARBIT_ID = 5432; // Verify if this is correct
+    private static final int RAID_PARTY_SIZE_VARBIT_ID = 9539; // Scaled party size varbit (if needed)
+    private static final int ACTUAL_PARTY_SIZE_VARBIT_ID = 9540; // Actual party size varbit
+    private static final int RAID_PARTY_SIZE_SCALING_VARBIT_ID = 9541; // Additional scaled party size varbit (if needed)
+    private static final int TOTAL_POINTS_VARBIT_ID = Varbits.TOTAL_POINTS; // Total raid points varbit
+
+    private static final String RAID_START_MESSAGE = "the raid has begun!";
+
+    // Chat command (::coxtrace) that writes the trace ring to TRACE_DIRECTORY
+    private static final String TRACE_COMMAND = "coxtrace";
+
+    // Chat command (::coxlatency) that writes the scout latency histograms to TRACE_DIRECTORY;
+    // "::coxlatency reset" clears them
+    private static final String LATENCY_COMMAND = "coxlatency";
+    private static final File TRACE_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "cox-mega-scale");
+    private static final File SESSION_DIRECTORY = new File(TRACE_DIRECTORY, "sessions");
+    private static final File HISTORY_DIRECTORY = new File(TRACE_DIRECTORY, "history");
+
+    // About 350 000 scouts per history file, the newest 4 files are kept
+    private static final long HISTORY_FILE_BYTES = 8 << 20;
+    private static final int HISTORY_MAX_FILES = 4;
+
+    // Number of layout verdicts kept; the cache is cleared whenever the config changes
+    private static final int VERDICT_CACHE_SIZE = 1024;
+
+    // Scouting criteria compiled from the config, rebuilt only when the config changes
+    private ScoutingCriteria scoutingCriteria;
+
+    // Rule and profile texts whose syntax errors were reported, so that each is reported once
+    private final Set<String> reportedRuleErrors = new HashSet<>();
+
+    // Names of the profiles the current layout matched, see ScoutVerdict
+    private String matchedProfiles = "";
+
+    // Layouts scouted since the last desirable one; relaxes the score threshold
+    private int scoutsWithoutDesirable = 0;
+
+    // Score of the current layout against the relaxed threshold, see RaidStateSnapshot
+    private String scoreText = "";
+
+    // Score threshold relaxation, cached from the config; 0 reloads never relaxes it
+    private int scoreRelaxAfterReloads;
+    private int scoreRelaxStep;
+
+    private final StepsMenuClassifier stepsMenuClassifier = new StepsMenuClassifier();
+
+    private final VarbitDispatcher varbitDispatcher = new VarbitDispatcher();
+
+    // Ticks between varbit reconciliations, cached from the config; 0 disables reconciliation
+    private int reconcileInterval;
+
+    private int ticksSinceReconcile = 0;
+
+    // Drop chances, recomputed only when the total points or the party size change
+    private final DropChanceEngine dropChanceEngine = new DropChanceEngine();
+
+    private DropChances dropChances = DropChances.NONE;
+
+    // Simulates how uniques split across the party on its own pool; created on startUp
+    private LootSimulator lootSimulator;
+
+    // Above 0 the split is simulated, otherwise lootDistribution is computed exactly
+    private int lootSimulationTrials;
+
+    // Exact split of the uniques across the party, recomputed with the drop chances
+    private volatile LootDistribution lootDistribution;
+
+    // Points rate and end-of-raid projection, updated on every points change once the raid has begun
+    // and decayed on ticks without points
+    private final PointsRateEstimator pointsRateEstimator = new PointsRateEstimator();
+
+    private PointsProjection pointsProjection = PointsProjection.NONE;
+
+    // Points lost to deaths, per player, from points drops and player deaths
+    @Getter
+    private final LostPointsTracker lostPointsTracker = new LostPointsTracker();
+
+    // Hot paths write primitive trace records here instead of logging; dumped on command or error
+    private final TraceRecorder traceRecorder = new TraceRecorder();
+
+    // Only the first error of a raid dumps the trace
+    private boolean errorTraceDumped = false;
+
+    // Scout to verdict, menu entry and click latencies; shown by the latency overlay, exported on command
+    @Getter
+    private final ScoutLatencyTracker latencyTracker = new ScoutLatencyTracker();
+
+    // Open while session recording is enabled in the config
+    private SessionRecorder sessionRecorder;
+
+    // Appends every scouted layout to the history files while enabled in the config
+    private ScoutHistoryWriter scoutHistoryWriter;
+
+    // Layout frequencies learned from scouts, and from the history files once they are read; owned
+    // by the client thread
+    private final ReloadEstimator reloadEstimator = new ReloadEstimator();
+
+    // Counts the resets of the reload estimator, so history read before a restart is not merged
+    private int reloadEstimatorResets;
+
+    // Supplies for party sizes 1 to 100, precomputed per set of scouted rooms
+    @Getter
+    private final SuppliesPlanner suppliesPlanner = new SuppliesPlanner();
+
+    @Getter
+    private final LayoutVerdictCache verdictCache = new LayoutVerdictCache(VERDICT_CACHE_SIZE);
+
+    @Provides
+    CoxMegaScaleConfig provideConfig(ConfigManager configManager) {
+        return configManager.getConfig(CoxMegaScaleConfig.class);
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        log.info("Cox Mega Scale plugin started!");
+        scoutingCriteria = compileScoutingCriteria();
+        reconcileInterval = config.reconcileIntervalTicks();
+        lootSimulationTrials = config.lootSimulationTrials();
+        scoreRelaxAfterReloads = config.scoreRelaxAfterReloads();
+        scoreRelaxStep = config.scoreRelaxStep();
+        lootSimulator = new LootSimulator();
+        pointsRateEstimator.setExpectedRaidMinutes(config.expectedRaidMinutes());
+        // Opened and closed only on the client thread, which records to them
+        clientThread.invoke(() -> {
+            updateSessionRecorder();
+            updateScoutHistoryWriter();
+            reloadEstimator.setCriteria(scoutingCriteria);
+            if (config.recordScoutHistory()) {
+                learnFromScoutHistory();
+            }
+        });
+
+        varbitDispatcher.register(IN_RAID_VARBIT_ID, this::onInRaidChanged);
+        varbitDispatcher.register(ACTUAL_PARTY_SIZE_VARBIT_ID, this::onActualPartySizeChanged);
+        varbitDispatcher.register(TOTAL_POINTS_VARBIT_ID, this::onTotalPointsChanged);
+        // Do not register overlays here. They will be managed based on raid status.
+        // The supplies overlay listens for PartySizeChanged to know when to rebuild its lines;
+        // party size updates are coalesced into at most one PartySizeChanged per tick.
+        eventBus.register(suppliesCalculationOverlay);
+
+        // Check if the player is already in a raid at startup
+        clientThread.invokeLater(() -> {
+            try {
+                int inRaidValue = client.getVarbitValue(IN_RAID_VARBIT_ID);
+                log.debug("startUp - IN_RAID Varbit (ID {}): {}", IN_RAID_VARBIT_ID, inRaidValue);
+                if (inRaidValue == 1 && raidState == RaidState.OUTSIDE) {
+                    log.info("Player is already in a raid.");
+                    enterChambers();
+                }
+            } catch (Exception e) {
+                log.error("Error during startUp Varbit check: ", e);
+                traceError("startup varbit check");
+            }
+        });
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        log.info("Cox Mega Scale plugin stopped!");
+
+        // Remove Overlays
+        removeOverlays();
+        eventBus.unregister(suppliesCalculationOverlay);
+
+        if (raidState != RaidState.OUTSIDE) {
+            eventBus.unregister(raidEventSubscriber);
+        }
+
+        // Reset variables
+        currentRaid = null;
+        currentLayoutKey = LayoutKey.NO_KEY;
+        desirableRaidFound = false;
+        matchedProfiles = "";
+        scoutsWithoutDesirable = 0;
+        scoreText = "";
+        raidState = RaidState.OUTSIDE;
+        snapshot = RaidStateSnapshot.EMPTY;
+        scaledPartySize = 1;
+        actualPartySize = 1;
+        totalPoints = 0;
+        lostPoints = 0;
+        uniqueChance = 0.0;
+        dropChanceEngine.reset();
+        dropChances = DropChances.NONE;
+        lootSimulator.shutdown();
+        lootSimulator = null;
+        lootDistribution = null;
+        pointsRateEstimator.reset();
+        pointsProjection = PointsProjection.NONE;
+        lostPointsTracker.reset();
+        partySizePublisher.reset();
+        // The client thread may still be judging a layout
+        clientThread.invoke(verdictCache::clear);
+        stepsMenuClassifier.reset();
+        varbitDispatcher.clear();
+        traceRecorder.clear();
+        latencyTracker.clear();
+        clientThread.invoke(() -> {
+            if (sessionRecorder != null) {
+                sessionRecorder.close();
+                sessionRecorder = null;
+            }
+            if (scoutHistoryWriter != null) {
+                scoutHistoryWriter.close();
+                scoutHistoryWriter = null;
+            }
+            reloadEstimator.reset();
+            reloadEstimatorResets++;
+        });
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if (!CoxMegaScaleConfig.GROUP.equals(event.getGroup())) {
+            return;
+        }
+
+        // Compiled here, but swapped in on the client thread together with clearing the verdicts of
+        // the old criteria and re-judging the learned layouts, so that no layout is judged, cached or
+        // estimated with mixed criteria
+        ScoutingCriteria criteria = compileScoutingCriteria();
+        reconcileInterval = config.reconcileIntervalTicks();
+        lootSimulationTrials = config.lootSimulationTrials();
+        scoreRelaxAfterReloads = config.scoreRelaxAfterReloads();
+        scoreRelaxStep = config.scoreRelaxStep();
+        pointsRateEstimator.setExpectedRaidMinutes(config.expectedRaidMinutes());
+        clientThread.invoke(() -> {
+            scoutingCriteria = criteria;
+            verdictCache.clear();
+            reloadEstimator.setCriteria(criteria);
+            updateSessionRecorder();
+            updateScoutHistoryWriter();
+            log.debug("Scouting criteria recompiled: {}", criteria);
+        });
+
+        // Overlay toggles may have changed; swap between the separate overlays and the composite HUD
+        compositeHudOverlay.invalidate();
+        if (isInRaid()) {
+            removeOverlays();
+            addOverlays();
+        }
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event) {
+        // O(1) lookup of the handler for this varbit; every other varbit is ignored
+        if (varbitDispatcher.dispatch(event.getVarbitId(), event.getValue()) && sessionRecorder != null) {
+            sessionRecorder.recordVarbit(event.getVarbitId(), event.getValue());
+        }
+    }
+
+    /**
+     * Compiles the scouting criteria. A rule, profiles, layout weights or layout patterns that are not
+     * valid are reported in the chat and ignored until they are fixed.
+     *
+     * @return The compiled criteria.
+     */
+    private ScoutingCriteria compileScoutingCriteria() {
+        ScoutingRule rule = ScoutingRule.NONE;
+        try {
+            rule = ScoutingRule.parse(config.scoutingRule());
+        } catch (RuleSyntaxException e) {
+            reportRuleError("scouting rule", config.scoutingRule(), e);
+        }
+
+        ScoutingProfiles profiles = ScoutingProfiles.NONE;
+        try {
+            profiles = ScoutingProfiles.parse(config.scoutingProfiles());
+        } catch (RuleSyntaxException e) {
+            reportRuleError("scouting profiles", config.scoutingProfiles(), e);
+        }
+
+        LayoutScorer scorer = LayoutScorer.NONE;
+        try {
+            scorer = LayoutScorer.parse(config.layoutWeights());
+        } catch (RuleSyntaxException e) {
+            reportRuleError("layout weights", config.layoutWeights(), e);
+        }
+
+        try {
+            // Patterns are compiled together with the start order, which can make them too complex
+            return ScoutingCriteria.compile(config, rule, profiles, scorer, LayoutPatterns.parse(config.layoutPatterns()));
+        } catch (RuleSyntaxException e) {
+            reportRuleError("layout patterns", config.layoutPatterns(), e);
+        }
+
+        return ScoutingCriteria.compile(config, rule, profiles, scorer, LayoutPatterns.NONE);
+    }
+
+    /**
+     * Logs a rule syntax error and reports it in the chat, once per text.
+     *
+     * @param what The config item, e.g. "scouting rule".
+     * @param text The text that failed to parse.
+     * @param e    The syntax error.
+     */
+    private void reportRuleError(String what, String text, RuleSyntaxException e) {
+        log.warn("Invalid {} '{}': {}", what, text, e.getMessage());
+        if (reportedRuleErrors.add(text)) {
+            String message = "Cox Mega Scale: ignoring the invalid " + what + ", " + e.getMessage();
+            clientThread.invokeLater(() -> client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null));
+        }
+    }
+
+    /**
+     * Opens or closes the session recorder to match the config. Must be called on the client thread.
+     */
+    private void updateSessionRecorder() {
+        if (config.recordSessions() && sessionRecorder == null) {
+            try {
+                sessionRecorder = SessionRecorder.open(SESSION_DIRECTORY);
+            } catch (IOException e) {
+                log.warn("Unable to start session recording: ", e);
+            }
+        } else if (!config.recordSessions() && sessionRecorder != null) {
+            sessionRecorder.close();
+            sessionRecorder = null;
+        }
+    }
+
+    /**
+     * Opens or closes the scouting history writer to match the config. Must be called on the client
+     * thread.
+     */
+    private void updateScoutHistoryWriter() {
+        if (config.recordScoutHistory() && scoutHistoryWriter == null) {
+            scoutHistoryWriter = new ScoutHistoryWriter(HISTORY_DIRECTORY, HISTORY_FILE_BYTES, HISTORY_MAX_FILES, executor);
+            scoutHistoryWriter.start();
+        } else if (!config.recordScoutHistory() && scoutHistoryWriter != null) {
+            scoutHistoryWriter.close();
+            scoutHistoryWriter = null;
+        }
+    }
+
+    /**
+     * Learns layout frequencies from the scouting history on the executor, then merges the result
+     * into the live estimator on the client thread. Must be called on the client thread.
+     */
+    private void learnFromScoutHistory() {
+        int resets = reloadEstimatorResets;
+        long startMillis = System.currentTimeMillis();
+        executor.execute(() -> {
+            ReloadEstimator learned = new ReloadEstimator();
+            long records;
+            try {
+                // Later records are also counted by the live estimator
+                records = ScoutHistoryReader.read(HISTORY_DIRECTORY, startMillis,
+                        (timestamp, layoutKey, partySize, verdict, roomCount) -> learned.record(timestamp, layoutKey));
+            } catch (IOException e) {
+                log.warn("Unable to read the scouting history: ", e);
+                return;
+            }
+
+            log.debug("Learned {} distinct layouts from {} scouts in the history", learned.getDistinctLayouts(), records);
+            clientThread.invoke(() -> {
+                // Skip if the plugin was restarted meanwhile
+                if (reloadEstimatorResets == resets) {
+                    reloadEstimator.merge(learned);
+                }
+            });
+        });
+    }
+
+    /**
+     * Handles changes of the IN_RAID varbit.
+     *
+     * @param varbitValue The new varbit value.
+     */
+    private void onInRaidChanged(int varbitValue) {
+        boolean currentlyInRaid = varbitValue == 1;
+        trace(TraceEvent.IN_RAID_CHANGED, varbitValue, 0);
+
+        if (currentlyInRaid && raidState == RaidState.OUTSIDE) {
+            enterChambers();
+        } else if (!currentlyInRaid && raidState != RaidState.OUTSIDE) {
+            leaveChambers();
+        }
+    }
+
+    /**
+     * Moves from {@link RaidState#OUTSIDE} into the chambers: registers the raid-only handlers,
+     * reads the raid varbits and adds the overlays.
+     */
+    private void enterChambers() {
+        totalPoints = client.getVar(TOTAL_POINTS_VARBIT_ID);
+        // Points are only earned once the raid has begun
+        raidState = totalPoints > 0 ? RaidState.IN_RAID : RaidState.LOBBY_SCOUTING;
+        eventBus.register(raidEventSubscriber);
+
+        ticksSinceReconcile = 0;
+        actualPartySize = calculateActualPartySize();
+        updateDropChances();
+        if (raidState == RaidState.IN_RAID) {
+            // Joined or restarted mid-raid; the projection assumes the raid begins now
+            pointsRateEstimator.start(client.getTickCount(), totalPoints);
+        }
+        errorTraceDumped = false;
+        trace(TraceEvent.RAID_STATE, raidState.ordinal(), totalPoints);
+        log.info("Raid Entry Detected ({}). Total Points: {}", raidState, totalPoints);
+        partySizePublisher.offer(actualPartySize);
+        publishSnapshot();
+
+        // Add overlays if enabled in config
+        addOverlays();
+    }
+
+    /**
+     * Moves back to {@link RaidState#OUTSIDE}: unregisters the raid-only handlers, resets the raid
+     * values and removes the overlays.
+     */
+    private void leaveChambers() {
+        raidState = RaidState.OUTSIDE;
+        eventBus.unregister(raidEventSubscriber);
+
+        scaledPartySize = 1; // Reset to default if needed
+        actualPartySize = 1; // Reset to default
+        totalPoints = 0;
+        lostPoints = 0;
+        uniqueChance = 0.0;
+        dropChanceEngine.reset();
+        dropChances = DropChances.NONE;
+        lootSimulator.clear();
+        lootDistribution = null;
+        pointsRateEstimator.reset();
+        pointsProjection = PointsProjection.NONE;
+        lostPointsTracker.reset();
+        stepsMenuClassifier.reset();
+        scoutsWithoutDesirable = 0;
+        scoreText = "";
+        latencyTracker.endCycle();
+        trace(TraceEvent.RAID_STATE, raidState.ordinal(), totalPoints);
+        log.info("Raid Exit Detected. Total Points Reset.");
+        // Post right away; the raid-only handlers are gone and the overlays reset now
+        partySizePublisher.offer(actualPartySize);
+        partySizePublisher.flush();
+        publishSnapshot();
+
+        // Remove overlays
+        removeOverlays();
+    }
+
+    /**
+     * Moves from {@link RaidState#LOBBY_SCOUTING} to {@link RaidState#IN_RAID}.
+     */
+    private void startRaid() {
+        if (raidState == RaidState.LOBBY_SCOUTING) {
+            raidState = RaidState.IN_RAID;
+            scoutsWithoutDesirable = 0;
+            latencyTracker.endCycle();
+            pointsRateEstimator.start(client.getTickCount(), totalPoints);
+            trace(TraceEvent.RAID_STATE, raidState.ordinal(), totalPoints);
+            log.info("Raid start detected.");
+        }
+    }
+
+    /**
+     * @return True while the player is inside the chambers, scouting or raiding.
+     */
+    public boolean isInRaid() {
+        return raidState != RaidState.OUTSIDE;
+    }
+
+    /**
+     * Handles changes of the actual party size varbit.
+     *
+     * @param varbitValue The new varbit value.
+     */
+    private void onActualPartySizeChanged(int varbitValue) {
+        if (raidState == RaidState.OUTSIDE) {
+            return;
+        }
+
+        int newActualSize = Math.max(varbitValue, 1); // Ensure party size is at least 1
+        if (newActualSize != actualPartySize) {
+            trace(TraceEvent.PARTY_SIZE, actualPartySize, newActualSize);
+            actualPartySize = newActualSize;
+            updateDropChances();
+            partySizePublisher.offer(actualPartySize);
+        }
+    }
+
+    /**
+     * Handles changes of the total raid points varbit.
+     *
+     * @param varbitValue The new varbit value.
+     */
+    private void onTotalPointsChanged(int varbitValue) {
+        if (raidState != RaidState.OUTSIDE && varbitValue != totalPoints) {
+            trace(TraceEvent.POINTS, totalPoints, varbitValue);
+            trackLostPoints(totalPoints, varbitValue);
+            totalPoints = varbitValue;
+            updateDropChances();
+            if (totalPoints > 0) {
+                startRaid();
+            }
+            recordPoints();
+        }
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} on every game tick inside the chambers.
+     */
+    void onRaidTick() {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordTick(client.getTickCount());
+        }
+
+        // Varbit changes are event driven; only re-read the varbits every reconcileInterval ticks
+        // in case a change was missed, e.g. while the plugin was being started
+        if (reconcileInterval > 0 && ++ticksSinceReconcile >= reconcileInterval) {
+            ticksSinceReconcile = 0;
+            updateTotalPoints();
+
+            int currentActualSize = calculateActualPartySize();
+            if (currentActualSize != actualPartySize) {
+                actualPartySize = currentActualSize;
+                partySizePublisher.offer(actualPartySize);
+            }
+            updateDropChances();
+        }
+
+        if (raidState == RaidState.IN_RAID) {
+            pointsProjection = pointsRateEstimator.tick(client.getTickCount());
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * Builds a snapshot of the current raid values and publishes it for overlays and off-thread readers.
+     * Must be called on the client thread.
+     */
+    private void publishSnapshot() {
+        if (raidState == RaidState.OUTSIDE) {
+            snapshot = RaidStateSnapshot.EMPTY;
+            return;
+        }
+
+        snapshot = new RaidStateSnapshot(raidState, client.getTickCount(), totalPoints, lostPoints,
+                lostPointsTracker.getTotalDeaths(), scaledPartySize, actualPartySize, uniqueChance, currentLayoutKey, dropChances, pointsProjection,
+                reloadEstimator.getEstimate(), matchedProfiles, scoreText);
+    }
+
+    /**
+     * Feeds a change of the total points to the lost points tracker.
+     *
+     * @param oldPoints The previous total points.
+     * @param newPoints The new total points.
+     */
+    private void trackLostPoints(int oldPoints, int newPoints) {
+        if (newPoints < oldPoints) {
+            lostPointsTracker.onPointsChanged(client.getTickCount(), oldPoints, newPoints);
+            lostPoints = lostPointsTracker.getTotalLost();
+        }
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} when an actor dies inside the chambers.
+     *
+     * @param event The ActorDeath event.
+     */
+    void onRaidActorDeath(ActorDeath event) {
+        if (event.getActor() instanceof Player) {
+            lostPointsTracker.onPlayerDeath(client.getTickCount(), event.getActor().getName());
+            lostPoints = lostPointsTracker.getTotalLost();
+            trace(TraceEvent.DEATH, lostPointsTracker.getTotalDeaths(), lostPoints);
+        }
+    }
+
+    /**
+     * Feeds the total points to the points rate estimator once the raid has begun.
+     */
+    private void recordPoints() {
+        if (raidState == RaidState.IN_RAID) {
+            pointsProjection = pointsRateEstimator.record(client.getTickCount(), totalPoints);
+        }
+    }
+
+    /**
+     * Recomputes the drop chances from the total points and the actual party size. The engine
+     * returns the previous chances when neither changed.
+     */
+    private void updateDropChances() {
+        DropChances updated = dropChanceEngine.update(totalPoints, actualPartySize);
+        if (updated != dropChances) {
+            dropChances = updated;
+            uniqueChance = updated.getTeamUniqueChance() * 100.0;
+            trace(TraceEvent.DROP_CHANCE, (int) Math.round(uniqueChance * 100.0), actualPartySize);
+
+            if (totalPoints > 0) {
+                int[] points = LootSimulator.evenSplit(totalPoints, actualPartySize);
+                if (lootSimulationTrials > 0) {
+                    // Runs in the background; the overlay keeps showing the last finished result meanwhile
+                    lootSimulator.request(points, lootSimulationTrials);
+                } else {
+                    lootDistribution = LootDistribution.exact(points);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how uniques split across the party: the last finished loot simulation while simulation
+     * trials are configured, the exact split otherwise. Safe to call from any thread.
+     *
+     * @return The loot distribution, or null if none is available.
+     */
+    public LootDistribution getLootDistribution() {
+        if (lootSimulationTrials > 0) {
+            LootSimulator simulator = lootSimulator;
+            return simulator != null ? simulator.getLatest() : null;
+        }
+        return lootDistribution;
+    }
+
+    /**
+     * Returns the latest published raid snapshot. Safe to call from any thread.
+     *
+     * @return The snapshot; {@link RaidStateSnapshot#EMPTY} outside the chambers.
+     */
+    public RaidStateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Re-reads the total raid points varbit and handles it like a change event, so a missed change
+     * also starts the raid.
+     */
+    private void updateTotalPoints() {
+        try {
+            onTotalPointsChanged(client.getVar(TOTAL_POINTS_VARBIT_ID));
+        } catch (Exception e) {
+            log.error("Error updating total raid points: ", e);
+            traceError("total points update");
+        }
+    }
+
+    /**
+     * Fetches the actual party size by reading the relevant varbit.
+     *
+     * @return The actual party size.
+     */
+    private int calculateActualPartySize() {
+        try {
+            int actualSize = client.getVarbitValue(ACTUAL_PARTY_SIZE_VARBIT_ID); // Varbit 9540
+            return Math.max(actualSize, 1); // Ensure party size is at least 1
+        } catch (Exception e) {
+            log.error("Error fetching actual party size: ", e);
+            traceError("party size read");
+            return actualPartySize; // Fallback to last known value
+        }
+    }
+
+    /**
+     * Adds the necessary overlays based on the configuration.
+     */
+    private void addOverlays() {
+        // Shown while scouting only, next to either the separate overlays or the composite HUD
+        if (config.enableScoutingOverlay()) {
+            overlayManager.add(scoutingOverlay);
+            log.debug("ScoutingOverlay added to OverlayManager.");
+        }
+
+        if (config.enableLatencyOverlay()) {
+            overlayManager.add(scoutLatencyOverlay);
+            log.debug("ScoutLatencyOverlay added to OverlayManager.");
+        }
+
+        if (config.useCompositeHud()) {
+            // One pre-rendered overlay draws every enabled section
+            if (config.enablePointsOverlay() || config.enableDropChanceOverlay() || config.enableSuppliesCalculationOverlay()) {
+                overlayManager.add(compositeHudOverlay);
+                log.debug("CompositeHudOverlay added to OverlayManager.");
+            }
+            return;
+        }
+
+        if (config.enablePointsOverlay()) {
+            overlayManager.add(pointsOverlay);
+            log.debug("PointsOverlay added to OverlayManager.");
+        }
+
+        if (config.enableDropChanceOverlay()) {
+            overlayManager.add(dropChanceOverlay);
+            log.debug("DropChanceOverlay added to OverlayManager.");
+        }
+
+        if (config.enableSuppliesCalculationOverlay()) {
+            overlayManager.add(suppliesCalculationOverlay);
+            log.debug("SuppliesCalculationOverlay added to OverlayManager.");
+        }
+    }
+
+    /**
+     * Removes the overlays from the OverlayManager. Overlays that were never added are ignored by
+     * the OverlayManager, so every overlay is removed regardless of the current configuration.
+     */
+    private void removeOverlays() {
+        overlayManager.remove(pointsOverlay);
+        overlayManager.remove(dropChanceOverlay);
+        overlayManager.remove(suppliesCalculationOverlay);
+        overlayManager.remove(compositeHudOverlay);
+        overlayManager.remove(scoutingOverlay);
+        overlayManager.remove(scoutLatencyOverlay);
+        log.debug("Overlays removed from OverlayManager.");
+    }
+
+    /**
+     * Returns the current scaled party size.
+     *
+     * @return The scaled party size.
+     */
+    public int getScaledPartySize() {
+        return this.scaledPartySize;
+    }
+
+    /**
+     * Returns the actual party size.
+     *
+     * @return The actual party size.
+     */
+    public int getActualPartySizeValue() {
+        return this.actualPartySize;
+    }
+
+    /**
+     * Returns the total points.
+     *
+     * @return The total points.
+     */
+    public int getTotalPoints() {
+        return this.totalPoints;
+    }
+
+    /**
+     * Returns the lost points.
+     *
+     * @return The lost points.
+     */
+    public int getLostPoints() {
+        return this.lostPoints;
+    }
+
+    /**
+     * Returns the unique drop chance.
+     *
+     * @return The unique drop chance.
+     */
+    public double getUniqueChance() {
+        return this.uniqueChance;
+    }
+
+    @Subscribe
+    public void onRaidScouted(RaidScouted event) {
+        long arrivalNanos = System.nanoTime();
+        this.currentRaid = event.getRaid();
+
+        // Pack the layout and rotation; layouts seen before are answered by the verdict cache
+        onLayoutScouted(LayoutKey.pack(currentRaid), arrivalNanos);
+    }
+
+    /**
+     * Judges a scouted layout and updates the party size. Called directly by the session replay,
+     * which only has the packed layout.
+     *
+     * @param layoutKey The packed layout, see {@link LayoutKey}.
+     */
+    public void onLayoutScouted(long layoutKey) {
+        onLayoutScouted(layoutKey, System.nanoTime());
+    }
+
+    /**
+     * Judges a scouted layout and updates the party size. Called for every {@link RaidScouted} event.
+     *
+     * @param layoutKey    The packed layout, see {@link LayoutKey}.
+     * @param arrivalNanos The {@link System#nanoTime()} the layout was scouted at, for the latency tracker.
+     */
+    private void onLayoutScouted(long layoutKey, long arrivalNanos) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordScouted(layoutKey);
+        }
+
+        boolean reloaded = layoutKey != currentLayoutKey;
+        currentLayoutKey = layoutKey;
+        trace(TraceEvent.SCOUTED, LayoutKey.roomCount(layoutKey), LayoutKey.firstFloorSize(layoutKey));
+        if (reloaded) {
+            // Re-posts of the same layout change nothing on the steps, so they do not restart the clock
+            latencyTracker.scouted(arrivalNanos, client.getTickCount());
+        }
+
+        ScoutVerdict verdict = verdictCache.get(layoutKey);
+        boolean cached = verdict != null;
+        if (!cached) {
+            verdict = scoutingCriteria.evaluate(layoutKey);
+            verdictCache.put(layoutKey, verdict);
+        }
+
+        // Determine if the raid is desirable; without selected rooms no raid is marked as desirable.
+        // The verdict holds the score against the configured threshold; after enough reloads
+        // without a desirable layout, a lower score is accepted as well
+        int relax = scoreRelaxation();
+        desirableRaidFound = verdict.isDesirable() || scoutingCriteria.acceptsScore(verdict.getScore(), relax);
+        matchedProfiles = verdict.isDesirable() || !desirableRaidFound ? verdict.getMatchedProfiles() : ScoutingCriteria.SCORE_PROFILE;
+        scoreText = scoutingCriteria.getScorer().isEmpty() ? ""
+                : verdict.getScore() + " / " + (scoutingCriteria.getScoreThreshold() - relax);
+        if (reloaded) {
+            scoutsWithoutDesirable = desirableRaidFound ? 0 : scoutsWithoutDesirable + 1;
+        }
+        if (latencyTracker.isPending(Stage.VERDICT)) {
+            latencyTracker.reached(Stage.VERDICT, System.nanoTime(), client.getTickCount());
+        }
+        trace(TraceEvent.VERDICT, desirableRaidFound ? 1 : 0, cached ? 1 : 0);
+
+        // Update actual party size
+        try {
+            // Assuming Raid object has methods to get actual party size
+            // Replace these with actual methods if available
+            int actualSize = calculateActualPartySize();
+
+            if (actualSize > 0 && actualSize != actualPartySize) {
+                trace(TraceEvent.PARTY_SIZE, actualPartySize, actualSize);
+                actualPartySize = Math.max(actualSize, 1);
+                updateDropChances();
+                partySizePublisher.offer(actualPartySize);
+            }
+        } catch (NoSuchMethodError | UnsupportedOperationException e) {
+            // If the method does not exist, fallback to Varbit
+            log.warn("Actual party size methods not found in Raid object. Falling back to Varbit.");
+            int actualSize = calculateActualPartySize();
+            trace(TraceEvent.PARTY_SIZE, actualPartySize, actualSize);
+            actualPartySize = actualSize;
+            updateDropChances();
+            partySizePublisher.offer(actualPartySize);
+        }
+
+        long now = System.currentTimeMillis();
+        reloadEstimator.record(now, layoutKey);
+        if (scoutHistoryWriter != null && layoutKey != LayoutKey.NO_KEY) {
+            scoutHistoryWriter.append(now, layoutKey, actualPartySize, desirableRaidFound, verdict.getRoomCount());
+        }
+    }
+
+    /**
+     * @return How far the score threshold is lowered for the layouts scouted without a desirable one.
+     */
+    private int scoreRelaxation() {
+        return scoreRelaxAfterReloads > 0 ? scoutsWithoutDesirable / scoreRelaxAfterReloads * scoreRelaxStep : 0;
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} when the raid start message is received.
+     *
+     * @param event The chat message.
+     */
+    void onRaidChatMessage(ChatMessage event) {
+        if (raidState == RaidState.LOBBY_SCOUTING
+                && (event.getType() == ChatMessageType.FRIENDSCHATNOTIFICATION || event.getType() == ChatMessageType.GAMEMESSAGE)
+                && Utils.containsIgnoreTags(event.getMessage(), RAID_START_MESSAGE)) {
+            startRaid();
+        }
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} for every menu entry added inside the chambers.
+     *
+     * @param event The MenuEntryAdded event.
+     */
+    void onStepsMenuEntryAdded(MenuEntryAdded event) {
+        MenuEntry entry = event.getMenuEntry();
+        if (sessionRecorder != null) {
+            sessionRecorder.recordMenuEntryAdded(entry);
+        }
+
+        StepsOption option = stepsMenuClassifier.classify(entry);
+        if (option != StepsOption.RELOAD && option != StepsOption.CLIMB) {
+            return;
+        }
+
+        if (desirableRaidFound) {
+            // When raid is desirable, deprioritize "Climb" and "Reload"
+            entry.setDeprioritized(true);
+            trace(TraceEvent.MENU_ENTRY, option.ordinal(), 1);
+        } else if (option == StepsOption.RELOAD) {
+            // When raid is not desirable, prioritize "Reload" and deprioritize "Climb"
+            entry.setDeprioritized(false);
+            trace(TraceEvent.MENU_ENTRY, option.ordinal(), 0);
+        } else {
+            entry.setDeprioritized(true);
+            trace(TraceEvent.MENU_ENTRY, option.ordinal(), 1);
+        }
+
+        if (latencyTracker.isPending(Stage.MENU_ENTRY)) {
+            latencyTracker.reached(Stage.MENU_ENTRY, System.nanoTime(), client.getTickCount());
+        }
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} for every menu option clicked inside the chambers.
+     *
+     * @param event The MenuOptionClicked event.
+     */
+    void onStepsMenuOptionClicked(MenuOptionClicked event) {
+        MenuEntry entry = event.getMenuEntry();
+        StepsOption option = entry == null ? StepsOption.NONE : stepsMenuClassifier.classify(entry);
+        if (option != StepsOption.RELOAD && option != StepsOption.CLIMB) {
+            return;
+        }
+
+        int ticks = latencyTracker.isPending(Stage.CLICK)
+                ? latencyTracker.reached(Stage.CLICK, System.nanoTime(), client.getTickCount())
+                : -1;
+        trace(TraceEvent.STEPS_CLICKED, option.ordinal(), ticks);
+    }
+
+    /**
+     * Called by the {@link RaidEventSubscriber} after other plugins modified an opened menu inside the chambers.
+     */
+    void onStepsMenuOpened() {
+        // Undesirable raid: "Reload" becomes the default left-click action
+        // Desirable raid: "Walk here" becomes the default left-click action
+        StepsOption defaultOption = desirableRaidFound ? StepsOption.WALK_HERE : StepsOption.RELOAD;
+
+        // The last entry of the array is the left-click action; find the last matching entry
+        MenuEntry[] menuEntries = client.getMenuEntries();
+        if (sessionRecorder != null) {
+            sessionRecorder.recordMenuOpened(menuEntries);
+        }
+
+        int last = menuEntries.length - 1;
+        int index = last;
+        while (index >= 0 && stepsMenuClassifier.classify(menuEntries[index]) != defaultOption) {
+            index--;
+        }
+
+        if (index < 0 || index == last) {
+            // Nothing to move, leave the menu untouched
+            return;
+        }
+
+        // Swap the default entry into the last slot of the existing array
+        MenuEntry defaultEntry = menuEntries[index];
+        menuEntries[index] = menuEntries[last];
+        menuEntries[last] = defaultEntry;
+        client.setMenuEntries(menuEntries);
+        trace(TraceEvent.MENU_SWAP, defaultOption.ordinal(), index);
+    }
+
+    @Subscribe
+    public void onRaidReset(RaidReset event) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordRaidReset();
+        }
+
+        // Reset the current raid when the raid ends or the player leaves
+        currentRaid = null;
+        currentLayoutKey = LayoutKey.NO_KEY;
+        desirableRaidFound = false;
+        matchedProfiles = "";
+        scoreText = "";
+        latencyTracker.endCycle();
+        trace(TraceEvent.RAID_RESET, verdictCache.size(), (int) verdictCache.getHits());
+        log.debug("Layout verdict cache: {} entries, {} hits, {} misses, {} evictions",
+                verdictCache.size(), verdictCache.getHits(), verdictCache.getMisses(), verdictCache.getEvictions());
+    }
+
+    @Subscribe
+    public void onCommandExecuted(CommandExecuted event) {
+        if (TRACE_COMMAND.equalsIgnoreCase(event.getCommand())) {
+            File file = dumpTrace("requested");
+            client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Writing Cox Mega Scale trace to " + file, null);
+        } else if (LATENCY_COMMAND.equalsIgnoreCase(event.getCommand())) {
+            String[] arguments = event.getArguments();
+            if (arguments != null && arguments.length > 0 && "reset".equalsIgnoreCase(arguments[0])) {
+                latencyTracker.clear();
+                client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Cox Mega Scale scout latencies cleared", null);
+                return;
+            }
+
+            File file = dumpLatencies();
+            client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Writing Cox Mega Scale scout latencies to " + file, null);
+        }
+    }
+
+    /**
+     * Writes a trace record stamped with the current tick. Does not allocate.
+     *
+     * @param event The event type.
+     * @param a     The first payload.
+     * @param b     The second payload.
+     */
+    private void trace(TraceEvent event, int a, int b) {
+        traceRecorder.record(client.getTickCount(), event, a, b);
+    }
+
+    /**
+     * Records an error and dumps the trace, once per raid.
+     *
+     * @param where What failed, used as the dump reason.
+     */
+    private void traceError(String where) {
+        trace(TraceEvent.ERROR, 0, 0);
+        if (!errorTraceDumped) {
+            errorTraceDumped = true;
+            dumpTrace("error in " + where);
+        }
+    }
+
+    /**
+     * Copies the trace ring and writes it to a new file in {@link #TRACE_DIRECTORY} on the executor.
+     *
+     * @param reason Why the trace is dumped.
+     * @return The file being written.
+     */
+    private File dumpTrace(String reason) {
+        TraceRecorder copy = traceRecorder.copy();
+        File file = new File(TRACE_DIRECTORY, "trace-" + System.currentTimeMillis() + ".txt");
+        executor.execute(() -> {
+            try {
+                copy.dump(file, reason);
+                log.info("Trace written to {}", file);
+            } catch (IOException e) {
+                log.warn("Unable to write trace to {}", file, e);
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Copies the scout latency histograms and writes them to a new file in {@link #TRACE_DIRECTORY}
+     * on the executor.
+     *
+     * @return The file being written.
+     */
+    private File dumpLatencies() {
+        ScoutLatencyTracker copy = latencyTracker.copy();
+        File file = new File(TRACE_DIRECTORY, "latency-" + System.currentTimeMillis() + ".txt");
+        executor.execute(() -> {
+            try {
+                copy.dump(file, "requested");
+                log.info("Scout latencies written to {}", file);
+            } catch (IOException e) {
+                log.warn("Unable to write scout latencies to {}", file, e);
+            }
+        });
+        return file;
+    }
+}
@@ -0,0 +1,53 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.MenuOpened;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Event handlers that only matter inside the chambers.
+ * <p>
+ * The plugin registers this subscriber with the EventBus when the player enters the chambers and
+ * unregisters it when they leave, so ticks and menu events elsewhere in the game cost nothing.
+ */
+class RaidEventSubscriber {
+    private final CoxMegaScalePlugin plugin;
+
+    RaidEventSubscriber(CoxMegaScalePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event) {
+        plugin.onRaidTick();
+    }
+
+    @Subscribe
+    public void onChatMessage(ChatMessage event) {
+        plugin.onRaidChatMessage(event);
+    }
+
+    @Subscribe
+    public void onActorDeath(ActorDeath event) {
+        plugin.onRaidActorDeath(event);
+    }
+
+    @Subscribe
+    public void onMenuEntryAdded(MenuEntryAdded event) {
+        plugin.onStepsMenuEntryAdded(event);
+    }
+
+    @Subscribe(priority = -1) // Ensure this runs after other menu modifications
+    public void onMenuOpened(MenuOpened event) {
+        plugin.onStepsMenuOpened();
+    }
+
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event) {
+        plugin.onStepsMenuOptionClicked(event);
+    }
+}
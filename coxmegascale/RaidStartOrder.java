@@ -1,28 +1,51 @@
-package net.runelite.client.plugins.coxmegascale;
-
-public enum RaidStartOrder
-{
-    ANY("Doesn't matter"),
-    FSC("FSC"),
-    SCC("SCC"),
-    SCF("SCF"),
-    SCS("SCS"),
-    SFC("SFC"),
-    SPC("SPC"),
-    SPS("SPS"),
-    FSP("FSP"),
-    SCP("SCP");
-
-    private final String name;
-
-    RaidStartOrder(String name)
-    {
-        this.name = name;
-    }
-
-    @Override
-    public String toString()
-    {
-        return name;
-    }
-}
+package net.runelite.client.plugins.coxmegascale;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public enum RaidStartOrder
+{
+    ANY("Doesn't matter"),
+    FSC("FSC"),
+    SCC("SCC"),
+    SCF("SCF"),
+    SCS("SCS"),
+    SFC("SFC"),
+    SPC("SPC"),
+    SPS("SPS"),
+    FSP("FSP"),
+    SCP("SCP");
+
+    private final String name;
+
+    RaidStartOrder(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * The start order counts rooms on both floors, so there is one pattern for every place the floor
+     * can change, e.g. {@code SCP*}, {@code SC|P*}, {@code S|CP*} and {@code |SCP*}.
+     *
+     * @return The layout patterns matching this start order, see
+     * {@link net.runelite.client.plugins.coxmegascale.scouting.LayoutPatterns}; empty for {@link #ANY}.
+     */
+    public List<String> getPatterns()
+    {
+        List<String> patterns = new ArrayList<>();
+        if (this != ANY)
+        {
+            for (int floor = name.length(); floor >= 0; floor--)
+            {
+                patterns.add(name.substring(0, floor) + (floor < name.length() ? "|" : "") + name.substring(floor) + "*");
+            }
+        }
+        return patterns;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -0,0 +1,22 @@
+package net.runelite.client.plugins.coxmegascale;
+
+/**
+ * Where the player is relative to the Chambers of Xeric, driven by the IN_RAID varbit and the raid start.
+ */
+public enum RaidState
+{
+    /**
+     * Not inside the chambers. Raid-only event handlers are not registered.
+     */
+    OUTSIDE,
+
+    /**
+     * Inside the chambers before the raid has begun, i.e. while scouting and reloading at the steps.
+     */
+    LOBBY_SCOUTING,
+
+    /**
+     * The raid has begun.
+     */
+    IN_RAID
+}
@@ -0,0 +1,44 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.runelite.client.plugins.coxmegascale.drops.DropChances;
+import net.runelite.client.plugins.coxmegascale.points.PointsProjection;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutKey;
+import net.runelite.client.plugins.coxmegascale.scouting.ReloadEstimate;
+
+/**
+ * Immutable view of the raid values, built on the client thread once per tick.
+ * <p>
+ * The plugin publishes snapshots through a single volatile reference, so overlays and off-thread
+ * consumers get a consistent set of values with one read and no locking.
+ */
+@RequiredArgsConstructor
+@Getter
+public final class RaidStateSnapshot
+{
+    /**
+     * Snapshot used outside the chambers.
+     */
+    public static final RaidStateSnapshot EMPTY = new RaidStateSnapshot(RaidState.OUTSIDE, -1, 0, 0, 0, 1, 1, 0.0, LayoutKey.NO_KEY,
+            DropChances.NONE, PointsProjection.NONE, ReloadEstimate.NONE, "", "");
+
+    private final RaidState raidState;
+    private final int tick;
+    private final int totalPoints;
+    private final int lostPoints;
+    private final int deaths;
+    private final int scaledPartySize;
+    private final int actualPartySize;
+    private final double uniqueChance;
+    private final long layoutKey;
+    private final DropChances dropChances;
+    private final PointsProjection pointsProjection;
+    private final ReloadEstimate reloadEstimate;
+    private final String matchedProfiles;
+
+    /**
+     * Score of the current layout against the threshold, e.g. "12 / 10"; empty without layout weights.
+     */
+    private final String scoreText;
+}
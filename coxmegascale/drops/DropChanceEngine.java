@@ -0,0 +1,118 @@
+package net.runelite.client.plugins.coxmegascale.drops;
+
+/**
+ * Computes Chambers of Xeric drop chances from the team's total points and the party size.
+ * <p>
+ * Every {@value #POINTS_PER_PERCENT} points give 1% chance of a unique, up to
+ * {@value #MAX_POINTS_PER_ROLL} points per roll; points above that cap feed further rolls, up to
+ * {@value #MAX_UNIQUE_ROLLS} uniques per raid. The team chance and expected uniques are precomputed
+ * for every {@value #POINTS_STEP} points, and the party share is a precomputed reciprocal, so an
+ * update is a table read plus a multiply. Dust and kits are the challenge mode completion rates,
+ * shared evenly across the party.
+ */
+public class DropChanceEngine
+{
+    public static final int POINTS_PER_PERCENT = 8676;
+    public static final int MAX_POINTS_PER_ROLL = 570_000;
+    public static final int MAX_UNIQUE_ROLLS = 3;
+    public static final int MAX_PARTY_SIZE = 100;
+
+    static final double DUST_RATE = 1.0 / 400.0;
+    static final double KIT_RATE = 1.0 / 75.0;
+
+    private static final int POINTS_STEP = 100;
+    private static final int TABLE_SIZE = MAX_POINTS_PER_ROLL * MAX_UNIQUE_ROLLS / POINTS_STEP + 1;
+
+    private static final double[] TEAM_UNIQUE_CHANCE = new double[TABLE_SIZE];
+    private static final double[] EXPECTED_UNIQUES = new double[TABLE_SIZE];
+    private static final double[] PARTY_SHARE = new double[MAX_PARTY_SIZE + 1];
+
+    static
+    {
+        for (int bucket = 0; bucket < TABLE_SIZE; bucket++)
+        {
+            int points = bucket * POINTS_STEP;
+            double noUnique = 1.0;
+            double expected = 0.0;
+            for (int roll = 0; roll < MAX_UNIQUE_ROLLS; roll++)
+            {
+                double chance = rollChance(points, roll);
+                noUnique *= 1.0 - chance;
+                expected += chance;
+            }
+            TEAM_UNIQUE_CHANCE[bucket] = 1.0 - noUnique;
+            EXPECTED_UNIQUES[bucket] = expected;
+        }
+
+        for (int partySize = 1; partySize <= MAX_PARTY_SIZE; partySize++)
+        {
+            PARTY_SHARE[partySize] = 1.0 / partySize;
+        }
+    }
+
+    private DropChances current = DropChances.NONE;
+
+    /**
+     * Returns the chance of one unique roll.
+     *
+     * @param totalPoints The team's total points.
+     * @param roll        The roll, 0 for the first.
+     * @return The roll's chance, 0 to 1.
+     */
+    public static double rollChance(int totalPoints, int roll)
+    {
+        int rollPoints = Math.min(Math.max(totalPoints - roll * MAX_POINTS_PER_ROLL, 0), MAX_POINTS_PER_ROLL);
+        return rollPoints / (POINTS_PER_PERCENT * 100.0);
+    }
+
+    /**
+     * Looks up the team's chance of at least one unique.
+     *
+     * @param totalPoints The team's total points.
+     * @return The chance, 0 to 1.
+     */
+    public static double teamUniqueChance(int totalPoints)
+    {
+        return TEAM_UNIQUE_CHANCE[Math.min(Math.max(totalPoints, 0) / POINTS_STEP, TABLE_SIZE - 1)];
+    }
+
+    /**
+     * Recomputes the chances if the points or party size changed.
+     *
+     * @param totalPoints The team's total points.
+     * @param partySize   The party size.
+     * @return The chances; the previous instance if nothing changed.
+     */
+    public DropChances update(int totalPoints, int partySize)
+    {
+        partySize = Math.max(partySize, 1);
+        if (totalPoints == current.getTotalPoints() && partySize == current.getPartySize())
+        {
+            return current;
+        }
+
+        int bucket = Math.min(Math.max(totalPoints, 0) / POINTS_STEP, TABLE_SIZE - 1);
+        double share = partySize <= MAX_PARTY_SIZE ? PARTY_SHARE[partySize] : 1.0 / partySize;
+        double expected = EXPECTED_UNIQUES[bucket];
+
+        current = new DropChances(totalPoints, partySize, TEAM_UNIQUE_CHANCE[bucket], expected,
+                expected * share, DUST_RATE * share, KIT_RATE * share);
+        return current;
+    }
+
+    /**
+     * @return The last computed chances.
+     */
+    public DropChances getCurrent()
+    {
+        return current;
+    }
+
+    /**
+     * Forgets the last computed chances, e.g. when leaving the chambers.
+     */
+    public void reset()
+    {
+        current = DropChances.NONE;
+    }
+}
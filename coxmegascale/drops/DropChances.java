@@ -0,0 +1,68 @@
+package net.runelite.client.plugins.coxmegascale.drops;
+
+import lombok.Getter;
+
+/**
+ * Immutable drop chances for one (total points, party size) pair, with the overlay texts
+ * formatted once when the chances are computed.
+ */
+@Getter
+public final class DropChances
+{
+    /**
+     * Chances before any points have been earned.
+     */
+    public static final DropChances NONE = new DropChances(0, 1, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+    private final int totalPoints;
+    private final int partySize;
+
+    /**
+     * Probability that the team receives at least one unique, 0 to 1.
+     */
+    private final double teamUniqueChance;
+
+    /**
+     * Expected number of uniques for the whole team.
+     */
+    private final double expectedUniques;
+
+    /**
+     * Expected number of uniques for one player with an even share of the points.
+     */
+    private final double personalExpectedUniques;
+
+    /**
+     * Probability that one player with an even share receives metamorphic dust (challenge mode).
+     */
+    private final double dustChance;
+
+    /**
+     * Probability that one player with an even share receives a twisted ancestral kit (challenge mode).
+     */
+    private final double kitChance;
+
+    private final String teamUniqueText;
+    private final String expectedUniquesText;
+    private final String personalExpectedUniquesText;
+    private final String dustText;
+    private final String kitText;
+
+    public DropChances(int totalPoints, int partySize, double teamUniqueChance, double expectedUniques,
+                       double personalExpectedUniques, double dustChance, double kitChance)
+    {
+        this.totalPoints = totalPoints;
+        this.partySize = partySize;
+        this.teamUniqueChance = teamUniqueChance;
+        this.expectedUniques = expectedUniques;
+        this.personalExpectedUniques = personalExpectedUniques;
+        this.dustChance = dustChance;
+        this.kitChance = kitChance;
+
+        this.teamUniqueText = String.format("%.2f%%", teamUniqueChance * 100.0);
+        this.expectedUniquesText = String.format("%.2f", expectedUniques);
+        this.personalExpectedUniquesText = String.format("%.3f", personalExpectedUniques);
+        this.dustText = String.format("%.3f%%", dustChance * 100.0);
+        this.kitText = String.format("%.3f%%", kitChance * 100.0);
+    }
+}
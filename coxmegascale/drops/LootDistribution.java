@@ -0,0 +1,111 @@
+package net.runelite.client.plugins.coxmegascale.drops;
+
+import lombok.Getter;
+
+/**
+ * How uniques split across a party: how many uniques the team receives and how often the first
+ * player receives at least one. Either exact, see {@link #exact(int[])}, or estimated from the
+ * trials of a {@link LootSimulator} run.
+ */
+public final class LootDistribution
+{
+    @Getter
+    private final int partySize;
+
+    @Getter
+    private final int totalPoints;
+
+    /**
+     * The number of simulated trials; 0 for an exact distribution.
+     */
+    @Getter
+    private final int trials;
+
+    @Getter
+    private final String anyUniqueText;
+
+    @Getter
+    private final String multipleUniquesText;
+
+    @Getter
+    private final String firstPlayerText;
+
+    LootDistribution(int totalPoints, int trials, long[] teamCounts, long[] playerAtLeastOneCounts)
+    {
+        this(totalPoints, trials, fractions(teamCounts, trials), fractions(playerAtLeastOneCounts, trials));
+    }
+
+    private LootDistribution(int totalPoints, int trials, double[] teamProbabilities, double[] playerAtLeastOne)
+    {
+        this.partySize = playerAtLeastOne.length;
+        this.totalPoints = totalPoints;
+        this.trials = trials;
+
+        double multiple = 0.0;
+        for (int i = 2; i < teamProbabilities.length; i++)
+        {
+            multiple += teamProbabilities[i];
+        }
+
+        this.anyUniqueText = String.format("%.2f%%", (1.0 - teamProbabilities[0]) * 100.0);
+        this.multipleUniquesText = String.format("%.2f%%", multiple * 100.0);
+        this.firstPlayerText = partySize > 0 ? String.format("%.2f%%", playerAtLeastOne[0] * 100.0) : "-";
+    }
+
+    /**
+     * Computes the distribution exactly. Every unique roll of {@link DropChanceEngine} is independent
+     * and gives its unique to a player picked by points weight, so the team's count follows from the
+     * roll chances and each player's chance from its share of the points, without simulating.
+     *
+     * @param points The points of every player.
+     * @return The exact distribution.
+     */
+    public static LootDistribution exact(int[] points)
+    {
+        long total = 0;
+        for (int playerPoints : points)
+        {
+            total += Math.max(playerPoints, 0);
+        }
+        int totalPoints = (int) Math.min(total, Integer.MAX_VALUE);
+
+        // Probability of each number of uniques, one roll at a time
+        double[] teamProbabilities = new double[DropChanceEngine.MAX_UNIQUE_ROLLS + 1];
+        teamProbabilities[0] = 1.0;
+        double[] rollChances = new double[DropChanceEngine.MAX_UNIQUE_ROLLS];
+        for (int roll = 0; roll < rollChances.length; roll++)
+        {
+            rollChances[roll] = total > 0 ? DropChanceEngine.rollChance(totalPoints, roll) : 0.0;
+            for (int uniques = roll + 1; uniques > 0; uniques--)
+            {
+                teamProbabilities[uniques] = teamProbabilities[uniques] * (1.0 - rollChances[roll])
+                        + teamProbabilities[uniques - 1] * rollChances[roll];
+            }
+            teamProbabilities[0] *= 1.0 - rollChances[roll];
+        }
+
+        double[] playerAtLeastOne = new double[points.length];
+        for (int i = 0; i < points.length && total > 0; i++)
+        {
+            double share = Math.max(points[i], 0) / (double) total;
+            double none = 1.0;
+            for (double chance : rollChances)
+            {
+                none *= 1.0 - chance * share;
+            }
+            playerAtLeastOne[i] = 1.0 - none;
+        }
+        return new LootDistribution(totalPoints, 0, teamProbabilities, playerAtLeastOne);
+    }
+
+    private static double[] fractions(long[] counts, int trials)
+    {
+        double scale = trials > 0 ? 1.0 / trials : 0.0;
+        double[] fractions = new double[counts.length];
+        for (int i = 0; i < counts.length; i++)
+        {
+            fractions[i] = counts[i] * scale;
+        }
+        return fractions;
+    }
+}
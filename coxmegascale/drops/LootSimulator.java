@@ -0,0 +1,402 @@
+package net.runelite.client.plugins.coxmegascale.drops;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Monte Carlo simulation of how uniques split across a party.
+ * <p>
+ * The simulated model has an exact solution, {@link LootDistribution#exact(int[])}, which the plugin
+ * uses by default; the simulation is kept to cross-check it, and for models without one.
+ * <p>
+ * Each trial rolls every unique roll of {@link DropChanceEngine} and gives each unique to a player
+ * picked by points weight. Trials run on a dedicated fork-join pool, each batch with its own
+ * {@link SplittableRandom} and primitive tallies, so a trial allocates nothing. Results are cached
+ * by points vector (quantized to {@value #POINTS_QUANTUM} points), so callers never wait on a run:
+ * {@link #request(int[], int)} returns at once and {@link #getLatest()} gives the last finished result.
+ */
+@Slf4j
+public class LootSimulator
+{
+    // Per-player points are rounded to this many points so small point changes reuse a cached result
+    static final int POINTS_QUANTUM = 1000;
+
+    private static final int CACHE_SIZE = 32;
+
+    // Trials below which a batch is run on the current worker instead of being split
+    private static final int MIN_BATCH_TRIALS = 50_000;
+
+    private final ForkJoinPool pool;
+
+    // Access ordered, so the eldest entry is the least recently used one
+    private final Map<SimulationKey, LootDistribution> cache = new LinkedHashMap<SimulationKey, LootDistribution>(CACHE_SIZE, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SimulationKey, LootDistribution> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Guarded by this; at most one run is in flight and only the newest waiting request is kept
+    private SimulationKey running;
+    private SimulationKey pending;
+
+    // Guarded by this; bumped by every request and clear, a run only becomes the latest result
+    // if no other request or clear came after the one it serves
+    private long generation;
+    private long runningGeneration;
+
+    private volatile LootDistribution latest;
+
+    public LootSimulator()
+    {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public LootSimulator(int parallelism)
+    {
+        this.pool = new ForkJoinPool(parallelism, pool ->
+        {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cox-mega-scale-loot-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Splits the total points evenly across the party, as the individual shares are not known.
+     *
+     * @param totalPoints The team's total points.
+     * @param partySize   The party size.
+     * @return The points of every player.
+     */
+    public static int[] evenSplit(int totalPoints, int partySize)
+    {
+        int[] points = new int[Math.max(partySize, 1)];
+        int share = totalPoints / points.length;
+        int remainder = totalPoints % points.length;
+        for (int i = 0; i < points.length; i++)
+        {
+            points[i] = share + (i < remainder ? 1 : 0);
+        }
+        return points;
+    }
+
+    /**
+     * Requests a simulation for a points vector. A cached result becomes the latest result at once;
+     * otherwise a run is started, or queued behind the run in flight.
+     *
+     * @param points The points of every player.
+     * @param trials The number of trials to simulate.
+     */
+    public synchronized void request(int[] points, int trials)
+    {
+        generation++;
+        SimulationKey key = new SimulationKey(quantize(points), trials);
+        LootDistribution cached = cache.get(key);
+        if (cached != null)
+        {
+            latest = cached;
+            pending = null;
+            return;
+        }
+
+        if (running == null)
+        {
+            start(key);
+        }
+        else if (key.equals(running))
+        {
+            // The run in flight serves this request
+            pending = null;
+            runningGeneration = generation;
+        }
+        else
+        {
+            pending = key;
+        }
+    }
+
+    /**
+     * @return The last finished result, or null if none finished since the last {@link #clear()}.
+     */
+    public LootDistribution getLatest()
+    {
+        return latest;
+    }
+
+    /**
+     * Drops the cached results, the latest result and any waiting request. The run in flight still
+     * finishes, but its result does not become the latest one.
+     */
+    public synchronized void clear()
+    {
+        generation++;
+        cache.clear();
+        pending = null;
+        latest = null;
+    }
+
+    /**
+     * Stops the pool. Runs in flight are abandoned.
+     */
+    public synchronized void shutdown()
+    {
+        pending = null;
+        pool.shutdownNow();
+    }
+
+    private void start(SimulationKey key)
+    {
+        running = key;
+        runningGeneration = generation;
+        try
+        {
+            CompletableFuture.supplyAsync(() -> simulate(pool, key.points, key.trials), pool)
+                    .whenComplete((result, ex) -> onComplete(key, result, ex));
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The pool was shut down
+            running = null;
+        }
+    }
+
+    private synchronized void onComplete(SimulationKey key, LootDistribution result, Throwable ex)
+    {
+        running = null;
+        if (ex != null)
+        {
+            log.warn("Loot simulation failed: ", ex);
+        }
+        else
+        {
+            cache.put(key, result);
+            if (runningGeneration == generation)
+            {
+                latest = result;
+            }
+            log.debug("Loot simulation of {} trials for {} players finished", key.trials, key.points.length);
+        }
+
+        SimulationKey next = pending;
+        pending = null;
+        if (next != null && !pool.isShutdown())
+        {
+            LootDistribution cached = cache.get(next);
+            if (cached != null)
+            {
+                latest = cached;
+            }
+            else
+            {
+                start(next);
+            }
+        }
+    }
+
+    private static int[] quantize(int[] points)
+    {
+        int[] quantized = new int[points.length];
+        for (int i = 0; i < points.length; i++)
+        {
+            quantized[i] = (Math.max(points[i], 0) + POINTS_QUANTUM / 2) / POINTS_QUANTUM * POINTS_QUANTUM;
+        }
+        return quantized;
+    }
+
+    /**
+     * Runs a simulation on a pool and waits for it.
+     *
+     * @param pool   The pool the trial batches run on.
+     * @param points The points of every player.
+     * @param trials The number of trials.
+     * @return The simulated distribution.
+     */
+    static LootDistribution simulate(ForkJoinPool pool, int[] points, int trials)
+    {
+        // Cumulative points, searched to pick the player that receives a unique
+        long[] cumulative = new long[points.length];
+        long total = 0;
+        for (int i = 0; i < points.length; i++)
+        {
+            total += points[i];
+            cumulative[i] = total;
+        }
+
+        int totalPoints = (int) Math.min(total, Integer.MAX_VALUE);
+        if (total <= 0 || trials <= 0)
+        {
+            return new LootDistribution(totalPoints, trials, new long[DropChanceEngine.MAX_UNIQUE_ROLLS + 1],
+                    new long[points.length]);
+        }
+
+        double[] rollChances = new double[DropChanceEngine.MAX_UNIQUE_ROLLS];
+        for (int roll = 0; roll < rollChances.length; roll++)
+        {
+            rollChances[roll] = DropChanceEngine.rollChance(totalPoints, roll);
+        }
+
+        Tally tally = pool.invoke(new TrialBatch(cumulative, rollChances, trials, new SplittableRandom()));
+        return new LootDistribution(totalPoints, trials, tally.teamCounts, tally.playerAtLeastOne);
+    }
+
+    private static final class SimulationKey
+    {
+        private final int[] points;
+        private final int trials;
+        private final int hash;
+
+        private SimulationKey(int[] points, int trials)
+        {
+            this.points = points;
+            this.trials = trials;
+            this.hash = 31 * Arrays.hashCode(points) + trials;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof SimulationKey))
+            {
+                return false;
+            }
+            SimulationKey other = (SimulationKey) o;
+            return trials == other.trials && Arrays.equals(points, other.points);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    /**
+     * Primitive counters of one batch of trials.
+     */
+    private static final class Tally
+    {
+        private final long[] teamCounts = new long[DropChanceEngine.MAX_UNIQUE_ROLLS + 1];
+        private final long[] playerAtLeastOne;
+
+        private Tally(int partySize)
+        {
+            playerAtLeastOne = new long[partySize];
+        }
+
+        private void add(Tally other)
+        {
+            for (int i = 0; i < teamCounts.length; i++)
+            {
+                teamCounts[i] += other.teamCounts[i];
+            }
+            for (int i = 0; i < playerAtLeastOne.length; i++)
+            {
+                playerAtLeastOne[i] += other.playerAtLeastOne[i];
+            }
+        }
+    }
+
+    /**
+     * Runs a range of trials, splitting it in halves until it is small enough for one worker. Never
+     * serialized, although RecursiveTask is Serializable.
+     */
+    @SuppressWarnings("serial")
+    private static final class TrialBatch extends RecursiveTask<Tally>
+    {
+        private final long[] cumulative;
+        private final double[] rollChances;
+        private final int trials;
+        private final SplittableRandom random;
+
+        private TrialBatch(long[] cumulative, double[] rollChances, int trials, SplittableRandom random)
+        {
+            this.cumulative = cumulative;
+            this.rollChances = rollChances;
+            this.trials = trials;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute()
+        {
+            if (trials > MIN_BATCH_TRIALS)
+            {
+                int half = trials / 2;
+                TrialBatch left = new TrialBatch(cumulative, rollChances, half, random.split());
+                left.fork();
+                Tally tally = new TrialBatch(cumulative, rollChances, trials - half, random).compute();
+                tally.add(left.join());
+                return tally;
+            }
+
+            Tally tally = new Tally(cumulative.length);
+            long total = cumulative[cumulative.length - 1];
+            for (int trial = 0; trial < trials; trial++)
+            {
+                int received = 0;
+                int first = -1;
+                int second = -1;
+                for (int roll = 0; roll < rollChances.length; roll++)
+                {
+                    if (random.nextDouble() >= rollChances[roll])
+                    {
+                        continue;
+                    }
+
+                    int player = pick(random.nextLong(total));
+                    // At most three uniques, so the first two recipients are enough to count each player once
+                    if (player != first && player != second)
+                    {
+                        tally.playerAtLeastOne[player]++;
+                        if (first < 0)
+                        {
+                            first = player;
+                        }
+                        else
+                        {
+                            second = player;
+                        }
+                    }
+                    received++;
+                }
+                tally.teamCounts[received]++;
+            }
+            return tally;
+        }
+
+        // Binary search for the first player whose cumulative points exceed the drawn value
+        private int pick(long value)
+        {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] > value)
+                {
+                    high = mid;
+                }
+                else
+                {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
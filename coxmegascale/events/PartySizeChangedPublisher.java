@@ -0,0 +1,98 @@
+package net.runelite.client.plugins.coxmegascale.events;
+
+import javax.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.eventbus.EventBus;
+
+/**
+ * Posts {@link PartySizeChanged} at most once per tick.
+ * <p>
+ * Party size updates are recorded with {@link #offer(int)} and the latest one is posted at the end
+ * of the tick, only if it differs from the last posted size. Updates that never reach the EventBus
+ * are counted as suppressed. Must be used from the client thread.
+ */
+@Slf4j
+public class PartySizeChangedPublisher
+{
+    private final EventBus eventBus;
+    private final ClientThread clientThread;
+
+    // -1 until the first post, so the first party size is always posted
+    private int lastPosted = -1;
+    private int latest;
+    private int offeredSinceFlush;
+    private boolean flushScheduled;
+
+    @Getter
+    private int posted;
+
+    @Getter
+    private int suppressed;
+
+    @Inject
+    public PartySizeChangedPublisher(EventBus eventBus, ClientThread clientThread)
+    {
+        this.eventBus = eventBus;
+        this.clientThread = clientThread;
+    }
+
+    /**
+     * Records a party size to post at the end of the tick.
+     *
+     * @param partySize The new party size.
+     */
+    public void offer(int partySize)
+    {
+        latest = partySize;
+        offeredSinceFlush++;
+
+        if (!flushScheduled)
+        {
+            flushScheduled = true;
+            clientThread.invokeAtTickEnd(this::onTickEnd);
+        }
+    }
+
+    /**
+     * Posts the latest party size now if it changed, e.g. when leaving the chambers. A flush already
+     * scheduled for the end of the tick then finds nothing to post.
+     */
+    public void flush()
+    {
+        if (offeredSinceFlush == 0)
+        {
+            return;
+        }
+
+        boolean changed = latest != lastPosted;
+        suppressed += changed ? offeredSinceFlush - 1 : offeredSinceFlush;
+        offeredSinceFlush = 0;
+
+        if (changed)
+        {
+            lastPosted = latest;
+            posted++;
+            eventBus.post(new PartySizeChanged(latest));
+        }
+    }
+
+    /**
+     * Forgets the last posted size and drops any update not yet posted.
+     */
+    public void reset()
+    {
+        log.debug("PartySizeChanged: {} posted, {} suppressed", posted, suppressed);
+        lastPosted = -1;
+        offeredSinceFlush = 0;
+        posted = 0;
+        suppressed = 0;
+    }
+
+    private void onTickEnd()
+    {
+        flushScheduled = false;
+        flush();
+    }
+}
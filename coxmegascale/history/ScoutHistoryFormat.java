@@ -0,0 +1,91 @@
+package net.runelite.client.plugins.coxmegascale.history;
+
+/**
+ * Layout of scouting history files.
+ * <p>
+ * A file is a {@value #HEADER_SIZE}-byte header followed by fixed-width records of
+ * {@value #RECORD_SIZE} bytes, all big-endian. The header holds:
+ * <ul>
+ * <li>int {@link #MAGIC}</li>
+ * <li>short {@link #VERSION}</li>
+ * <li>short {@link #RECORD_SIZE}</li>
+ * <li>long number of complete records, at {@link #COUNT_OFFSET}</li>
+ * </ul>
+ * A record holds:
+ * <ul>
+ * <li>long timestamp, in milliseconds since the epoch</li>
+ * <li>long packed layout, the rooms in layout order, see
+ * {@link net.runelite.client.plugins.coxmegascale.scouting.LayoutKey}</li>
+ * <li>int party size</li>
+ * <li>byte verdict flags, see {@link #DESIRABLE}</li>
+ * <li>byte number of counted rooms</li>
+ * <li>2 reserved bytes</li>
+ * </ul>
+ * The count is only raised once the records it covers are written, so records past it are ignored.
+ */
+public final class ScoutHistoryFormat
+{
+    public static final int MAGIC = 0x43584848; // "CXHH"
+    public static final short VERSION = 1;
+
+    public static final int HEADER_SIZE = 32;
+    public static final int COUNT_OFFSET = 8;
+    public static final int RECORD_SIZE = 24;
+
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int LAYOUT_KEY_OFFSET = 8;
+    static final int PARTY_SIZE_OFFSET = 16;
+    static final int VERDICT_OFFSET = 20;
+    static final int ROOM_COUNT_OFFSET = 21;
+
+    /**
+     * Verdict flag of layouts that satisfied the scouting criteria.
+     */
+    public static final int DESIRABLE = 1;
+
+    static final String FILE_PREFIX = "scouts-";
+    static final String FILE_SUFFIX = ".bin";
+
+    private ScoutHistoryFormat()
+    {
+    }
+
+    /**
+     * @param fileBytes The size of a history file.
+     * @return The number of records it holds.
+     */
+    static long capacity(long fileBytes)
+    {
+        return (fileBytes - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    /**
+     * @param index The rotation index.
+     * @return The name of the history file with that index, e.g. {@code scouts-00001.bin}.
+     */
+    static String fileName(int index)
+    {
+        return String.format("%s%05d%s", FILE_PREFIX, index, FILE_SUFFIX);
+    }
+
+    /**
+     * @param name A file name.
+     * @return The rotation index of a history file name, or -1 if the name is not one.
+     */
+    static int fileIndex(String name)
+    {
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX))
+        {
+            return -1;
+        }
+
+        try
+        {
+            return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package net.runelite.client.plugins.coxmegascale.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the records of the scouting history files written by {@link ScoutHistoryWriter}, oldest
+ * first. Files that are not history files of this version are skipped.
+ */
+@Slf4j
+public final class ScoutHistoryReader
+{
+    /**
+     * Receives the records one by one, as primitives.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer
+    {
+        void accept(long timestamp, long layoutKey, int partySize, int verdict, int roomCount);
+    }
+
+    private ScoutHistoryReader()
+    {
+    }
+
+    /**
+     * Reads the complete records of every history file in a directory.
+     *
+     * @param directory    The history directory.
+     * @param beforeMillis Only records with an earlier timestamp are read.
+     * @param consumer     Receives the records.
+     * @return The number of records read.
+     * @throws IOException If a history file cannot be read.
+     */
+    public static long read(File directory, long beforeMillis, RecordConsumer consumer) throws IOException
+    {
+        String[] names = directory.list();
+        if (names == null)
+        {
+            return 0;
+        }
+
+        int[] indices = Arrays.stream(names)
+                .mapToInt(ScoutHistoryFormat::fileIndex)
+                .filter(index -> index > 0)
+                .sorted()
+                .toArray();
+
+        long read = 0;
+        for (int index : indices)
+        {
+            read += readFile(new File(directory, ScoutHistoryFormat.fileName(index)), beforeMillis, consumer);
+        }
+        return read;
+    }
+
+    private static long readFile(File file, long beforeMillis, RecordConsumer consumer) throws IOException
+    {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            if (raf.length() < ScoutHistoryFormat.HEADER_SIZE)
+            {
+                return 0;
+            }
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+
+        if (buffer.getInt(0) != ScoutHistoryFormat.MAGIC
+                || buffer.getShort(4) != ScoutHistoryFormat.VERSION
+                || buffer.getShort(6) != ScoutHistoryFormat.RECORD_SIZE)
+        {
+            log.debug("Skipping {}, not a scouting history file", file);
+            return 0;
+        }
+
+        // The count is raised after the records are written; anything past it is incomplete
+        long count = Math.min(buffer.getLong(ScoutHistoryFormat.COUNT_OFFSET), ScoutHistoryFormat.capacity(buffer.capacity()));
+        long read = 0;
+        for (long i = 0; i < count; i++)
+        {
+            int offset = (int) (ScoutHistoryFormat.HEADER_SIZE + i * ScoutHistoryFormat.RECORD_SIZE);
+            long timestamp = buffer.getLong(offset + ScoutHistoryFormat.TIMESTAMP_OFFSET);
+            if (timestamp >= beforeMillis)
+            {
+                continue;
+            }
+
+            consumer.accept(timestamp,
+                    buffer.getLong(offset + ScoutHistoryFormat.LAYOUT_KEY_OFFSET),
+                    buffer.getInt(offset + ScoutHistoryFormat.PARTY_SIZE_OFFSET),
+                    buffer.get(offset + ScoutHistoryFormat.VERDICT_OFFSET),
+                    buffer.get(offset + ScoutHistoryFormat.ROOM_COUNT_OFFSET));
+            read++;
+        }
+        return read;
+    }
+}
@@ -0,0 +1,338 @@
+package net.runelite.client.plugins.coxmegascale.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends scouted layouts to memory-mapped history files. See {@link ScoutHistoryFormat} for the
+ * layout.
+ * <p>
+ * {@link #append} only copies the record into a ring of primitive arrays and never blocks or
+ * allocates. A task on the executor drains the ring in batches into the mapped file, then raises the
+ * record count in the header, so a crash loses at most the records not yet drained. When a file is
+ * full the writer moves on to a new file with the next index and deletes the oldest files beyond
+ * {@code maxFiles}. {@link #append} and {@link #close()} must be called from a single thread, the
+ * client thread, so that no record is appended after the final drain has read the ring.
+ */
+@Slf4j
+public class ScoutHistoryWriter
+{
+    // Power of two so that ring positions can be masked
+    static final int RING_SIZE = 4096;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final File directory;
+    private final long fileBytes;
+    private final int maxFiles;
+    private final ScheduledExecutorService executor;
+
+    // Records waiting to be written, filled by the client thread and drained by the executor
+    private final long[] timestamps = new long[RING_SIZE];
+    private final long[] layoutKeys = new long[RING_SIZE];
+    private final int[] partySizes = new int[RING_SIZE];
+    private final byte[] verdicts = new byte[RING_SIZE];
+    private final byte[] roomCounts = new byte[RING_SIZE];
+
+    // Ring positions; only the client thread writes published, only the executor writes drained
+    private volatile long published;
+    private volatile long drained;
+
+    // Dropped records, counted apart by each thread
+    private volatile long appendDropped;
+    private volatile long writeDropped;
+
+    // Owned by the client thread
+    private ScheduledFuture<?> flushTask;
+    private boolean closed;
+
+    // Owned by the executor
+    private MappedByteBuffer buffer;
+    private int fileIndex;
+    private long count;
+    private long capacity;
+    private boolean failed;
+
+    /**
+     * @param directory The directory of the history files, created if missing.
+     * @param fileBytes The size of each history file.
+     * @param maxFiles  The number of history files kept.
+     * @param executor  The executor the records are written on.
+     */
+    public ScoutHistoryWriter(File directory, long fileBytes, int maxFiles, ScheduledExecutorService executor)
+    {
+        if (ScoutHistoryFormat.capacity(fileBytes) < 1 || fileBytes > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Invalid history file size " + fileBytes);
+        }
+
+        this.directory = directory;
+        this.fileBytes = fileBytes;
+        this.maxFiles = Math.max(maxFiles, 1);
+        this.executor = executor;
+    }
+
+    /**
+     * Starts draining the ring periodically.
+     */
+    public void start()
+    {
+        flushTask = executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues one scouted layout. Does not block or allocate.
+     *
+     * @param timestamp The scouting time, in milliseconds since the epoch.
+     * @param layoutKey The packed layout.
+     * @param partySize The party size.
+     * @param desirable Whether the layout satisfied the scouting criteria.
+     * @param roomCount The number of counted rooms.
+     * @return False if the record was dropped.
+     */
+    public boolean append(long timestamp, long layoutKey, int partySize, boolean desirable, int roomCount)
+    {
+        long position = published;
+        if (closed || position - drained >= RING_SIZE)
+        {
+            appendDropped++;
+            return false;
+        }
+
+        int slot = (int) position & RING_MASK;
+        timestamps[slot] = timestamp;
+        layoutKeys[slot] = layoutKey;
+        partySizes[slot] = partySize;
+        verdicts[slot] = (byte) (desirable ? ScoutHistoryFormat.DESIRABLE : 0);
+        roomCounts[slot] = (byte) roomCount;
+
+        // The volatile write publishes the slot to the executor
+        published = position + 1;
+        return true;
+    }
+
+    /**
+     * @return The number of records dropped because the ring was full, the writer was closed or the
+     * file could not be written.
+     */
+    public long getDropped()
+    {
+        return appendDropped + writeDropped;
+    }
+
+    /**
+     * Stops the periodic drain and writes the remaining records on the executor. Later records are
+     * dropped.
+     */
+    public void close()
+    {
+        closed = true;
+        if (flushTask != null)
+        {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+
+        executor.execute(() ->
+        {
+            flush();
+            release();
+        });
+    }
+
+    /**
+     * Drains the ring into the history file. Runs on the executor.
+     */
+    synchronized void flush()
+    {
+        long end = published;
+        long position = drained;
+        if (position == end)
+        {
+            return;
+        }
+
+        try
+        {
+            while (position < end)
+            {
+                if (failed)
+                {
+                    // Nothing can be written; drop the batch rather than filling the ring
+                    writeDropped += end - position;
+                    position = end;
+                    break;
+                }
+
+                if (buffer == null || count == capacity)
+                {
+                    openNext();
+                    continue;
+                }
+
+                int slot = (int) position & RING_MASK;
+                int offset = (int) (ScoutHistoryFormat.HEADER_SIZE + count * ScoutHistoryFormat.RECORD_SIZE);
+                buffer.putLong(offset + ScoutHistoryFormat.TIMESTAMP_OFFSET, timestamps[slot]);
+                buffer.putLong(offset + ScoutHistoryFormat.LAYOUT_KEY_OFFSET, layoutKeys[slot]);
+                buffer.putInt(offset + ScoutHistoryFormat.PARTY_SIZE_OFFSET, partySizes[slot]);
+                buffer.put(offset + ScoutHistoryFormat.VERDICT_OFFSET, verdicts[slot]);
+                buffer.put(offset + ScoutHistoryFormat.ROOM_COUNT_OFFSET, roomCounts[slot]);
+                count++;
+                position++;
+
+                // Publish the batch before moving on to the next file
+                if (count == capacity)
+                {
+                    buffer.putLong(ScoutHistoryFormat.COUNT_OFFSET, count);
+                }
+            }
+
+            if (buffer != null)
+            {
+                buffer.putLong(ScoutHistoryFormat.COUNT_OFFSET, count);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.warn("Unable to write the scouting history, further scouts are dropped: ", e);
+            failed = true;
+            writeDropped += end - position;
+            position = end;
+            buffer = null;
+        }
+
+        drained = position;
+    }
+
+    // Maps the next history file, continuing the newest existing file if it has room
+    private void openNext() throws IOException
+    {
+        if (buffer != null)
+        {
+            buffer.force();
+            buffer = null;
+            fileIndex++;
+        }
+        else
+        {
+            if (!directory.isDirectory() && !directory.mkdirs())
+            {
+                throw new IOException("Unable to create " + directory);
+            }
+            fileIndex = Math.max(newestIndex(), 1);
+        }
+
+        while (true)
+        {
+            File file = new File(directory, ScoutHistoryFormat.fileName(fileIndex));
+            boolean exists = file.exists();
+            if (exists && file.length() != fileBytes)
+            {
+                // Written with another file size; leave it for the readers
+                fileIndex++;
+                continue;
+            }
+
+            MappedByteBuffer mapped;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+            {
+                // The mapping outlives the channel
+                mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            }
+
+            long existing = exists ? validCount(mapped) : 0;
+            if (existing < 0 || existing >= ScoutHistoryFormat.capacity(fileBytes))
+            {
+                fileIndex++;
+                continue;
+            }
+
+            if (!exists)
+            {
+                mapped.putInt(0, ScoutHistoryFormat.MAGIC);
+                mapped.putShort(4, ScoutHistoryFormat.VERSION);
+                mapped.putShort(6, (short) ScoutHistoryFormat.RECORD_SIZE);
+                mapped.putLong(ScoutHistoryFormat.COUNT_OFFSET, 0);
+            }
+
+            buffer = mapped;
+            count = existing;
+            capacity = ScoutHistoryFormat.capacity(fileBytes);
+            log.debug("Appending scouting history to {} at record {}", file, count);
+            deleteOldFiles();
+            return;
+        }
+    }
+
+    // The record count of a mapped file, or -1 if it is not a history file of this version
+    private long validCount(MappedByteBuffer mapped)
+    {
+        if (mapped.getInt(0) != ScoutHistoryFormat.MAGIC
+                || mapped.getShort(4) != ScoutHistoryFormat.VERSION
+                || mapped.getShort(6) != ScoutHistoryFormat.RECORD_SIZE)
+        {
+            return -1;
+        }
+
+        long existing = mapped.getLong(ScoutHistoryFormat.COUNT_OFFSET);
+        return existing >= 0 && existing <= ScoutHistoryFormat.capacity(fileBytes) ? existing : -1;
+    }
+
+    private int newestIndex()
+    {
+        int newest = 0;
+        for (int index : indices())
+        {
+            newest = Math.max(newest, index);
+        }
+        return newest;
+    }
+
+    private void deleteOldFiles()
+    {
+        int[] indices = indices();
+        Arrays.sort(indices);
+        for (int i = 0; i < indices.length - maxFiles; i++)
+        {
+            File file = new File(directory, ScoutHistoryFormat.fileName(indices[i]));
+            if (!file.delete())
+            {
+                // Still mapped on some platforms; retried on the next rotation
+                log.debug("Unable to delete old scouting history {}", file);
+            }
+        }
+    }
+
+    private int[] indices()
+    {
+        String[] names = directory.list();
+        if (names == null)
+        {
+            return new int[0];
+        }
+
+        return Arrays.stream(names)
+                .mapToInt(ScoutHistoryFormat::fileIndex)
+                .filter(index -> index > 0)
+                .toArray();
+    }
+
+    private synchronized void release()
+    {
+        if (buffer != null)
+        {
+            buffer.force();
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.runelite.client.plugins.coxmegascale.menu;
+
+import java.util.Arrays;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.client.plugins.coxmegascale.util.Utils;
+
+/**
+ * Classifies menu entries on the Chambers of Xeric steps without allocating.
+ * <p>
+ * An entry is first looked up in a small identity cache, which is only trusted while the entry
+ * still holds the same option and target strings. Game object options are then matched on their
+ * action type and object identifier once the steps have been seen, since both decide the option and
+ * the object name. Anything else falls back to a tag-free, case-insensitive scan that gives the same
+ * answer as {@code Text.removeTags(...).toLowerCase()} on the option and target.
+ */
+public class StepsMenuClassifier {
+    public enum StepsOption {
+        NONE,
+        RELOAD,
+        CLIMB,
+        WALK_HERE
+    }
+
+    private static final int CACHE_SIZE = 64;
+    private static final int MAX_LEARNED = 8;
+
+    private final MenuEntry[] cachedEntries = new MenuEntry[CACHE_SIZE];
+    private final String[] cachedOptions = new String[CACHE_SIZE];
+    private final String[] cachedTargets = new String[CACHE_SIZE];
+    private final StepsOption[] cachedResults = new StepsOption[CACHE_SIZE];
+
+    // (action type, object identifier) pairs seen on the steps, packed into a long
+    private final long[] learnedActions = new long[MAX_LEARNED];
+    private final StepsOption[] learnedResults = new StepsOption[MAX_LEARNED];
+    private int learnedCount;
+
+    /**
+     * Classifies a menu entry.
+     *
+     * @param entry The menu entry.
+     * @return The steps option, or {@link StepsOption#NONE} if the entry is not on the steps.
+     */
+    public StepsOption classify(MenuEntry entry) {
+        String option = entry.getOption();
+        String target = entry.getTarget();
+
+        int slot = System.identityHashCode(entry) & (CACHE_SIZE - 1);
+        if (cachedEntries[slot] == entry && cachedOptions[slot] == option && cachedTargets[slot] == target) {
+            return cachedResults[slot];
+        }
+
+        MenuAction type = entry.getType();
+        boolean objectAction = isObjectAction(type);
+        StepsOption result = objectAction ? lookupLearned(type, entry.getIdentifier()) : null;
+        if (result == null) {
+            result = scan(option, target);
+            if (objectAction && (result == StepsOption.RELOAD || result == StepsOption.CLIMB)) {
+                learn(type, entry.getIdentifier(), result);
+            }
+        }
+
+        cachedEntries[slot] = entry;
+        cachedOptions[slot] = option;
+        cachedTargets[slot] = target;
+        cachedResults[slot] = result;
+        return result;
+    }
+
+    /**
+     * Forgets cached entries and learned identifiers, e.g. when leaving the chambers.
+     */
+    public void reset() {
+        Arrays.fill(cachedEntries, null);
+        Arrays.fill(cachedOptions, null);
+        Arrays.fill(cachedTargets, null);
+        Arrays.fill(cachedResults, null);
+        Arrays.fill(learnedResults, null);
+        learnedCount = 0;
+    }
+
+    private static StepsOption scan(String option, String target) {
+        if (option == null || target == null || !Utils.containsIgnoreTags(target, "steps")) {
+            return StepsOption.NONE;
+        }
+
+        if (Utils.equalsIgnoreTags(option, "reload")) {
+            return StepsOption.RELOAD;
+        } else if (Utils.equalsIgnoreTags(option, "climb")) {
+            return StepsOption.CLIMB;
+        } else if (Utils.equalsIgnoreTags(option, "walk here")) {
+            return StepsOption.WALK_HERE;
+        }
+        return StepsOption.NONE;
+    }
+
+    private static boolean isObjectAction(MenuAction type) {
+        if (type == null) {
+            return false;
+        }
+
+        switch (type) {
+            case GAME_OBJECT_FIRST_OPTION:
+            case GAME_OBJECT_SECOND_OPTION:
+            case GAME_OBJECT_THIRD_OPTION:
+            case GAME_OBJECT_FOURTH_OPTION:
+            case GAME_OBJECT_FIFTH_OPTION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private StepsOption lookupLearned(MenuAction type, int identifier) {
+        long action = packAction(type, identifier);
+        for (int i = 0; i < learnedCount; i++) {
+            if (learnedActions[i] == action) {
+                return learnedResults[i];
+            }
+        }
+        return null;
+    }
+
+    private void learn(MenuAction type, int identifier, StepsOption result) {
+        if (learnedCount < MAX_LEARNED) {
+            learnedActions[learnedCount] = packAction(type, identifier);
+            learnedResults[learnedCount] = result;
+            learnedCount++;
+        }
+    }
+
+    private static long packAction(MenuAction type, int identifier) {
+        return (long) type.getId() << 32 | (identifier & 0xFFFFFFFFL);
+    }
+}
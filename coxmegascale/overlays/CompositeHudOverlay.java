@@ -0,0 +1,187 @@
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.RaidStateSnapshot;
+import net.runelite.client.plugins.coxmegascale.drops.DropChances;
+import net.runelite.client.plugins.coxmegascale.drops.LootDistribution;
+import net.runelite.client.plugins.coxmegascale.points.PointsProjection;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
+import net.runelite.client.ui.overlay.components.PanelComponent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Single overlay drawing the points, drop chance and supplies sections into a cached image.
+ * <p>
+ * The sections are only re-rasterized when a value they draw changes: the points, the points lost
+ * and deaths, the points projection, the party size, the scouted layout, the drop chances or the
+ * loot distribution, the supplies section's version, or after {@link #invalidate()}; every other
+ * frame is a single image blit.
+ */
+@Slf4j
+public class CompositeHudOverlay extends Overlay {
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+    private final PointsOverlay pointsOverlay;
+    private final DropChanceOverlay dropChanceOverlay;
+    private final SuppliesCalculationOverlay suppliesCalculationOverlay;
+
+    private final PanelComponent panelComponent = new PanelComponent();
+
+    // Values the cached image was rasterized with
+    private boolean dirty = true;
+    private int renderedPoints;
+    private int renderedLostPoints;
+    private int renderedDeaths;
+    private PointsProjection renderedProjection;
+    private int renderedPartySize;
+    private long renderedLayoutKey;
+    private DropChances renderedDropChances;
+    private LootDistribution renderedDistribution;
+    private int renderedSuppliesVersion;
+
+    private BufferedImage image;
+    private Dimension imageSize;
+
+    @Inject
+    public CompositeHudOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin, PointsOverlay pointsOverlay,
+                               DropChanceOverlay dropChanceOverlay, SuppliesCalculationOverlay suppliesCalculationOverlay) {
+        this.config = config;
+        this.plugin = plugin;
+        this.pointsOverlay = pointsOverlay;
+        this.dropChanceOverlay = dropChanceOverlay;
+        this.suppliesCalculationOverlay = suppliesCalculationOverlay;
+
+        setPosition(OverlayPosition.TOP_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW);
+    }
+
+    /**
+     * Forces the next frame to re-rasterize, e.g. after the enabled sections changed.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        try {
+            // One volatile read gives a consistent set of values
+            RaidStateSnapshot snapshot = plugin.getSnapshot();
+            int points = snapshot.getTotalPoints();
+            int lostPoints = snapshot.getLostPoints();
+            int deaths = snapshot.getDeaths();
+            PointsProjection projection = snapshot.getPointsProjection();
+            int partySize = snapshot.getActualPartySize();
+            long layoutKey = snapshot.getLayoutKey();
+            DropChances dropChances = snapshot.getDropChances();
+            // Loot simulations finish off the client thread, between snapshots
+            LootDistribution distribution = plugin.getLootDistribution();
+            // The supplies section takes its party size from PartySizeChanged, posted at the end of the tick
+            int suppliesVersion = suppliesCalculationOverlay.getVersion();
+
+            // Projections and drop chances are immutable and replaced when they change
+            if (dirty || image == null
+                    || points != renderedPoints
+                    || lostPoints != renderedLostPoints
+                    || deaths != renderedDeaths
+                    || projection != renderedProjection
+                    || partySize != renderedPartySize
+                    || layoutKey != renderedLayoutKey
+                    || dropChances != renderedDropChances
+                    || distribution != renderedDistribution
+                    || suppliesVersion != renderedSuppliesVersion) {
+                renderedPoints = points;
+                renderedLostPoints = lostPoints;
+                renderedDeaths = deaths;
+                renderedProjection = projection;
+                renderedPartySize = partySize;
+                renderedLayoutKey = layoutKey;
+                renderedDropChances = dropChances;
+                renderedDistribution = distribution;
+                renderedSuppliesVersion = suppliesVersion;
+                dirty = false;
+                rasterize(graphics);
+            }
+
+            if (image == null) {
+                return null;
+            }
+
+            graphics.drawImage(image, 0, 0, null);
+            return imageSize;
+        } catch (Exception e) {
+            log.error("Error rendering CompositeHudOverlay: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Lays out the enabled sections and draws them into the cached image.
+     *
+     * @param graphics The overlay graphics, used for the font and rendering hints.
+     */
+    private void rasterize(Graphics2D graphics) {
+        List<LayoutableRenderableEntity> children = panelComponent.getChildren();
+        children.clear();
+
+        if (config.enablePointsOverlay()) {
+            pointsOverlay.appendSection(graphics, children);
+        }
+        if (config.enableDropChanceOverlay()) {
+            dropChanceOverlay.appendSection(graphics, children);
+        }
+        if (config.enableSuppliesCalculationOverlay()) {
+            suppliesCalculationOverlay.appendSection(graphics, children);
+        }
+
+        if (children.isEmpty()) {
+            image = null;
+            return;
+        }
+
+        // Measure the panel on the current image (or a 1x1 one) before sizing the cached image
+        if (image == null) {
+            image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        }
+        Dimension size = draw(graphics);
+        if (size == null || size.width <= 0 || size.height <= 0) {
+            image = null;
+            return;
+        }
+
+        if (image.getWidth() != size.width || image.getHeight() != size.height) {
+            image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+            draw(graphics);
+        }
+        imageSize = new Dimension(size);
+    }
+
+    private Dimension draw(Graphics2D graphics) {
+        Graphics2D imageGraphics = image.createGraphics();
+        try {
+            imageGraphics.setComposite(AlphaComposite.Clear);
+            imageGraphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            imageGraphics.setComposite(AlphaComposite.SrcOver);
+            imageGraphics.setRenderingHints(graphics.getRenderingHints());
+            imageGraphics.setFont(graphics.getFont());
+            return panelComponent.render(imageGraphics);
+        } finally {
+            imageGraphics.dispose();
+        }
+    }
+}
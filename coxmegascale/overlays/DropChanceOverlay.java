@@ -1,74 +1,102 @@
-// File: DropChanceOverlay.java
-package net.runelite.client.plugins.coxmegascale.overlays;
-
-import javax.inject.Inject;
-import net.runelite.client.ui.overlay.OverlayPanel;
-import net.runelite.client.ui.overlay.OverlayManager;
-import net.runelite.client.ui.overlay.OverlayLayer;
-import net.runelite.client.ui.overlay.OverlayPosition;
-import net.runelite.client.ui.overlay.OverlayPriority;
-import net.runelite.client.ui.overlay.components.LineComponent;
-import net.runelite.client.ui.overlay.components.TitleComponent;
-import lombok.extern.slf4j.Slf4j;
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
-import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
-
-@Slf4j
-public class DropChanceOverlay extends OverlayPanel
-{
-    private final CoxMegaScaleConfig config;
-
-    @Inject
-    public DropChanceOverlay(CoxMegaScaleConfig config)
-    {
-        this.config = config;
-        setPosition(OverlayPosition.TOP_LEFT);
-        setLayer(OverlayLayer.ABOVE_WIDGETS);
-        setPriority(OverlayPriority.LOW); // Optional: Set overlay priority if needed
-    }
-
-    @Override
-    public Dimension render(Graphics2D graphics)
-    {
-        if (!config.enableDropChanceOverlay())
-        {
-            return null;
-        }
-
-        try {
-            panelComponent.getChildren().clear();
-
-            // Create and configure the TitleComponent
-            TitleComponent title = TitleComponent.builder()
-                    .text("Drop Chances")
-                    .color(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(title);
-
-            // Example LineComponents with sample data
-            LineComponent uniqueChanceLine = LineComponent.builder()
-                    .left("Unique Chance:")
-                    .right("20%")
-                    .rightColor(Color.ORANGE)
-                    .build();
-            panelComponent.getChildren().add(uniqueChanceLine);
-
-            LineComponent sampleChanceLine = LineComponent.builder()
-                    .left("Sample Chance:")
-                    .right("10%")
-                    .rightColor(Color.ORANGE)
-                    .build();
-            panelComponent.getChildren().add(sampleChanceLine);
-
-            // Add more LineComponents as needed for dynamic data
-
-            // Render the panel
-            return super.render(graphics);
-        } catch (Exception e) {
-            log.error("Error rendering DropChanceOverlay: ", e);
-            return null;
-        }
-    }
-}
+// File: DropChanceOverlay.java
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import lombok.extern.slf4j.Slf4j;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.List;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.drops.DropChances;
+import net.runelite.client.plugins.coxmegascale.drops.LootDistribution;
+
+@Slf4j
+public class DropChanceOverlay extends OverlayPanel
+{
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+
+    @Inject
+    public DropChanceOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin)
+    {
+        this.config = config;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW); // Optional: Set overlay priority if needed
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!config.enableDropChanceOverlay())
+        {
+            return null;
+        }
+
+        try {
+            panelComponent.getChildren().clear();
+            appendSection(graphics, panelComponent.getChildren());
+
+            // Render the panel
+            return super.render(graphics);
+        } catch (Exception e) {
+            log.error("Error rendering DropChanceOverlay: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds this overlay's title and lines to a panel. Also used by the composite HUD.
+     *
+     * @param graphics The graphics the panel is rendered with.
+     * @param children The panel's children.
+     */
+    void appendSection(Graphics2D graphics, List<LayoutableRenderableEntity> children)
+    {
+        // Create and configure the TitleComponent
+        TitleComponent title = TitleComponent.builder()
+                .text("Drop Chances")
+                .color(Color.WHITE)
+                .build();
+        children.add(title);
+
+        // The texts are formatted once per points or party size change, not per frame
+        DropChances chances = plugin.getSnapshot().getDropChances();
+
+        children.add(line("Unique Chance:", chances.getTeamUniqueText()));
+        children.add(line("Team Purples:", chances.getExpectedUniquesText()));
+        children.add(line("Your Purples:", chances.getPersonalExpectedUniquesText()));
+        children.add(line("Dust (CM):", chances.getDustText()));
+        children.add(line("Kit (CM):", chances.getKitText()));
+
+        // Split of the uniques across the party, exact or from the last finished simulation
+        LootDistribution distribution = plugin.getLootDistribution();
+        if (distribution != null && distribution.getPartySize() > 1)
+        {
+            boolean simulated = distribution.getTrials() > 0;
+            children.add(line(simulated ? "Sim. Any Purple:" : "Any Purple:", distribution.getAnyUniqueText()));
+            children.add(line(simulated ? "Sim. 2+ Purples:" : "2+ Purples:", distribution.getMultipleUniquesText()));
+            children.add(line(simulated ? "Sim. Per Player:" : "Per Player:", distribution.getFirstPlayerText()));
+        }
+    }
+
+    private static LineComponent line(String left, String right)
+    {
+        return LineComponent.builder()
+                .left(left)
+                .right(right)
+                .rightColor(Color.ORANGE)
+                .build();
+    }
+}
@@ -1,65 +1,110 @@
-// File: PointsOverlay.java
-package net.runelite.client.plugins.coxmegascale.overlays;
-
-import javax.inject.Inject;
-import net.runelite.client.ui.overlay.OverlayPanel;
-import net.runelite.client.ui.overlay.OverlayLayer;
-import net.runelite.client.ui.overlay.OverlayPosition;
-import net.runelite.client.ui.overlay.OverlayPriority;
-import net.runelite.client.ui.overlay.components.LineComponent;
-import net.runelite.client.ui.overlay.components.TitleComponent;
-import lombok.extern.slf4j.Slf4j;
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
-import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
-import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
-
-@Slf4j
-public class PointsOverlay extends OverlayPanel {
-    private final CoxMegaScaleConfig config;
-    private final CoxMegaScalePlugin plugin;
-
-    @Inject
-    public PointsOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
-        this.config = config;
-        this.plugin = plugin;
-        setPosition(OverlayPosition.TOP_RIGHT);
-        setLayer(OverlayLayer.ABOVE_WIDGETS);
-        setPriority(OverlayPriority.LOW); // Optional: Set overlay priority if needed
-    }
-
-    @Override
-    public Dimension render(Graphics2D graphics) {
-        if (!config.enablePointsOverlay()) {
-            return null;
-        }
-
-        try {
-            panelComponent.getChildren().clear();
-
-            // Create and configure the TitleComponent
-            TitleComponent title = TitleComponent.builder()
-                    .text("Raid Points")
-                    .color(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(title);
-
-            // Fetch total points from the plugin
-            int totalPoints = plugin.getTotalPoints();
-
-            LineComponent totalPointsLine = LineComponent.builder()
-                    .left("Total Points:")
-                    .right(String.valueOf(totalPoints))
-                    .rightColor(Color.GREEN)
-                    .build();
-            panelComponent.getChildren().add(totalPointsLine);
-
-            // Render the panel
-            return super.render(graphics);
-        } catch (Exception e) {
-            log.error("Error rendering PointsOverlay: ", e);
-            return null;
-        }
-    }
-}
+// File: PointsOverlay.java
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import lombok.extern.slf4j.Slf4j;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.List;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.RaidStateSnapshot;
+import net.runelite.client.plugins.coxmegascale.points.PointsProjection;
+
+@Slf4j
+public class PointsOverlay extends OverlayPanel {
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+
+    @Inject
+    public PointsOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
+        this.config = config;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_RIGHT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW); // Optional: Set overlay priority if needed
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.enablePointsOverlay()) {
+            return null;
+        }
+
+        try {
+            panelComponent.getChildren().clear();
+            appendSection(graphics, panelComponent.getChildren());
+
+            // Render the panel
+            return super.render(graphics);
+        } catch (Exception e) {
+            log.error("Error rendering PointsOverlay: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds this overlay's title and lines to a panel. Also used by the composite HUD.
+     *
+     * @param graphics The graphics the panel is rendered with.
+     * @param children The panel's children.
+     */
+    void appendSection(Graphics2D graphics, List<LayoutableRenderableEntity> children) {
+        // Create and configure the TitleComponent
+        TitleComponent title = TitleComponent.builder()
+                .text("Raid Points")
+                .color(Color.WHITE)
+                .build();
+        children.add(title);
+
+        // Fetch total points from the plugin's published snapshot
+        RaidStateSnapshot snapshot = plugin.getSnapshot();
+        int totalPoints = snapshot.getTotalPoints();
+
+        LineComponent totalPointsLine = LineComponent.builder()
+                .left("Total Points:")
+                .right(String.valueOf(totalPoints))
+                .rightColor(Color.GREEN)
+                .build();
+        children.add(totalPointsLine);
+
+        // Points lost to deaths, tallied by the plugin as the total drops
+        if (snapshot.getLostPoints() > 0 || snapshot.getDeaths() > 0) {
+            children.add(LineComponent.builder()
+                    .left("Lost Points:")
+                    .right(String.valueOf(snapshot.getLostPoints()))
+                    .rightColor(Color.RED)
+                    .build());
+            children.add(LineComponent.builder()
+                    .left("Deaths:")
+                    .right(String.valueOf(snapshot.getDeaths()))
+                    .rightColor(Color.RED)
+                    .build());
+        }
+
+        // Rates and projection, formatted when the points last changed or the rates decayed
+        PointsProjection projection = snapshot.getPointsProjection();
+        if (projection != PointsProjection.NONE) {
+            children.add(line("Points/Min:", projection.getRecentRateText()));
+            children.add(line("Avg Points/Min:", projection.getAverageRateText()));
+            children.add(line("Projected Points:", projection.getProjectedPointsText()));
+            children.add(line("Projected Chance:", projection.getProjectedUniqueChanceText()));
+        }
+    }
+
+    private static LineComponent line(String left, String right) {
+        return LineComponent.builder()
+                .left(left)
+                .right(right)
+                .rightColor(Color.YELLOW)
+                .build();
+    }
+}
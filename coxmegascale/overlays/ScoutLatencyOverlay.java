@@ -0,0 +1,65 @@
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import lombok.extern.slf4j.Slf4j;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+
+/**
+ * Debug overlay with the latencies from a scouted layout to its verdict, to the first steps menu
+ * entry set up with it and to the Reload or Climb click, see
+ * {@link net.runelite.client.plugins.coxmegascale.trace.ScoutLatencyTracker}.
+ */
+@Slf4j
+public class ScoutLatencyOverlay extends OverlayPanel {
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+
+    @Inject
+    public ScoutLatencyOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
+        this.config = config;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.enableLatencyOverlay()) {
+            return null;
+        }
+
+        try {
+            panelComponent.getChildren().clear();
+            panelComponent.getChildren().add(TitleComponent.builder()
+                    .text("Scout Latency")
+                    .color(Color.WHITE)
+                    .build());
+
+            // Labels and values, only formatted again after new scouts or samples
+            String[] summary = plugin.getLatencyTracker().getSummary();
+            for (int i = 0; i + 1 < summary.length; i += 2) {
+                panelComponent.getChildren().add(LineComponent.builder()
+                        .left(summary[i])
+                        .right(summary[i + 1])
+                        .rightColor(Color.YELLOW)
+                        .build());
+            }
+
+            return super.render(graphics);
+        } catch (Exception e) {
+            log.error("Error rendering ScoutLatencyOverlay: ", e);
+            return null;
+        }
+    }
+}
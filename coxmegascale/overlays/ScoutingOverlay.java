@@ -0,0 +1,93 @@
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import lombok.extern.slf4j.Slf4j;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.RaidState;
+import net.runelite.client.plugins.coxmegascale.RaidStateSnapshot;
+import net.runelite.client.plugins.coxmegascale.scouting.ReloadEstimate;
+
+/**
+ * Shows, while scouting, which profiles the current layout matched, its score, how likely a reload is to
+ * satisfy the scouting criteria and how many reloads and how long finding a desirable layout is
+ * expected to take.
+ */
+@Slf4j
+public class ScoutingOverlay extends OverlayPanel {
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+
+    @Inject
+    public ScoutingOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
+        this.config = config;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.enableScoutingOverlay()) {
+            return null;
+        }
+
+        // Only useful at the steps, before the raid has begun
+        RaidStateSnapshot snapshot = plugin.getSnapshot();
+        if (snapshot.getRaidState() != RaidState.LOBBY_SCOUTING) {
+            return null;
+        }
+
+        try {
+            panelComponent.getChildren().clear();
+            panelComponent.getChildren().add(TitleComponent.builder()
+                    .text("Scouting")
+                    .color(Color.WHITE)
+                    .build());
+
+            // Joined once per layout when the verdict was computed
+            if (!snapshot.getMatchedProfiles().isEmpty()) {
+                panelComponent.getChildren().add(LineComponent.builder()
+                        .left("Matched:")
+                        .right(snapshot.getMatchedProfiles())
+                        .rightColor(Color.GREEN)
+                        .build());
+            }
+
+            // Score against the threshold in effect, formatted when the layout was scouted
+            if (!snapshot.getScoreText().isEmpty()) {
+                panelComponent.getChildren().add(line("Score:", snapshot.getScoreText()));
+            }
+
+            // Texts are formatted by the estimator when a layout is scouted or the criteria change
+            ReloadEstimate estimate = snapshot.getReloadEstimate();
+            panelComponent.getChildren().add(line("Scouts:", estimate.getScoutsText()));
+            panelComponent.getChildren().add(line("Match Rate:", estimate.getMatchRateText()));
+            panelComponent.getChildren().add(line("Expected Reloads:", estimate.getExpectedReloadsText()));
+            panelComponent.getChildren().add(line("Time to Find:", estimate.getTimeToFindText()));
+
+            return super.render(graphics);
+        } catch (Exception e) {
+            log.error("Error rendering ScoutingOverlay: ", e);
+            return null;
+        }
+    }
+
+    private static LineComponent line(String left, String right) {
+        return LineComponent.builder()
+                .left(left)
+                .right(right)
+                .rightColor(Color.YELLOW)
+                .build();
+    }
+}
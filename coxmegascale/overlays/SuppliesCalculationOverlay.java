@@ -1,155 +1,182 @@
-package net.runelite.client.plugins.coxmegascale.overlays;
-
-import javax.inject.Inject;
-
-import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
-import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
-import net.runelite.client.plugins.coxmegascale.events.PartySizeChanged;
-import net.runelite.client.ui.overlay.OverlayPanel;
-import net.runelite.client.ui.overlay.OverlayLayer;
-import net.runelite.client.ui.overlay.OverlayPosition;
-import net.runelite.client.ui.overlay.OverlayPriority;
-import net.runelite.client.ui.overlay.components.LineComponent;
-import net.runelite.client.ui.overlay.components.TitleComponent;
-import net.runelite.client.eventbus.Subscribe;
-
-import lombok.extern.slf4j.Slf4j;
-
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
-
-/**
- * Overlay class for displaying supplies calculations.
- */
-@Slf4j
-public class SuppliesCalculationOverlay extends OverlayPanel {
-    private final CoxMegaScaleConfig config;
-    private final CoxMegaScalePlugin plugin;
-
-    @Inject
-    public SuppliesCalculationOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
-        this.config = config;
-        this.plugin = plugin;
-
-        setPosition(OverlayPosition.BOTTOM_LEFT);
-        setLayer(OverlayLayer.ABOVE_WIDGETS);
-        setPriority(OverlayPriority.LOW);
-    }
-
-    /**
-     * Listen for PartySizeChanged events to log changes.
-     *
-     * @param event The PartySizeChanged event.
-     */
-    @Subscribe
-    public void onPartySizeChanged(PartySizeChanged event) {
-        log.debug("Received PartySizeChanged event: new party size = {}", event.getNewPartySize());
-        // No need to trigger a repaint; the render method will fetch the latest data
-    }
-
-    @Override
-    public Dimension render(Graphics2D graphics) {
-        if (!config.enableSuppliesCalculationOverlay()) {
-            return null;
-        }
-
-        try {
-            panelComponent.getChildren().clear();
-
-            // Fetch the current actual party size from the plugin
-            int actualSize = plugin.getActualPartySizeValue();
-
-            // Perform the dynamic calculations with proper ceiling for overloads
-            int overloads = (int) Math.ceil(((5.0 * actualSize) + 5.0) / 4.0); // Ceiling division
-            int fish = (20 * actualSize + 20);
-            int golpar = 3 * overloads;
-
-            // Define the text components
-            String titleText = "Supplies Calculation";
-            String actualSizeLabel = "Actual Party Size:";
-            String overloadsLabel = "Overloads Needed:";
-            String fishLabel = "Fish Needed:";
-            String golparLabel = "Golpar Needed:";
-
-            String actualSizeValue = String.valueOf(actualSize);
-            String overloadsValue = String.valueOf(overloads);
-            String fishValue = String.valueOf(fish);
-            String golparValue = String.valueOf(golpar);
-
-            // Measure the widths of the labels and values
-            int titleWidth = graphics.getFontMetrics().stringWidth(titleText);
-            int actualSizeLabelWidth = graphics.getFontMetrics().stringWidth(actualSizeLabel);
-            int overloadsLabelWidth = graphics.getFontMetrics().stringWidth(overloadsLabel);
-            int fishLabelWidth = graphics.getFontMetrics().stringWidth(fishLabel);
-            int golparLabelWidth = graphics.getFontMetrics().stringWidth(golparLabel);
-
-            int actualSizeValueWidth = graphics.getFontMetrics().stringWidth(actualSizeValue);
-            int overloadsValueWidth = graphics.getFontMetrics().stringWidth(overloadsValue);
-            int fishValueWidth = graphics.getFontMetrics().stringWidth(fishValue);
-            int golparValueWidth = graphics.getFontMetrics().stringWidth(golparValue);
-
-            // Determine the maximum width needed for labels and values
-            int maxLabelWidth = Math.max(Math.max(actualSizeLabelWidth, overloadsLabelWidth),
-                    Math.max(fishLabelWidth, golparLabelWidth));
-            int maxValueWidth = Math.max(Math.max(actualSizeValueWidth, overloadsValueWidth),
-                    Math.max(fishValueWidth, golparValueWidth));
-
-            // Calculate the total width needed for the overlay
-            int padding = 10; // Padding around the content
-            int totalWidth = Math.max(titleWidth, maxLabelWidth + 10 + maxValueWidth) + padding * 2;
-
-            // Set the panel's preferred size based on the calculated width
-            panelComponent.setPreferredSize(new Dimension(totalWidth, panelComponent.getPreferredSize().height));
-
-            // Create and configure the TitleComponent
-            TitleComponent title = TitleComponent.builder()
-                    .text(titleText)
-                    .color(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(title);
-
-            // Display Actual Party Size
-            LineComponent actualSizeLine = LineComponent.builder()
-                    .left(actualSizeLabel)
-                    .right(actualSizeValue)
-                    .rightColor(Color.ORANGE)
-                    .leftColor(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(actualSizeLine);
-
-            // Display Overloads Needed
-            LineComponent overloadsLine = LineComponent.builder()
-                    .left(overloadsLabel)
-                    .right(overloadsValue)
-                    .rightColor(Color.ORANGE)
-                    .leftColor(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(overloadsLine);
-
-            // Display Fish Needed
-            LineComponent fishLine = LineComponent.builder()
-                    .left(fishLabel)
-                    .right(fishValue)
-                    .rightColor(Color.ORANGE)
-                    .leftColor(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(fishLine);
-
-            // Display Golpar Needed
-            LineComponent golparLine = LineComponent.builder()
-                    .left(golparLabel)
-                    .right(golparValue)
-                    .rightColor(Color.ORANGE)
-                    .leftColor(Color.WHITE)
-                    .build();
-            panelComponent.getChildren().add(golparLine);
-
-            // Render the panel
-            return super.render(graphics);
-        } catch (Exception e) {
-            log.error("Error rendering SuppliesCalculationOverlay: ", e);
-            return null;
-        }
-    }
-}
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import javax.inject.Inject;
+
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.events.PartySizeChanged;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutKey;
+import net.runelite.client.plugins.coxmegascale.supplies.SuppliesPlanner;
+import net.runelite.client.plugins.coxmegascale.supplies.SupplyItem;
+import net.runelite.client.plugins.coxmegascale.supplies.SupplyPlan;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import net.runelite.client.eventbus.Subscribe;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.List;
+
+/**
+ * Overlay class for displaying supplies calculations.
+ */
+@Slf4j
+public class SuppliesCalculationOverlay extends OverlayPanel {
+    private final CoxMegaScaleConfig config;
+    private final CoxMegaScalePlugin plugin;
+
+    private static final String TITLE_TEXT = "Supplies Calculation";
+    private static final String ACTUAL_SIZE_LABEL = "Actual Party Size:";
+
+    private static final SupplyItem[] ITEMS = SupplyItem.values();
+    private static final String[] ITEM_LABELS = new String[ITEMS.length];
+
+    static {
+        for (SupplyItem item : ITEMS) {
+            ITEM_LABELS[item.ordinal()] = item + " Needed:";
+        }
+    }
+
+    // Party size of the last PartySizeChanged event; version counts the events
+    private volatile int partySize = 1;
+    private volatile int version;
+
+    // Render model, only rebuilt after a PartySizeChanged event or a newly scouted layout
+    private int modelVersion = -1;
+    private long layoutKey = LayoutKey.NO_KEY;
+    private LayoutableRenderableEntity[] components = new LayoutableRenderableEntity[0];
+    private Dimension preferredSize;
+
+    @Inject
+    public SuppliesCalculationOverlay(CoxMegaScaleConfig config, CoxMegaScalePlugin plugin) {
+        this.config = config;
+        this.plugin = plugin;
+
+        setPosition(OverlayPosition.BOTTOM_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        setPriority(OverlayPriority.LOW);
+    }
+
+    /**
+     * Listen for PartySizeChanged events to outdate the render model.
+     *
+     * @param event The PartySizeChanged event.
+     */
+    @Subscribe
+    public void onPartySizeChanged(PartySizeChanged event) {
+        log.debug("Received PartySizeChanged event: new party size = {}", event.getNewPartySize());
+        // The lines are rebuilt on the next frame; frames in between reuse the prepared components.
+        // The size is written before the version, so a reader of the new version sees the new size.
+        partySize = event.getNewPartySize();
+        version++;
+    }
+
+    /**
+     * @return The number of PartySizeChanged events received, so the composite HUD can tell when this
+     * section's lines are outdated.
+     */
+    int getVersion() {
+        return version;
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.enableSuppliesCalculationOverlay()) {
+            return null;
+        }
+
+        try {
+            panelComponent.getChildren().clear();
+            appendSection(graphics, panelComponent.getChildren());
+
+            // Set the panel's preferred size based on the measured width
+            panelComponent.setPreferredSize(preferredSize);
+
+            // Render the panel
+            return super.render(graphics);
+        } catch (Exception e) {
+            log.error("Error rendering SuppliesCalculationOverlay: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds this overlay's title and lines to a panel, rebuilding them first if the model is dirty.
+     * Also used by the composite HUD.
+     *
+     * @param graphics The graphics the panel is rendered with.
+     * @param children The panel's children.
+     */
+    void appendSection(Graphics2D graphics, List<LayoutableRenderableEntity> children) {
+        // Read the version before the party size, an event during the rebuild outdates the model again
+        int currentVersion = version;
+        long currentLayoutKey = plugin.getSnapshot().getLayoutKey();
+        if (currentVersion != modelVersion || currentLayoutKey != layoutKey) {
+            modelVersion = currentVersion;
+            layoutKey = currentLayoutKey;
+            rebuildModel(graphics);
+        }
+
+        for (LayoutableRenderableEntity component : components) {
+            children.add(component);
+        }
+    }
+
+    /**
+     * Looks up the supplies and rebuilds the cached title, lines and panel size.
+     *
+     * @param graphics The graphics used to measure the text.
+     */
+    private void rebuildModel(Graphics2D graphics) {
+        // Use the party size carried by the last PartySizeChanged event and the rooms of the scouted layout
+        int actualSize = partySize;
+        int roomMask = layoutKey == LayoutKey.NO_KEY ? SuppliesPlanner.UNSCOUTED : LayoutKey.roomMask(layoutKey);
+        SupplyPlan plan = plugin.getSuppliesPlanner().plan(roomMask, actualSize);
+
+        String actualSizeValue = String.valueOf(actualSize);
+
+        // Measure the widths of the labels and values
+        FontMetrics metrics = graphics.getFontMetrics();
+        int titleWidth = metrics.stringWidth(TITLE_TEXT);
+        int maxLabelWidth = metrics.stringWidth(ACTUAL_SIZE_LABEL);
+        int maxValueWidth = metrics.stringWidth(actualSizeValue);
+
+        components = new LayoutableRenderableEntity[ITEMS.length + 2];
+        components[0] = TitleComponent.builder()
+                .text(TITLE_TEXT)
+                .color(Color.WHITE)
+                .build();
+        components[1] = line(ACTUAL_SIZE_LABEL, actualSizeValue);
+
+        for (SupplyItem item : ITEMS) {
+            String label = ITEM_LABELS[item.ordinal()];
+            String value = String.valueOf(plan.get(item));
+            maxLabelWidth = Math.max(maxLabelWidth, metrics.stringWidth(label));
+            maxValueWidth = Math.max(maxValueWidth, metrics.stringWidth(value));
+            components[item.ordinal() + 2] = line(label, value);
+        }
+
+        // Calculate the total width needed for the overlay
+        int padding = 10; // Padding around the content
+        int totalWidth = Math.max(titleWidth, maxLabelWidth + 10 + maxValueWidth) + padding * 2;
+        preferredSize = new Dimension(totalWidth, panelComponent.getPreferredSize().height);
+    }
+
+    private static LineComponent line(String label, String value) {
+        return LineComponent.builder()
+                .left(label)
+                .right(value)
+                .rightColor(Color.ORANGE)
+                .leftColor(Color.WHITE)
+                .build();
+    }
+}
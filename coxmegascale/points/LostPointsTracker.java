@@ -0,0 +1,206 @@
+package net.runelite.client.plugins.coxmegascale.points;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * Tracks raid points lost to deaths from successive total points values and player deaths.
+ * <p>
+ * A drop of the total points is a loss. Drops and deaths that follow each other within
+ * {@value #MATCH_WINDOW_TICKS} ticks, in either order, form one group, and the group's loss is split
+ * evenly across its deaths; simultaneous deaths usually arrive as one combined drop, e.g. when a
+ * large party wipes at Olm. A loss without a death is counted as unattributed until a death joins
+ * its group. Tallies live in primitive arrays indexed by a slot handed out per player name, so an
+ * update costs at most one pass over the deaths of the open group. Must be used from the client thread.
+ */
+public class LostPointsTracker
+{
+    public static final int MAX_PLAYERS = 128;
+
+    /**
+     * Slot of losses that could not be matched with a death.
+     */
+    public static final int UNATTRIBUTED = 0;
+
+    // Ticks between a death or drop and the next one of the same group
+    static final int MATCH_WINDOW_TICKS = 2;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final int[] lostBySlot = new int[MAX_PLAYERS];
+    private final int[] deathsBySlot = new int[MAX_PLAYERS];
+    private int nextSlot = UNATTRIBUTED + 1;
+
+    // Open group of drops and deaths: its loss, the tick of its last event, and the slot of every
+    // death with the share of the loss given to it. Sized for a whole party dying at once
+    private int groupLoss;
+    private int groupTick;
+    private final int[] groupSlots = new int[MAX_PLAYERS];
+    private final int[] groupShares = new int[MAX_PLAYERS];
+    private int groupDeaths;
+
+    @Getter
+    private int totalLost;
+
+    @Getter
+    private int totalDeaths;
+
+    /**
+     * Records a change of the team's total points.
+     *
+     * @param tick      The current tick.
+     * @param oldPoints The previous total.
+     * @param newPoints The new total.
+     */
+    public void onPointsChanged(int tick, int oldPoints, int newPoints)
+    {
+        // Points are reset to 0 when the raid ends; that is not a loss
+        if (newPoints >= oldPoints || newPoints == 0)
+        {
+            return;
+        }
+
+        int loss = oldPoints - newPoints;
+        totalLost += loss;
+        expire(tick);
+
+        unsplit();
+        groupLoss += loss;
+        groupTick = tick;
+        split();
+    }
+
+    /**
+     * Records a player death.
+     *
+     * @param tick The current tick.
+     * @param name The player's name.
+     */
+    public void onPlayerDeath(int tick, String name)
+    {
+        int slot = slotFor(name);
+        deathsBySlot[slot]++;
+        totalDeaths++;
+        expire(tick);
+
+        unsplit();
+        if (groupDeaths < groupSlots.length)
+        {
+            groupSlots[groupDeaths++] = slot;
+        }
+        groupTick = tick;
+        split();
+    }
+
+    /**
+     * @param name The player's name.
+     * @return The points the player lost.
+     */
+    public int getLostPoints(String name)
+    {
+        Integer slot = slots.get(name);
+        return slot != null ? lostBySlot[slot] : 0;
+    }
+
+    /**
+     * @param name The player's name.
+     * @return The number of times the player died.
+     */
+    public int getDeaths(String name)
+    {
+        Integer slot = slots.get(name);
+        return slot != null ? deathsBySlot[slot] : 0;
+    }
+
+    /**
+     * @return The points lost that could not be matched with a death.
+     */
+    public int getUnattributedLoss()
+    {
+        return lostBySlot[UNATTRIBUTED];
+    }
+
+    /**
+     * Forgets every tally, e.g. when leaving the chambers.
+     */
+    public void reset()
+    {
+        slots.clear();
+        Arrays.fill(lostBySlot, 0);
+        Arrays.fill(deathsBySlot, 0);
+        nextSlot = UNATTRIBUTED + 1;
+        groupLoss = 0;
+        groupDeaths = 0;
+        totalLost = 0;
+        totalDeaths = 0;
+    }
+
+    private int slotFor(String name)
+    {
+        if (name == null)
+        {
+            return UNATTRIBUTED;
+        }
+
+        Integer slot = slots.get(name);
+        if (slot != null)
+        {
+            return slot;
+        }
+
+        // Parties larger than the arrays share the unattributed slot
+        if (nextSlot >= MAX_PLAYERS)
+        {
+            return UNATTRIBUTED;
+        }
+
+        int newSlot = nextSlot++;
+        slots.put(name, newSlot);
+        return newSlot;
+    }
+
+    // Takes the open group's loss back from the players it was split across
+    private void unsplit()
+    {
+        if (groupDeaths == 0)
+        {
+            lostBySlot[UNATTRIBUTED] -= groupLoss;
+            return;
+        }
+
+        for (int i = 0; i < groupDeaths; i++)
+        {
+            lostBySlot[groupSlots[i]] -= groupShares[i];
+        }
+    }
+
+    // Splits the open group's loss evenly across its deaths, the remainder going to the first ones
+    private void split()
+    {
+        if (groupDeaths == 0)
+        {
+            // Unattributed until a death joins the group
+            lostBySlot[UNATTRIBUTED] += groupLoss;
+            return;
+        }
+
+        int share = groupLoss / groupDeaths;
+        int remainder = groupLoss % groupDeaths;
+        for (int i = 0; i < groupDeaths; i++)
+        {
+            groupShares[i] = share + (i < remainder ? 1 : 0);
+            lostBySlot[groupSlots[i]] += groupShares[i];
+        }
+    }
+
+    // Closes the open group once its last drop or death is too old to be matched
+    private void expire(int tick)
+    {
+        if (tick - groupTick > MATCH_WINDOW_TICKS)
+        {
+            groupLoss = 0;
+            groupDeaths = 0;
+        }
+    }
+}
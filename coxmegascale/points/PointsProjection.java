@@ -0,0 +1,54 @@
+package net.runelite.client.plugins.coxmegascale.points;
+
+import lombok.Getter;
+
+/**
+ * Immutable points rates and end-of-raid projection, with the overlay texts formatted once when
+ * the projection is computed.
+ */
+@Getter
+public final class PointsProjection
+{
+    /**
+     * Projection used before the raid has begun or before a rate is known.
+     */
+    public static final PointsProjection NONE = new PointsProjection(0.0, 0.0, 0, 0.0);
+
+    /**
+     * Points per minute, weighted towards the last minute.
+     */
+    private final double recentRate;
+
+    /**
+     * Points per minute, weighted over the last few minutes.
+     */
+    private final double averageRate;
+
+    /**
+     * Total points expected at the end of the raid.
+     */
+    private final int projectedPoints;
+
+    /**
+     * Team unique chance at the projected points, 0 to 1.
+     */
+    private final double projectedUniqueChance;
+
+    private final String recentRateText;
+    private final String averageRateText;
+    private final String projectedPointsText;
+    private final String projectedUniqueChanceText;
+
+    public PointsProjection(double recentRate, double averageRate, int projectedPoints, double projectedUniqueChance)
+    {
+        this.recentRate = recentRate;
+        this.averageRate = averageRate;
+        this.projectedPoints = projectedPoints;
+        this.projectedUniqueChance = projectedUniqueChance;
+
+        this.recentRateText = String.format("%,d/min", Math.round(recentRate));
+        this.averageRateText = String.format("%,d/min", Math.round(averageRate));
+        this.projectedPointsText = String.format("%,d", projectedPoints);
+        this.projectedUniqueChanceText = String.format("%.2f%%", projectedUniqueChance * 100.0);
+    }
+}
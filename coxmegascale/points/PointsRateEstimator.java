@@ -0,0 +1,159 @@
+package net.runelite.client.plugins.coxmegascale.points;
+
+import net.runelite.client.plugins.coxmegascale.drops.DropChanceEngine;
+
+/**
+ * Streaming estimate of the raid's points rate and its projected end-of-raid total.
+ * <p>
+ * Two exponentially weighted rates are updated per points change, with weights that follow the
+ * ticks between changes so bursts of points are not over-counted. Between changes, {@link #tick(int)}
+ * decays the rates as if no points were earned, so a stretch without points lowers the projection
+ * instead of keeping the rate of the last change. An update is O(1) and only allocates the resulting
+ * {@link PointsProjection}. Must be used from the client thread.
+ */
+public class PointsRateEstimator
+{
+    // Ticks without a points change after which the rates are decayed and the projection rebuilt
+    static final int DECAY_INTERVAL_TICKS = 10;
+
+    private static final int TICKS_PER_MINUTE = 100;
+
+    // Time constants of the recent and average rates
+    private static final double RECENT_TAU_TICKS = TICKS_PER_MINUTE;
+    private static final double AVERAGE_TAU_TICKS = 5 * TICKS_PER_MINUTE;
+
+    private int startTick = -1;
+    private int expectedRaidTicks = 60 * TICKS_PER_MINUTE;
+
+    // Tick and points of the last rate update, and the newest points
+    private int rateTick;
+    private int ratePoints;
+    private int latestPoints;
+    private boolean hasRate;
+    private double recentRate;
+    private double averageRate;
+
+    private PointsProjection projection = PointsProjection.NONE;
+
+    /**
+     * Sets the raid duration the projection assumes.
+     *
+     * @param minutes The expected raid duration in minutes.
+     */
+    public void setExpectedRaidMinutes(int minutes)
+    {
+        expectedRaidTicks = Math.max(minutes, 1) * TICKS_PER_MINUTE;
+    }
+
+    /**
+     * Starts estimating, normally when the raid begins.
+     *
+     * @param tick   The current tick.
+     * @param points The current total points.
+     */
+    public void start(int tick, int points)
+    {
+        reset();
+        startTick = tick;
+        rateTick = tick;
+        ratePoints = points;
+        latestPoints = points;
+    }
+
+    /**
+     * @return True once {@link #start(int, int)} was called since the last reset.
+     */
+    public boolean isStarted()
+    {
+        return startTick >= 0;
+    }
+
+    /**
+     * Records a change of the total points.
+     *
+     * @param tick   The current tick.
+     * @param points The new total points.
+     * @return The updated projection.
+     */
+    public PointsProjection record(int tick, int points)
+    {
+        if (!isStarted())
+        {
+            start(tick, points);
+            return projection;
+        }
+
+        latestPoints = points;
+        if (tick - rateTick <= 0)
+        {
+            // Several changes in one tick: the rate is updated with the newest total on a later tick
+            return projection;
+        }
+        return update(tick, points);
+    }
+
+    /**
+     * Decays the rates once no points were earned for {@value #DECAY_INTERVAL_TICKS} ticks. Called
+     * every game tick; does nothing before {@link #start(int, int)}.
+     *
+     * @param tick The current tick.
+     * @return The projection, rebuilt if the rates were decayed.
+     */
+    public PointsProjection tick(int tick)
+    {
+        if (!isStarted() || tick - rateTick < DECAY_INTERVAL_TICKS)
+        {
+            return projection;
+        }
+        return update(tick, latestPoints);
+    }
+
+    // Folds the rate since the last update into the rates and rebuilds the projection
+    private PointsProjection update(int tick, int points)
+    {
+        int elapsed = tick - rateTick;
+        double rate = (double) (points - ratePoints) * TICKS_PER_MINUTE / elapsed;
+        if (hasRate)
+        {
+            recentRate += (1.0 - Math.exp(-elapsed / RECENT_TAU_TICKS)) * (rate - recentRate);
+            averageRate += (1.0 - Math.exp(-elapsed / AVERAGE_TAU_TICKS)) * (rate - averageRate);
+        }
+        else
+        {
+            recentRate = rate;
+            averageRate = rate;
+            hasRate = true;
+        }
+        rateTick = tick;
+        ratePoints = points;
+
+        // Project the average rate over the rest of the expected raid
+        int remainingTicks = Math.max(expectedRaidTicks - (tick - startTick), 0);
+        long projected = points + Math.round(Math.max(averageRate, 0.0) * remainingTicks / TICKS_PER_MINUTE);
+        int projectedPoints = (int) Math.min(projected, Integer.MAX_VALUE);
+
+        projection = new PointsProjection(recentRate, averageRate, projectedPoints,
+                DropChanceEngine.teamUniqueChance(projectedPoints));
+        return projection;
+    }
+
+    /**
+     * @return The last projection.
+     */
+    public PointsProjection getProjection()
+    {
+        return projection;
+    }
+
+    /**
+     * Forgets the rates, e.g. when leaving the chambers.
+     */
+    public void reset()
+    {
+        startTick = -1;
+        hasRate = false;
+        recentRate = 0.0;
+        averageRate = 0.0;
+        projection = PointsProjection.NONE;
+    }
+}
@@ -0,0 +1,33 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+/**
+ * Layout of recorded session files.
+ * <p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, followed by records of one type byte and
+ * its payload, written with {@link java.io.DataOutputStream}:
+ * <ul>
+ * <li>{@link #VARBIT}: int varbit id, int value</li>
+ * <li>{@link #TICK}: int tick count</li>
+ * <li>{@link #SCOUTED}: long layout key</li>
+ * <li>{@link #MENU_ENTRY_ADDED}: one menu entry</li>
+ * <li>{@link #MENU_OPENED}: int entry count, then the menu entries</li>
+ * <li>{@link #RAID_RESET}: no payload</li>
+ * </ul>
+ * A menu entry is written as UTF option, UTF target, int menu action id and int identifier.
+ */
+final class SessionFormat
+{
+    static final int MAGIC = 0x43584D53; // "CXMS"
+    static final int VERSION = 1;
+
+    static final byte VARBIT = 1;
+    static final byte TICK = 2;
+    static final byte SCOUTED = 3;
+    static final byte MENU_ENTRY_ADDED = 4;
+    static final byte MENU_OPENED = 5;
+    static final byte RAID_RESET = 6;
+
+    private SessionFormat()
+    {
+    }
+}
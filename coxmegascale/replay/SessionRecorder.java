@@ -0,0 +1,219 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+
+/**
+ * Writes the events the plugin reacts to into a session file that the session replay driver of the
+ * tests and benchmarks can replay. See {@link SessionFormat} for the layout.
+ * <p>
+ * Records are buffered and only flushed on {@link #close()}. A write error closes the recorder and
+ * every later record is dropped. Must be opened, used and closed on the client thread.
+ */
+@Slf4j
+public class SessionRecorder
+{
+    private final File file;
+
+    // Null once closed; every record reads it once, so a close in between cannot fail the record
+    private volatile DataOutputStream out;
+
+    private SessionRecorder(File file, DataOutputStream out)
+    {
+        this.file = file;
+        this.out = out;
+    }
+
+    /**
+     * Creates a new session file in a directory.
+     *
+     * @param directory The directory, created if missing.
+     * @return The recorder.
+     * @throws IOException If the file cannot be created.
+     */
+    public static SessionRecorder open(File directory) throws IOException
+    {
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        File file = new File(directory, "session-" + System.currentTimeMillis() + ".bin");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(SessionFormat.MAGIC);
+        out.writeInt(SessionFormat.VERSION);
+        log.info("Recording session to {}", file);
+        return new SessionRecorder(file, out);
+    }
+
+    public void recordVarbit(int varbitId, int value)
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.VARBIT);
+            stream.writeInt(varbitId);
+            stream.writeInt(value);
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    public void recordTick(int tick)
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.TICK);
+            stream.writeInt(tick);
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    public void recordScouted(long layoutKey)
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.SCOUTED);
+            stream.writeLong(layoutKey);
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    public void recordMenuEntryAdded(MenuEntry entry)
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.MENU_ENTRY_ADDED);
+            writeEntry(stream, entry);
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    public void recordMenuOpened(MenuEntry[] entries)
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.MENU_OPENED);
+            stream.writeInt(entries.length);
+            for (MenuEntry entry : entries)
+            {
+                writeEntry(stream, entry);
+            }
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    public void recordRaidReset()
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.writeByte(SessionFormat.RAID_RESET);
+        }
+        catch (IOException e)
+        {
+            fail(stream, e);
+        }
+    }
+
+    /**
+     * Flushes and closes the file.
+     */
+    public void close()
+    {
+        DataOutputStream stream = out;
+        if (stream == null)
+        {
+            return;
+        }
+
+        try
+        {
+            stream.close();
+            log.info("Session recorded to {}", file);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to close session file {}", file, e);
+        }
+        out = null;
+    }
+
+    private static void writeEntry(DataOutputStream stream, MenuEntry entry) throws IOException
+    {
+        MenuAction type = entry.getType();
+        stream.writeUTF(entry.getOption() != null ? entry.getOption() : "");
+        stream.writeUTF(entry.getTarget() != null ? entry.getTarget() : "");
+        stream.writeInt(type != null ? type.getId() : MenuAction.UNKNOWN.getId());
+        stream.writeInt(entry.getIdentifier());
+    }
+
+    // Closes the stream a record failed on, which close() may have taken away from out meanwhile
+    private void fail(DataOutputStream stream, IOException e)
+    {
+        log.warn("Unable to record session to {}, recording stopped", file, e);
+        try
+        {
+            stream.close();
+        }
+        catch (IOException ignored)
+        {
+            // Already failing
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,134 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * Counts how often each packed layout was scouted, with one flag per layout.
+ * <p>
+ * An open-addressing table with linear probing over parallel primitive arrays, so counting a layout
+ * never boxes. {@link LayoutKey#NO_KEY} marks empty slots and cannot be counted. Slots are only
+ * stable until the next insertion, which may grow the table. Not thread safe.
+ */
+public class LayoutFrequencyTable {
+    private static final long EMPTY = LayoutKey.NO_KEY;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys;
+    private int[] counts;
+    private boolean[] flags;
+    private int mask;
+
+    /**
+     * The number of distinct layouts.
+     */
+    @Getter
+    private int size;
+
+    /**
+     * The number of counted scouts.
+     */
+    @Getter
+    private long total;
+
+    public LayoutFrequencyTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Counts a layout.
+     *
+     * @param key   The packed layout.
+     * @param count The number of scouts to add.
+     * @return The layout's slot; a slot with a count equal to {@code count} was just inserted.
+     */
+    public int add(long key, int count) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Layouts without a key cannot be counted");
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += count;
+        total += count;
+        return slot;
+    }
+
+    /**
+     * @return The number of slots; iterate up to it and skip slots whose {@link #key(int)} is
+     * {@link LayoutKey#NO_KEY}.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long key(int slot) {
+        return keys[slot];
+    }
+
+    public int count(int slot) {
+        return counts[slot];
+    }
+
+    public boolean flag(int slot) {
+        return flags[slot];
+    }
+
+    public void setFlag(int slot, boolean flag) {
+        flags[slot] = flag;
+    }
+
+    /**
+     * Forgets every layout.
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        total = 0;
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        boolean[] oldFlags = flags;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                flags[slot] = oldFlags[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        flags = new boolean[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(long key) {
+        // Room slots sit in the low bits; mix the high bits in so that layouts spread over the table
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
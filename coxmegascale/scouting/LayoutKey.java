@@ -0,0 +1,209 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.List;
+import net.runelite.client.plugins.raids.Raid;
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.solver.Layout;
+import net.runelite.client.plugins.raids.solver.Room;
+
+/**
+ * Packs a scouted layout and its room rotation into a single {@code long}.
+ * <p>
+ * Rooms are stored in layout order, start and end excluded, as {@code ordinal + 1} in 5-bit slots
+ * (slot 0 in the lowest bits, an empty slot terminates the layout). The top 4 bits hold the number of
+ * rooms on the first floor. A floor is 8 grid positions with a start and an end, so a layout never
+ * has more than {@value #MAX_ROOMS} packed rooms.
+ */
+public final class LayoutKey {
+    /**
+     * Key returned for layouts that cannot be packed (no layout yet, or too many rooms).
+     */
+    public static final long NO_KEY = -1L;
+
+    public static final int MAX_ROOMS = 12;
+
+    private static final int SLOT_BITS = 5;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final int FLOOR_SHIFT = MAX_ROOMS * SLOT_BITS;
+    private static final int POSITIONS_PER_FLOOR = 8;
+
+    private static final RaidRoom[] ROOMS = RaidRoom.values();
+    private static final char[] ROOM_CODES = new char[ROOMS.length];
+
+    static {
+        for (RaidRoom room : ROOMS) {
+            ROOM_CODES[room.ordinal()] = room.getType().getCode();
+        }
+    }
+
+    private LayoutKey() {
+    }
+
+    /**
+     * Packs the layout of a scouted raid.
+     *
+     * @param raid The scouted raid.
+     * @return The packed key, or {@link #NO_KEY} if the layout cannot be packed.
+     */
+    public static long pack(Raid raid) {
+        Layout layout = raid.getLayout();
+        if (layout == null) {
+            return NO_KEY;
+        }
+
+        RaidRoom[] rooms = raid.getRooms();
+        List<Room> layoutRooms = layout.getRooms();
+        long key = 0;
+        int slot = 0;
+        int firstFloorRooms = 0;
+
+        for (int i = 0; i < layoutRooms.size(); i++) {
+            int position = layoutRooms.get(i).getPosition();
+            RaidRoom room = position < rooms.length ? rooms[position] : null;
+            if (room == null || room == RaidRoom.START || room == RaidRoom.END) {
+                continue;
+            }
+
+            if (slot == MAX_ROOMS) {
+                return NO_KEY;
+            }
+
+            key |= (long) (room.ordinal() + 1) << (slot * SLOT_BITS);
+            slot++;
+            if (position < POSITIONS_PER_FLOOR) {
+                firstFloorRooms = slot;
+            }
+        }
+
+        return key | (long) firstFloorRooms << FLOOR_SHIFT;
+    }
+
+    /**
+     * Packs a layout from its rooms, e.g. for benchmarks and replays that have no {@link Raid}.
+     *
+     * @param firstFloorRooms The number of rooms on the first floor.
+     * @param rooms           The rooms in layout order, without the start and end rooms.
+     * @return The packed key.
+     */
+    public static long of(int firstFloorRooms, RaidRoom... rooms) {
+        if (rooms.length > MAX_ROOMS || firstFloorRooms < 0 || firstFloorRooms > rooms.length) {
+            throw new IllegalArgumentException("Invalid layout of " + rooms.length + " rooms");
+        }
+
+        long key = 0;
+        for (int slot = 0; slot < rooms.length; slot++) {
+            key |= (long) (rooms[slot].ordinal() + 1) << (slot * SLOT_BITS);
+        }
+        return key | (long) firstFloorRooms << FLOOR_SHIFT;
+    }
+
+    /**
+     * Returns the room in a slot of a packed layout.
+     *
+     * @param key  The packed layout.
+     * @param slot The slot, 0 being the first room after the start.
+     * @return The room, or null past the end of the layout.
+     */
+    public static RaidRoom roomAt(long key, int slot) {
+        int value = slot < MAX_ROOMS ? (int) ((key >>> (slot * SLOT_BITS)) & SLOT_MASK) : 0;
+        return value == 0 || value > ROOMS.length ? null : ROOMS[value - 1];
+    }
+
+    /**
+     * Finds the slot of a room in a packed layout.
+     *
+     * @param key  The packed layout.
+     * @param room The room.
+     * @return The room's slot, or -1 if the layout does not have it.
+     */
+    public static int indexOf(long key, RaidRoom room) {
+        long value = room.ordinal() + 1;
+        for (int slot = 0; slot < MAX_ROOMS; slot++) {
+            long slotValue = (key >>> (slot * SLOT_BITS)) & SLOT_MASK;
+            if (slotValue == value) {
+                return slot;
+            }
+            if (slotValue == 0) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key The packed layout.
+     * @return The number of packed rooms, including scavengers, farming and empty rooms.
+     */
+    public static int size(long key) {
+        int size = 0;
+        while (size < MAX_ROOMS && ((key >>> (size * SLOT_BITS)) & SLOT_MASK) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @param key The packed layout.
+     * @return The number of packed rooms on the first floor.
+     */
+    public static int firstFloorSize(long key) {
+        return (int) (key >>> FLOOR_SHIFT);
+    }
+
+    /**
+     * @param key The packed layout.
+     * @return The mask of counted rooms, see {@link ScoutingCriteria#roomBit(RaidRoom)}.
+     */
+    public static int roomMask(long key) {
+        int mask = 0;
+        for (int slot = 0; slot < MAX_ROOMS; slot++) {
+            int value = (int) ((key >>> (slot * SLOT_BITS)) & SLOT_MASK);
+            if (value == 0) {
+                break;
+            }
+            mask |= 1 << (value - 1);
+        }
+        return mask & ~ScoutingCriteria.IGNORED_ROOMS_MASK;
+    }
+
+    /**
+     * @param key The packed layout.
+     * @return The number of counted rooms, i.e. rooms that are not ignored by the scouting criteria.
+     */
+    public static int roomCount(long key) {
+        int count = 0;
+        for (int slot = 0; slot < MAX_ROOMS; slot++) {
+            int value = (int) ((key >>> (slot * SLOT_BITS)) & SLOT_MASK);
+            if (value == 0) {
+                break;
+            }
+            if (((1 << (value - 1)) & ScoutingCriteria.IGNORED_ROOMS_MASK) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Renders a packed layout as its room type codes, e.g. {@code SCPF|CCSP}. Meant for logging only.
+     *
+     * @param key The packed layout.
+     * @return The layout code.
+     */
+    public static String toCodeString(long key) {
+        if (key == NO_KEY) {
+            return "?";
+        }
+
+        StringBuilder builder = new StringBuilder(MAX_ROOMS + 1);
+        int size = size(key);
+        int firstFloor = firstFloorSize(key);
+        for (int i = 0; i < size; i++) {
+            if (i == firstFloor) {
+                builder.append('|');
+            }
+            builder.append(ROOM_CODES[roomAt(key, i).ordinal()]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,364 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.RoomType;
+
+/**
+ * Layout order patterns compiled into one deterministic finite automaton.
+ * <p>
+ * A pattern describes the whole layout as room type tokens: {@code S} scavengers, {@code C} combat,
+ * {@code P} puzzle and {@code F} farming; {@code ?} is any one room, {@code *} any number of rooms
+ * and {@code |} the change of floor. For example {@code SCP*} is the start order SCP, {@code *|CP*}
+ * a second floor that starts with combat then puzzle, and {@code ???*|*F} a first floor of at least
+ * three rooms and farming last. Patterns are separated by commas or new lines; lines starting with
+ * {@code #} are ignored.
+ * <p>
+ * Every pattern becomes a chain of NFA states, and the union of the chains is turned into a DFA by
+ * subset construction when parsing. Each DFA state knows which patterns accept there, so a layout
+ * is matched against all patterns in one linear scan of its packed rooms: a table lookup per room
+ * and one for the change of floor, with no allocation. Instances are immutable.
+ */
+public final class LayoutPatterns {
+    public static final int MAX_PATTERNS = 64;
+
+    /**
+     * Patterns accepted by {@link #parse(String)}, leaving room for the start order patterns.
+     */
+    public static final int MAX_PARSED_PATTERNS = MAX_PATTERNS - 4;
+
+    // Limits the subset construction for patterns with many stars
+    private static final int MAX_STATES = 4096;
+
+    // Input symbols: room types and the change of floor
+    private static final int SCAVENGERS_ROOM = 0;
+    private static final int COMBAT_ROOM = 1;
+    private static final int PUZZLE_ROOM = 2;
+    private static final int FARMING_ROOM = 3;
+    private static final int OTHER_ROOM = 4;
+    private static final int FLOOR_CHANGE = 5;
+    private static final int SYMBOLS = 6;
+
+    // Pattern tokens besides the symbols
+    private static final int ANY_ROOM = -1;
+    private static final int ANY_ROOMS = -2;
+
+    private static final int DEAD = 0;
+    private static final int START = 1;
+
+    // Input symbol of every room by ordinal
+    private static final byte[] ROOM_SYMBOLS = new byte[RaidRoom.values().length];
+
+    static {
+        for (RaidRoom room : RaidRoom.values()) {
+            ROOM_SYMBOLS[room.ordinal()] = (byte) symbol(room.getType());
+        }
+    }
+
+    /**
+     * No patterns; no layout matches.
+     */
+    public static final LayoutPatterns NONE = new LayoutPatterns(Collections.emptyList(), new int[2 * SYMBOLS], new long[2]);
+
+    private final List<String> patterns;
+
+    // Next state at index state * SYMBOLS + symbol; the dead state loops to itself
+    private final int[] transitions;
+
+    // Patterns accepting in each state, bit i for pattern i
+    private final long[] accepting;
+
+    private LayoutPatterns(List<String> patterns, int[] transitions, long[] accepting) {
+        this.patterns = patterns;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * Parses and compiles patterns.
+     *
+     * @param text The patterns, see the class documentation.
+     * @return The patterns; {@link #NONE} for blank text.
+     * @throws RuleSyntaxException If a pattern is not valid; the position is the column in its line.
+     */
+    public static LayoutPatterns parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+
+        List<String> patterns = new ArrayList<>();
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.trim().startsWith("#")) {
+                continue;
+            }
+
+            int start = 0;
+            while (start <= line.length()) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+
+                String pattern = line.substring(start, end);
+                if (!pattern.trim().isEmpty()) {
+                    try {
+                        tokens(pattern);
+                    } catch (RuleSyntaxException e) {
+                        throw new RuleSyntaxException("Line " + (i + 1) + ": " + e.getReason(), start + e.getPosition());
+                    }
+                    if (patterns.size() == MAX_PARSED_PATTERNS) {
+                        throw new RuleSyntaxException("Line " + (i + 1) + ": more than " + MAX_PARSED_PATTERNS
+                                + " layout patterns", start);
+                    }
+                    patterns.add(pattern.replaceAll("\\s", "").toUpperCase());
+                }
+                start = end + 1;
+            }
+        }
+        return compile(patterns);
+    }
+
+    /**
+     * Compiles patterns.
+     *
+     * @param patterns The patterns, see the class documentation.
+     * @return The patterns, matched in the given order.
+     * @throws RuleSyntaxException If a pattern is not valid, or the patterns are too many or too complex.
+     */
+    public static LayoutPatterns compile(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return NONE;
+        }
+        if (patterns.size() > MAX_PATTERNS) {
+            throw new RuleSyntaxException("More than " + MAX_PATTERNS + " layout patterns", 0);
+        }
+
+        // NFA state i of pattern p is offsets[p] + i, having matched the first i tokens
+        int[][] tokens = new int[patterns.size()][];
+        int[] offsets = new int[patterns.size() + 1];
+        for (int p = 0; p < patterns.size(); p++) {
+            tokens[p] = tokens(patterns.get(p));
+            offsets[p + 1] = offsets[p] + tokens[p].length + 1;
+        }
+        int[] statePattern = new int[offsets[patterns.size()]];
+        for (int p = 0; p < patterns.size(); p++) {
+            for (int state = offsets[p]; state < offsets[p + 1]; state++) {
+                statePattern[state] = p;
+            }
+        }
+
+        List<BitSet> sets = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        sets.add(new BitSet());
+        ids.put(sets.get(DEAD), DEAD);
+
+        BitSet start = new BitSet();
+        for (int p = 0; p < patterns.size(); p++) {
+            start.set(offsets[p]);
+        }
+        closure(start, tokens, offsets, statePattern);
+        sets.add(start);
+        ids.put(start, START);
+        pending.add(START);
+
+        List<int[]> rows = new ArrayList<>();
+        rows.add(new int[SYMBOLS]);
+        rows.add(new int[SYMBOLS]);
+        while (!pending.isEmpty()) {
+            int id = pending.poll();
+            BitSet set = sets.get(id);
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                BitSet next = step(set, symbol, tokens, offsets, statePattern);
+                Integer nextId = ids.get(next);
+                if (nextId == null) {
+                    if (sets.size() == MAX_STATES) {
+                        throw new RuleSyntaxException("Layout patterns are too complex, use fewer '*'", 0);
+                    }
+                    nextId = sets.size();
+                    sets.add(next);
+                    ids.put(next, nextId);
+                    rows.add(new int[SYMBOLS]);
+                    pending.add(nextId);
+                }
+                rows.get(id)[symbol] = nextId;
+            }
+        }
+
+        int[] transitions = new int[sets.size() * SYMBOLS];
+        long[] accepting = new long[sets.size()];
+        for (int id = 0; id < sets.size(); id++) {
+            System.arraycopy(rows.get(id), 0, transitions, id * SYMBOLS, SYMBOLS);
+            for (int p = 0; p < patterns.size(); p++) {
+                if (sets.get(id).get(offsets[p + 1] - 1)) {
+                    accepting[id] |= 1L << p;
+                }
+            }
+        }
+        return new LayoutPatterns(Collections.unmodifiableList(new ArrayList<>(patterns)), transitions, accepting);
+    }
+
+    private static int[] tokens(String pattern) {
+        int[] tokens = new int[pattern.length()];
+        int count = 0;
+        boolean floor = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = Character.toUpperCase(pattern.charAt(i));
+            int token;
+            switch (c) {
+                case 'S':
+                    token = SCAVENGERS_ROOM;
+                    break;
+                case 'C':
+                    token = COMBAT_ROOM;
+                    break;
+                case 'P':
+                    token = PUZZLE_ROOM;
+                    break;
+                case 'F':
+                    token = FARMING_ROOM;
+                    break;
+                case '?':
+                    token = ANY_ROOM;
+                    break;
+                case '*':
+                    token = ANY_ROOMS;
+                    break;
+                case '|':
+                    if (floor) {
+                        throw new RuleSyntaxException("A layout has only one change of floor", i);
+                    }
+                    floor = true;
+                    token = FLOOR_CHANGE;
+                    break;
+                default:
+                    if (Character.isWhitespace(c)) {
+                        continue;
+                    }
+                    throw new RuleSyntaxException("Unexpected '" + pattern.charAt(i) + "', expected S, C, P, F, ?, * or |", i);
+            }
+
+            // Repeated stars match the same as one
+            if (token != ANY_ROOMS || count == 0 || tokens[count - 1] != ANY_ROOMS) {
+                tokens[count++] = token;
+            }
+        }
+        if (count == 0) {
+            throw new RuleSyntaxException("Empty layout pattern", 0);
+        }
+
+        int[] trimmed = new int[count];
+        System.arraycopy(tokens, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    // Adds the states reachable by letting stars match nothing
+    private static void closure(BitSet set, int[][] tokens, int[] offsets, int[] statePattern) {
+        for (int state = set.nextSetBit(0); state >= 0; state = set.nextSetBit(state + 1)) {
+            int p = statePattern[state];
+            int index = state - offsets[p];
+            if (index < tokens[p].length && tokens[p][index] == ANY_ROOMS) {
+                // The next state is higher, so the loop visits it as well
+                set.set(state + 1);
+            }
+        }
+    }
+
+    private static BitSet step(BitSet set, int symbol, int[][] tokens, int[] offsets, int[] statePattern) {
+        BitSet next = new BitSet();
+        for (int state = set.nextSetBit(0); state >= 0; state = set.nextSetBit(state + 1)) {
+            int p = statePattern[state];
+            int index = state - offsets[p];
+            if (index == tokens[p].length) {
+                continue;
+            }
+
+            int token = tokens[p][index];
+            if (token == ANY_ROOMS) {
+                // A star also spans the change of floor, unless the pattern places it with '|'
+                next.set(state);
+            } else if (token == symbol || (token == ANY_ROOM && symbol != FLOOR_CHANGE)) {
+                next.set(state + 1);
+            }
+        }
+        closure(next, tokens, offsets, statePattern);
+        return next;
+    }
+
+    private static int symbol(RoomType type) {
+        switch (type) {
+            case SCAVENGERS:
+                return SCAVENGERS_ROOM;
+            case COMBAT:
+                return COMBAT_ROOM;
+            case PUZZLE:
+                return PUZZLE_ROOM;
+            case FARMING:
+                return FARMING_ROOM;
+            default:
+                return OTHER_ROOM;
+        }
+    }
+
+    /**
+     * Matches a packed layout against every pattern in one scan. Does not allocate.
+     *
+     * @param layoutKey The packed layout, see {@link LayoutKey}.
+     * @return The mask of matching patterns, bit i for pattern i; 0 for {@link LayoutKey#NO_KEY}.
+     */
+    public long match(long layoutKey) {
+        if (layoutKey == LayoutKey.NO_KEY) {
+            return 0;
+        }
+
+        int firstFloor = LayoutKey.firstFloorSize(layoutKey);
+        int state = START;
+        for (int slot = 0; slot <= LayoutKey.MAX_ROOMS; slot++) {
+            if (slot == firstFloor) {
+                state = transitions[state * SYMBOLS + FLOOR_CHANGE];
+            }
+
+            RaidRoom room = LayoutKey.roomAt(layoutKey, slot);
+            if (room == null || state == DEAD) {
+                break;
+            }
+            state = transitions[state * SYMBOLS + ROOM_SYMBOLS[room.ordinal()]];
+        }
+        return accepting[state];
+    }
+
+    /**
+     * @return The patterns, upper-cased and without spaces.
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * @return The number of patterns.
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * @return The number of DFA states, including the dead state.
+     */
+    public int getStateCount() {
+        return accepting.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", patterns);
+    }
+}
@@ -0,0 +1,253 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.RoomType;
+
+/**
+ * Scores layouts by configurable weights, so that a layout that is nearly what the party wants can be
+ * accepted instead of reloaded.
+ * <p>
+ * Weights are written as {@code key=weight} entries separated by commas or new lines, e.g.
+ * {@code tekton=5, vespula=-10, tekton@1=3, puzzle=-1, rooms5=4}:
+ * <ul>
+ * <li>{@code room} adds the weight when the layout has the room,</li>
+ * <li>{@code room@n} adds the weight when the room is the n-th counted room,</li>
+ * <li>{@code combat} and {@code puzzle} add the weight for every room of that type,</li>
+ * <li>{@code roomsN}, {@code combatN} and {@code puzzleN} add the weight when the layout has exactly N
+ * counted, combat or puzzle rooms.</li>
+ * </ul>
+ * Lines starting with {@code #} are ignored. The weights are folded into arrays indexed by room
+ * ordinal, position and count when parsing, so {@link #score(long)} is a single pass over the
+ * packed layout that does not allocate: every counted room adds its room and position weights and
+ * is tallied as combat or puzzle by its room type, then the three count weights are added once.
+ * Instances are immutable.
+ */
+public final class LayoutScorer {
+    /**
+     * Largest weight magnitude, keeps any sum of weights far from overflowing.
+     */
+    public static final int MAX_WEIGHT = 1000;
+
+    private static final RaidRoom[] ROOMS = RaidRoom.values();
+
+    // Kind of every room by ordinal: 0 not counted, 1 combat, 2 puzzle
+    private static final byte[] KINDS = new byte[ROOMS.length];
+
+    static {
+        for (RaidRoom room : ROOMS) {
+            if ((ScoutingCriteria.roomBit(room) & ScoutingCriteria.IGNORED_ROOMS_MASK) == 0) {
+                KINDS[room.ordinal()] = (byte) (room.getType() == RoomType.COMBAT ? 1 : room.getType() == RoomType.PUZZLE ? 2 : 0);
+            }
+        }
+    }
+
+    /**
+     * No weights; {@link #isEmpty()} is true and every layout scores 0.
+     */
+    public static final LayoutScorer NONE = new LayoutScorer("", new int[ROOMS.length], new int[LayoutKey.MAX_ROOMS * ROOMS.length],
+            new int[LayoutKey.MAX_ROOMS + 1], new int[LayoutKey.MAX_ROOMS + 1], new int[LayoutKey.MAX_ROOMS + 1]);
+
+    private final String text;
+
+    // Weight of having a room, with the per combat and per puzzle room weights folded in, by ordinal
+    private final int[] roomWeights;
+
+    // Weight of a room at a position, at index position * room count + ordinal
+    private final int[] positionWeights;
+
+    // Weights of the number of counted, combat and puzzle rooms, by count
+    private final int[] roomCountWeights;
+    private final int[] combatCountWeights;
+    private final int[] puzzleCountWeights;
+
+    private LayoutScorer(String text, int[] roomWeights, int[] positionWeights, int[] roomCountWeights,
+                         int[] combatCountWeights, int[] puzzleCountWeights) {
+        this.text = text;
+        this.roomWeights = roomWeights;
+        this.positionWeights = positionWeights;
+        this.roomCountWeights = roomCountWeights;
+        this.combatCountWeights = combatCountWeights;
+        this.puzzleCountWeights = puzzleCountWeights;
+    }
+
+    /**
+     * Parses weights.
+     *
+     * @param text The weights, see the class documentation.
+     * @return The scorer; {@link #NONE} for blank text.
+     * @throws RuleSyntaxException If an entry is not valid; the position is the column in its line.
+     */
+    public static LayoutScorer parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+
+        int[] roomWeights = new int[ROOMS.length];
+        int[] positionWeights = new int[LayoutKey.MAX_ROOMS * ROOMS.length];
+        int[] roomCountWeights = new int[LayoutKey.MAX_ROOMS + 1];
+        int[] combatCountWeights = new int[LayoutKey.MAX_ROOMS + 1];
+        int[] puzzleCountWeights = new int[LayoutKey.MAX_ROOMS + 1];
+        int entries = 0;
+
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.trim().startsWith("#")) {
+                continue;
+            }
+
+            int start = 0;
+            while (start <= line.length()) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+
+                String entry = line.substring(start, end);
+                if (!entry.trim().isEmpty()) {
+                    try {
+                        int equals = entry.indexOf('=');
+                        if (equals < 0) {
+                            throw new RuleSyntaxException("Expected 'name=weight'", 0);
+                        }
+                        int weight = parseWeight(entry, equals + 1);
+                        String name = entry.substring(0, equals).trim().toLowerCase();
+                        int nameStart = entry.length() - entry.replaceAll("^\\s+", "").length();
+                        addWeight(name, nameStart, weight, roomWeights, positionWeights, roomCountWeights,
+                                combatCountWeights, puzzleCountWeights);
+                        entries++;
+                    } catch (RuleSyntaxException e) {
+                        throw new RuleSyntaxException("Line " + (i + 1) + ": " + e.getReason(), start + e.getPosition());
+                    }
+                }
+                start = end + 1;
+            }
+        }
+
+        if (entries == 0) {
+            return NONE;
+        }
+        return new LayoutScorer(text.trim(), roomWeights, positionWeights, roomCountWeights, combatCountWeights,
+                puzzleCountWeights);
+    }
+
+    private static int parseWeight(String entry, int start) {
+        String value = entry.substring(start).trim();
+        try {
+            int weight = Integer.parseInt(value.startsWith("+") ? value.substring(1) : value);
+            if (Math.abs(weight) <= MAX_WEIGHT) {
+                return weight;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below with the position of the weight
+        }
+        throw new RuleSyntaxException("Expected a weight from -" + MAX_WEIGHT + " to " + MAX_WEIGHT, start);
+    }
+
+    private static void addWeight(String name, int position, int weight, int[] roomWeights, int[] positionWeights,
+                                  int[] roomCountWeights, int[] combatCountWeights, int[] puzzleCountWeights) {
+        int at = name.indexOf('@');
+        if (at >= 0) {
+            RaidRoom room = room(name.substring(0, at).trim(), position);
+            int slot = parseCount(name.substring(at + 1).trim(), position + at + 1) - 1;
+            if (slot < 0) {
+                throw new RuleSyntaxException("Positions start at 1", position + at + 1);
+            }
+            positionWeights[slot * ROOMS.length + room.ordinal()] += weight;
+            return;
+        }
+
+        if (name.equals("combat") || name.equals("puzzle")) {
+            RoomType type = name.equals("combat") ? RoomType.COMBAT : RoomType.PUZZLE;
+            for (RaidRoom room : ROOMS) {
+                if (room.getType() == type) {
+                    roomWeights[room.ordinal()] += weight;
+                }
+            }
+            return;
+        }
+
+        for (String counter : new String[]{"rooms", "combat", "puzzle"}) {
+            if (name.startsWith(counter) && name.length() > counter.length()
+                    && Character.isDigit(name.charAt(counter.length()))) {
+                int count = parseCount(name.substring(counter.length()), position + counter.length());
+                int[] weights = counter.equals("rooms") ? roomCountWeights
+                        : counter.equals("combat") ? combatCountWeights : puzzleCountWeights;
+                weights[count] += weight;
+                return;
+            }
+        }
+
+        roomWeights[room(name, position).ordinal()] += weight;
+    }
+
+    private static RaidRoom room(String name, int position) {
+        RaidRoom room = RuleParser.room(name);
+        if (room == null) {
+            throw new RuleSyntaxException(name.isEmpty() ? "Expected a room" : "Unknown room '" + name + "'", position);
+        }
+        return room;
+    }
+
+    private static int parseCount(String value, int position) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 0 && count <= LayoutKey.MAX_ROOMS) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new RuleSyntaxException("Expected a number from 0 to " + LayoutKey.MAX_ROOMS, position);
+    }
+
+    /**
+     * Scores a packed layout in one pass over its rooms. Does not allocate.
+     *
+     * @param layoutKey The packed layout, see {@link LayoutKey}.
+     * @return The sum of the weights that apply to the layout; 0 for {@link LayoutKey#NO_KEY}.
+     */
+    public int score(long layoutKey) {
+        if (layoutKey == LayoutKey.NO_KEY) {
+            return 0;
+        }
+
+        int score = 0;
+        int position = 0;
+        int combat = 0;
+        int puzzle = 0;
+        for (int slot = 0; slot < LayoutKey.MAX_ROOMS; slot++) {
+            RaidRoom room = LayoutKey.roomAt(layoutKey, slot);
+            if (room == null) {
+                break;
+            }
+
+            int ordinal = room.ordinal();
+            int kind = KINDS[ordinal];
+            if (kind == 0) {
+                continue;
+            }
+
+            score += roomWeights[ordinal] + positionWeights[position * ROOMS.length + ordinal];
+            position++;
+            if (kind == 1) {
+                combat++;
+            } else {
+                puzzle++;
+            }
+        }
+        return score + roomCountWeights[position] + combatCountWeights[combat] + puzzleCountWeights[puzzle];
+    }
+
+    /**
+     * @return True if no weights are set, in which case no layout is accepted by score.
+     */
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return text.replaceAll("\\s*\r?\n\\s*", ", ");
+    }
+}
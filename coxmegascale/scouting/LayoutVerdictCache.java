@@ -0,0 +1,202 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * A bounded least-recently-used cache of {@link ScoutVerdict}s keyed by packed {@link LayoutKey}s.
+ * <p>
+ * Keys stay primitive: entries live in parallel arrays, buckets chain through entry indices and
+ * the recency list is an intrusive doubly linked list of entry indices, so lookups never box.
+ * Not thread safe; it is only used on the client thread.
+ */
+public class LayoutVerdictCache {
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int bucketMask;
+    private final int[] buckets;
+
+    private final long[] keys;
+    private final ScoutVerdict[] values;
+    private final int[] chainNext;
+    private final int[] newer;
+    private final int[] older;
+
+    private int size;
+    private int newest = NONE;
+    private int oldest = NONE;
+
+    @Getter
+    private long hits;
+
+    @Getter
+    private long misses;
+
+    @Getter
+    private long evictions;
+
+    /**
+     * @param capacity The maximum number of verdicts kept.
+     */
+    public LayoutVerdictCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        int bucketCount = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.bucketMask = bucketCount - 1;
+        this.buckets = new int[bucketCount];
+        this.keys = new long[capacity];
+        this.values = new ScoutVerdict[capacity];
+        this.chainNext = new int[capacity];
+        this.newer = new int[capacity];
+        this.older = new int[capacity];
+        Arrays.fill(buckets, NONE);
+    }
+
+    /**
+     * Looks up a verdict and marks it as most recently used.
+     *
+     * @param key The packed layout.
+     * @return The cached verdict, or null on a miss.
+     */
+    public ScoutVerdict get(long key) {
+        int entry = find(key);
+        if (entry == NONE) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        touch(entry);
+        return values[entry];
+    }
+
+    /**
+     * Stores a verdict, evicting the least recently used one when full. {@link LayoutKey#NO_KEY} is never stored.
+     *
+     * @param key     The packed layout.
+     * @param verdict The verdict.
+     */
+    public void put(long key, ScoutVerdict verdict) {
+        if (key == LayoutKey.NO_KEY) {
+            return;
+        }
+
+        int entry = find(key);
+        if (entry != NONE) {
+            values[entry] = verdict;
+            touch(entry);
+            return;
+        }
+
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            entry = oldest;
+            unlinkRecency(entry);
+            unlinkBucket(entry);
+            evictions++;
+        }
+
+        keys[entry] = key;
+        values[entry] = verdict;
+
+        int bucket = bucket(key);
+        chainNext[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        linkNewest(entry);
+    }
+
+    /**
+     * Drops every verdict, e.g. after the scouting criteria changed. Hit and miss counters are kept.
+     */
+    public void clear() {
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        newest = NONE;
+        oldest = NONE;
+    }
+
+    /**
+     * @return The number of cached verdicts.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The fraction of lookups answered from the cache, or 0 if there were none.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private int find(long key) {
+        for (int entry = buckets[bucket(key)]; entry != NONE; entry = chainNext[entry]) {
+            if (keys[entry] == key) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private int bucket(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & bucketMask;
+    }
+
+    private void touch(int entry) {
+        if (entry != newest) {
+            unlinkRecency(entry);
+            linkNewest(entry);
+        }
+    }
+
+    private void linkNewest(int entry) {
+        newer[entry] = NONE;
+        older[entry] = newest;
+        if (newest != NONE) {
+            newer[newest] = entry;
+        }
+        newest = entry;
+        if (oldest == NONE) {
+            oldest = entry;
+        }
+    }
+
+    private void unlinkRecency(int entry) {
+        int newerEntry = newer[entry];
+        int olderEntry = older[entry];
+        if (newerEntry != NONE) {
+            older[newerEntry] = olderEntry;
+        } else {
+            newest = olderEntry;
+        }
+        if (olderEntry != NONE) {
+            newer[olderEntry] = newerEntry;
+        } else {
+            oldest = newerEntry;
+        }
+    }
+
+    private void unlinkBucket(int entry) {
+        int bucket = bucket(keys[entry]);
+        int previous = NONE;
+        for (int current = buckets[bucket]; current != NONE; current = chainNext[current]) {
+            if (current == entry) {
+                if (previous == NONE) {
+                    buckets[bucket] = chainNext[current];
+                } else {
+                    chainNext[previous] = chainNext[current];
+                }
+                return;
+            }
+            previous = current;
+        }
+    }
+}
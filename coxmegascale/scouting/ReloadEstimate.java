@@ -0,0 +1,79 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import lombok.Getter;
+
+/**
+ * Immutable estimate of the reloads needed to find a desirable layout, with the overlay texts
+ * formatted once when the estimate is computed.
+ */
+@Getter
+public final class ReloadEstimate {
+    /**
+     * Estimate used before any layout has been scouted.
+     */
+    public static final ReloadEstimate NONE = new ReloadEstimate(0, 0, 0.0);
+
+    /**
+     * The number of scouts learned from.
+     */
+    private final long scouts;
+
+    /**
+     * The number of those scouts that satisfy the current criteria.
+     */
+    private final long matched;
+
+    /**
+     * Average seconds between two scouts, 0 if unknown.
+     */
+    private final double secondsPerScout;
+
+    private final String scoutsText;
+    private final String matchRateText;
+    private final String expectedReloadsText;
+    private final String timeToFindText;
+
+    public ReloadEstimate(long scouts, long matched, double secondsPerScout) {
+        this.scouts = scouts;
+        this.matched = matched;
+        this.secondsPerScout = secondsPerScout;
+
+        this.scoutsText = String.format("%,d", scouts);
+        if (matched == 0) {
+            // No match yet: at least as many reloads as scouts seen so far are expected
+            this.matchRateText = scouts == 0 ? "-" : "0%";
+            this.expectedReloadsText = scouts == 0 ? "-" : String.format("> %,d", scouts);
+            this.timeToFindText = scouts == 0 || secondsPerScout <= 0 ? "-" : "> " + formatDuration(scouts * secondsPerScout);
+        } else {
+            double expectedReloads = getExpectedReloads();
+            this.matchRateText = String.format("%.2f%%", 100.0 * matched / scouts);
+            this.expectedReloadsText = String.format("%,.1f", expectedReloads);
+            this.timeToFindText = secondsPerScout <= 0 ? "-" : formatDuration(expectedReloads * secondsPerScout);
+        }
+    }
+
+    /**
+     * @return The probability that a scout satisfies the criteria, 0 to 1.
+     */
+    public double getMatchRate() {
+        return scouts == 0 ? 0.0 : (double) matched / scouts;
+    }
+
+    /**
+     * Each reload is an independent scout, so the reloads until a match are geometric with a mean
+     * of one over the match rate.
+     *
+     * @return The expected number of reloads, infinite without any match.
+     */
+    public double getExpectedReloads() {
+        return matched == 0 ? Double.POSITIVE_INFINITY : (double) scouts / matched;
+    }
+
+    private static String formatDuration(double seconds) {
+        long total = Math.round(seconds);
+        if (total >= 3600) {
+            return String.format("%dh %02dm", total / 3600, total % 3600 / 60);
+        }
+        return String.format("%dm %02ds", total / 60, total % 60);
+    }
+}
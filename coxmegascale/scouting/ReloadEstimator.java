@@ -0,0 +1,145 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+/**
+ * Learns how often layouts come up from the scouted layouts and estimates how many reloads the
+ * current {@link ScoutingCriteria} need.
+ * <p>
+ * Scouts are counted per packed layout in a {@link LayoutFrequencyTable}, each layout flagged with
+ * whether it satisfies the criteria, and the number of matching scouts is kept up to date as scouts
+ * come in. When the criteria change, each distinct layout is checked once instead of replaying
+ * every scout. The time between scouts is an exponentially weighted average, ignoring gaps longer
+ * than {@value #MAX_SCOUT_GAP_MILLIS} ms, e.g. when the player stopped scouting. Not thread safe.
+ */
+public class ReloadEstimator {
+    static final long MAX_SCOUT_GAP_MILLIS = 60_000;
+
+    // Weight of the latest interval in the average
+    private static final double INTERVAL_ALPHA = 0.2;
+
+    private final LayoutFrequencyTable table = new LayoutFrequencyTable();
+
+    // No layout matches until the criteria are set
+    private ScoutingCriteria criteria;
+    private long matched;
+
+    private long lastLayoutKey = LayoutKey.NO_KEY;
+    private long lastMillis;
+    private double secondsPerScout;
+
+    // Rebuilt lazily, so that learning from the history does not format texts for every scout
+    private ReloadEstimate estimate = ReloadEstimate.NONE;
+    private boolean dirty;
+
+    /**
+     * Learns from a scouted layout.
+     *
+     * @param timestampMillis The scouting time, in milliseconds since the epoch.
+     * @param layoutKey       The packed layout.
+     */
+    public void record(long timestampMillis, long layoutKey) {
+        // The same raid may be posted more than once before a reload
+        if (layoutKey == LayoutKey.NO_KEY || layoutKey == lastLayoutKey) {
+            return;
+        }
+
+        long gap = timestampMillis - lastMillis;
+        if (lastMillis > 0 && gap > 0 && gap <= MAX_SCOUT_GAP_MILLIS) {
+            double seconds = gap / 1000.0;
+            secondsPerScout = secondsPerScout == 0.0 ? seconds : secondsPerScout + INTERVAL_ALPHA * (seconds - secondsPerScout);
+        }
+        lastLayoutKey = layoutKey;
+        lastMillis = timestampMillis;
+
+        count(layoutKey, 1);
+    }
+
+    /**
+     * Switches to new criteria, checking each distinct layout once.
+     *
+     * @param criteria The new criteria.
+     */
+    public void setCriteria(ScoutingCriteria criteria) {
+        this.criteria = criteria;
+        matched = 0;
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            long key = table.key(slot);
+            if (key != LayoutKey.NO_KEY) {
+                boolean matches = criteria.matches(key);
+                table.setFlag(slot, matches);
+                if (matches) {
+                    matched += table.count(slot);
+                }
+            }
+        }
+        dirty = true;
+    }
+
+    /**
+     * Adds what another estimator learned, e.g. the scouts read from the history while this one
+     * learned from live scouts. The layouts are judged with this estimator's criteria, and the time
+     * between scouts of whichever estimator saw the later scout is kept.
+     *
+     * @param other The estimator to add.
+     */
+    public void merge(ReloadEstimator other) {
+        for (int slot = 0; slot < other.table.capacity(); slot++) {
+            long key = other.table.key(slot);
+            if (key != LayoutKey.NO_KEY) {
+                count(key, other.table.count(slot));
+            }
+        }
+
+        boolean later = other.lastMillis > lastMillis;
+        if (later) {
+            lastLayoutKey = other.lastLayoutKey;
+            lastMillis = other.lastMillis;
+        }
+        if (other.secondsPerScout > 0 && (later || secondsPerScout == 0.0)) {
+            secondsPerScout = other.secondsPerScout;
+        }
+    }
+
+    /**
+     * Forgets every scout, keeping the criteria.
+     */
+    public void reset() {
+        table.clear();
+        matched = 0;
+        lastLayoutKey = LayoutKey.NO_KEY;
+        lastMillis = 0;
+        secondsPerScout = 0.0;
+        estimate = ReloadEstimate.NONE;
+        dirty = false;
+    }
+
+    /**
+     * @return The current estimate; only formatted again after new scouts or criteria.
+     */
+    public ReloadEstimate getEstimate() {
+        if (dirty) {
+            dirty = false;
+            estimate = table.getTotal() == 0 ? ReloadEstimate.NONE
+                    : new ReloadEstimate(table.getTotal(), matched, secondsPerScout);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return The number of distinct layouts learned.
+     */
+    public int getDistinctLayouts() {
+        return table.getSize();
+    }
+
+    private void count(long layoutKey, int count) {
+        int slot = table.add(layoutKey, count);
+        if (table.count(slot) == count) {
+            // First time this layout is seen; check it once
+            table.setFlag(slot, criteria != null && criteria.matches(layoutKey));
+        }
+        if (table.flag(slot)) {
+            matched += count;
+        }
+        dirty = true;
+    }
+}
@@ -0,0 +1,414 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.RoomType;
+
+/**
+ * A node of a parsed scouting rule. Nodes test a packed layout together with its room mask, which
+ * is computed once per layout; no node allocates while testing.
+ * <p>
+ * Parsing produces {@link And}, {@link Or} and {@link Not} nodes over atoms, the conditions that do
+ * not contain other conditions. Atoms compare by value, so equal conditions written in different
+ * places or rules can be told apart from distinct ones. {@link #compile()} folds room presence
+ * checks into single mask checks.
+ */
+abstract class RuleNode {
+    static final int COMBAT_MASK = typeMask(RoomType.COMBAT);
+    static final int PUZZLE_MASK = typeMask(RoomType.PUZZLE);
+    static final int ROOMS_MASK = COMBAT_MASK | PUZZLE_MASK;
+
+    /**
+     * @param layoutKey The packed layout.
+     * @param roomMask  The layout's room mask, see {@link LayoutKey#roomMask(long)}.
+     * @return True if the layout satisfies this node.
+     */
+    abstract boolean test(long layoutKey, int roomMask);
+
+    /**
+     * @return An equivalent node that is cheaper to test.
+     */
+    RuleNode compile() {
+        return this;
+    }
+
+    private static int typeMask(RoomType type) {
+        int mask = 0;
+        for (RaidRoom room : RaidRoom.values()) {
+            if (room.getType() == type) {
+                mask |= ScoutingCriteria.roomBit(room);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Comparison operators of room counts.
+     */
+    enum Comparison {
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER(">"),
+        GREATER_OR_EQUAL(">="),
+        EQUAL("="),
+        NOT_EQUAL("!=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean apply(int left, int right) {
+            switch (this) {
+                case LESS:
+                    return left < right;
+                case LESS_OR_EQUAL:
+                    return left <= right;
+                case GREATER:
+                    return left > right;
+                case GREATER_OR_EQUAL:
+                    return left >= right;
+                case EQUAL:
+                    return left == right;
+                default:
+                    return left != right;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    static final class And extends RuleNode {
+        final RuleNode[] children;
+
+        And(RuleNode[] children) {
+            this.children = children;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            for (RuleNode child : children) {
+                if (!child.test(layoutKey, roomMask)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        RuleNode compile() {
+            // Presence and absence checks collapse into one mask check, tested first
+            int required = 0;
+            int forbidden = 0;
+            List<RuleNode> rest = new ArrayList<>();
+            for (RuleNode child : children) {
+                RuleNode compiled = child.compile();
+                if (compiled instanceof Present) {
+                    required |= ((Present) compiled).bit;
+                } else if (compiled instanceof Not && ((Not) compiled).child instanceof Present) {
+                    forbidden |= ((Present) ((Not) compiled).child).bit;
+                } else if (compiled instanceof Masks) {
+                    required |= ((Masks) compiled).required;
+                    forbidden |= ((Masks) compiled).forbidden;
+                } else {
+                    rest.add(compiled);
+                }
+            }
+
+            if (required != 0 || forbidden != 0) {
+                rest.add(0, new Masks(required, forbidden));
+            }
+            return rest.size() == 1 ? rest.get(0) : new And(rest.toArray(new RuleNode[0]));
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " & ");
+        }
+    }
+
+    static final class Or extends RuleNode {
+        final RuleNode[] children;
+
+        Or(RuleNode[] children) {
+            this.children = children;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            for (RuleNode child : children) {
+                if (child.test(layoutKey, roomMask)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        RuleNode compile() {
+            // Alternatives of single rooms collapse into one "any of" mask check
+            int any = 0;
+            List<RuleNode> rest = new ArrayList<>();
+            for (RuleNode child : children) {
+                RuleNode compiled = child.compile();
+                if (compiled instanceof Present) {
+                    any |= ((Present) compiled).bit;
+                } else {
+                    rest.add(compiled);
+                }
+            }
+
+            if (any != 0) {
+                rest.add(0, new AnyOf(any));
+            }
+            return rest.size() == 1 ? rest.get(0) : new Or(rest.toArray(new RuleNode[0]));
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " | ");
+        }
+    }
+
+    static final class Not extends RuleNode {
+        final RuleNode child;
+
+        Not(RuleNode child) {
+            this.child = child;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return !child.test(layoutKey, roomMask);
+        }
+
+        @Override
+        RuleNode compile() {
+            RuleNode compiled = child.compile();
+            if (compiled instanceof Not) {
+                return ((Not) compiled).child;
+            }
+            return compiled == child ? this : new Not(compiled);
+        }
+
+        @Override
+        public String toString() {
+            // And and Or print their own parentheses
+            return "!" + child;
+        }
+    }
+
+    /**
+     * Atom: the layout has a room.
+     */
+    static final class Present extends RuleNode {
+        final RaidRoom room;
+        final int bit;
+
+        Present(RaidRoom room) {
+            this.room = room;
+            this.bit = ScoutingCriteria.roomBit(room);
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return (roomMask & bit) != 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Present && ((Present) o).room == room;
+        }
+
+        @Override
+        public int hashCode() {
+            return room.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return roomName(room);
+        }
+    }
+
+    /**
+     * Atom: the layout has both rooms, the first one earlier than the second.
+     */
+    static final class Order extends RuleNode {
+        final RaidRoom first;
+        final RaidRoom second;
+        private final int bothMask;
+
+        Order(RaidRoom first, RaidRoom second) {
+            this.first = first;
+            this.second = second;
+            this.bothMask = ScoutingCriteria.roomBit(first) | ScoutingCriteria.roomBit(second);
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return (roomMask & bothMask) == bothMask
+                    && LayoutKey.indexOf(layoutKey, first) < LayoutKey.indexOf(layoutKey, second);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Order && ((Order) o).first == first && ((Order) o).second == second;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(first, second);
+        }
+
+        @Override
+        public String toString() {
+            return roomName(first) + " before " + roomName(second);
+        }
+    }
+
+    /**
+     * Atom: every room of a type in the layout is one of the allowed rooms.
+     */
+    static final class TypeIn extends RuleNode {
+        final RoomType type;
+        final int allowed;
+        private final int disallowed;
+
+        TypeIn(RoomType type, int allowed) {
+            this.type = type;
+            this.allowed = allowed;
+            this.disallowed = (type == RoomType.COMBAT ? COMBAT_MASK : PUZZLE_MASK) & ~allowed;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return (roomMask & disallowed) == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeIn && ((TypeIn) o).type == type && ((TypeIn) o).allowed == allowed;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, allowed);
+        }
+
+        @Override
+        public String toString() {
+            List<String> names = new ArrayList<>();
+            for (RaidRoom room : RaidRoom.values()) {
+                if ((allowed & ScoutingCriteria.roomBit(room)) != 0) {
+                    names.add(roomName(room));
+                }
+            }
+            return type.name().toLowerCase() + " in (" + String.join(", ", names) + ")";
+        }
+    }
+
+    /**
+     * Atom: the number of rooms of a kind compares to a number.
+     */
+    static final class Count extends RuleNode {
+        final String counter;
+        final int mask;
+        final Comparison comparison;
+        final int value;
+
+        Count(String counter, int mask, Comparison comparison, int value) {
+            this.counter = counter;
+            this.mask = mask;
+            this.comparison = comparison;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            // A room occurs at most once per layout, so its bits count the rooms
+            return comparison.apply(Integer.bitCount(roomMask & mask), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Count && ((Count) o).mask == mask && ((Count) o).comparison == comparison
+                    && ((Count) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mask, comparison, value);
+        }
+
+        @Override
+        public String toString() {
+            return counter + comparison + value;
+        }
+    }
+
+    /**
+     * Compiled: the layout has every required room and none of the forbidden ones.
+     */
+    static final class Masks extends RuleNode {
+        final int required;
+        final int forbidden;
+
+        Masks(int required, int forbidden) {
+            this.required = required;
+            this.forbidden = forbidden;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return (roomMask & required) == required && (roomMask & forbidden) == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "masks(" + Integer.toBinaryString(required) + ", !" + Integer.toBinaryString(forbidden) + ")";
+        }
+    }
+
+    /**
+     * Compiled: the layout has at least one of the rooms.
+     */
+    static final class AnyOf extends RuleNode {
+        final int mask;
+
+        AnyOf(int mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        boolean test(long layoutKey, int roomMask) {
+            return (roomMask & mask) != 0;
+        }
+
+        @Override
+        public String toString() {
+            return "any(" + Integer.toBinaryString(mask) + ")";
+        }
+    }
+
+    static String roomName(RaidRoom room) {
+        return room.getName().toLowerCase().replace(' ', '_');
+    }
+
+    private static String join(RuleNode[] nodes, String separator) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(nodes[i]);
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,258 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.RoomType;
+
+/**
+ * Recursive descent parser of scouting rules:
+ * <pre>
+ * rule    = or
+ * or      = and { "|" and }
+ * and     = unary { "&amp;" unary }
+ * unary   = "!" unary | primary
+ * primary = "(" or ")"
+ *         | room [ ( "before" | "after" ) room ]
+ *         | ( "combat" | "puzzle" ) "in" "(" room { "," room } ")"
+ *         | ( "rooms" | "combat" | "puzzle" ) ( "&lt;" | "&lt;=" | "&gt;" | "&gt;=" | "=" | "==" | "!=" ) number
+ * </pre>
+ * Room names are case insensitive; spaces and underscores in them are optional, e.g. {@code ice demon},
+ * {@code ice_demon} or {@code icedemon}.
+ */
+final class RuleParser {
+    private static final Map<String, RaidRoom> ROOMS = new HashMap<>();
+
+    static {
+        for (RaidRoom room : RaidRoom.values()) {
+            boolean named = room.getType() == RoomType.COMBAT || room.getType() == RoomType.PUZZLE;
+            if (named && !room.name().startsWith("UNKNOWN")) {
+                ROOMS.put(normalize(room.getName()), room);
+            }
+        }
+    }
+
+    private final String text;
+    private int position;
+
+    private RuleParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a rule.
+     *
+     * @param text The rule text.
+     * @return The parsed rule, not compiled.
+     * @throws RuleSyntaxException If the text is not a valid rule.
+     */
+    static RuleNode parse(String text) {
+        RuleParser parser = new RuleParser(text);
+        RuleNode node = parser.parseOr();
+        parser.skipSpaces();
+        if (parser.position < text.length()) {
+            char c = text.charAt(parser.position);
+            throw new RuleSyntaxException(c == ')' ? "Unexpected ')'" : "Expected '&' or '|'", parser.position);
+        }
+        return node;
+    }
+
+    /**
+     * Looks up a combat or puzzle room by name.
+     *
+     * @param name The room name, case insensitive; spaces and underscores are optional.
+     * @return The room, or null if no room has that name.
+     */
+    static RaidRoom room(String name) {
+        return ROOMS.get(normalize(name));
+    }
+
+    private RuleNode parseOr() {
+        List<RuleNode> children = new ArrayList<>();
+        children.add(parseAnd());
+        while (accept("|")) {
+            children.add(parseAnd());
+        }
+        return children.size() == 1 ? children.get(0) : new RuleNode.Or(children.toArray(new RuleNode[0]));
+    }
+
+    private RuleNode parseAnd() {
+        List<RuleNode> children = new ArrayList<>();
+        children.add(parseUnary());
+        while (accept("&")) {
+            children.add(parseUnary());
+        }
+        return children.size() == 1 ? children.get(0) : new RuleNode.And(children.toArray(new RuleNode[0]));
+    }
+
+    private RuleNode parseUnary() {
+        skipSpaces();
+        // "!=" only follows a counter, so a "!" here is always a negation
+        if (accept("!")) {
+            return new RuleNode.Not(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private RuleNode parsePrimary() {
+        if (accept("(")) {
+            RuleNode node = parseOr();
+            expect(")");
+            return node;
+        }
+
+        skipSpaces();
+        int start = position;
+        String word = readWord();
+        if (word.isEmpty()) {
+            throw new RuleSyntaxException(position < text.length() ? "Expected a condition" : "Unexpected end of rule", position);
+        }
+
+        switch (word) {
+            case "rooms":
+                return parseCount(word, RuleNode.ROOMS_MASK);
+            case "combat":
+            case "puzzle":
+                RoomType type = word.equals("combat") ? RoomType.COMBAT : RoomType.PUZZLE;
+                if (acceptWord("in")) {
+                    return parseTypeIn(type);
+                }
+                return parseCount(word, type == RoomType.COMBAT ? RuleNode.COMBAT_MASK : RuleNode.PUZZLE_MASK);
+            default:
+                break;
+        }
+
+        RaidRoom room = readRoom(word, start);
+        if (acceptWord("before")) {
+            return new RuleNode.Order(room, parseRoom());
+        } else if (acceptWord("after")) {
+            return new RuleNode.Order(parseRoom(), room);
+        }
+        return new RuleNode.Present(room);
+    }
+
+    private RuleNode parseTypeIn(RoomType type) {
+        expect("(");
+        int allowed = 0;
+        do {
+            skipSpaces();
+            int start = position;
+            RaidRoom room = parseRoom();
+            if (room.getType() != type) {
+                throw new RuleSyntaxException("'" + RuleNode.roomName(room) + "' is not a "
+                        + type.name().toLowerCase() + " room", start);
+            }
+            allowed |= ScoutingCriteria.roomBit(room);
+        } while (accept(","));
+        expect(")");
+        return new RuleNode.TypeIn(type, allowed);
+    }
+
+    private RuleNode parseCount(String counter, int mask) {
+        skipSpaces();
+        int start = position;
+        RuleNode.Comparison comparison;
+        if (accept("<=")) {
+            comparison = RuleNode.Comparison.LESS_OR_EQUAL;
+        } else if (accept(">=")) {
+            comparison = RuleNode.Comparison.GREATER_OR_EQUAL;
+        } else if (accept("!=")) {
+            comparison = RuleNode.Comparison.NOT_EQUAL;
+        } else if (accept("==") || accept("=")) {
+            comparison = RuleNode.Comparison.EQUAL;
+        } else if (accept("<")) {
+            comparison = RuleNode.Comparison.LESS;
+        } else if (accept(">")) {
+            comparison = RuleNode.Comparison.GREATER;
+        } else {
+            throw new RuleSyntaxException("Expected a comparison after '" + counter + "'", start);
+        }
+
+        skipSpaces();
+        int numberStart = position;
+        while (position < text.length() && Character.isDigit(text.charAt(position))) {
+            position++;
+        }
+        if (position == numberStart || position - numberStart > 2) {
+            throw new RuleSyntaxException("Expected a room count", numberStart);
+        }
+        return new RuleNode.Count(counter, mask, comparison, Integer.parseInt(text.substring(numberStart, position)));
+    }
+
+    private RaidRoom parseRoom() {
+        skipSpaces();
+        int start = position;
+        String word = readWord();
+        if (word.isEmpty()) {
+            throw new RuleSyntaxException("Expected a room", start);
+        }
+        return readRoom(word, start);
+    }
+
+    // Resolves a room name, joining the next word for names with a space
+    private RaidRoom readRoom(String word, int start) {
+        RaidRoom room = ROOMS.get(normalize(word));
+        if (room != null) {
+            return room;
+        }
+
+        int afterWord = position;
+        skipSpaces();
+        String next = readWord();
+        room = next.isEmpty() ? null : ROOMS.get(normalize(word + next));
+        if (room != null) {
+            return room;
+        }
+
+        position = afterWord;
+        throw new RuleSyntaxException("Unknown room '" + word + "'", start);
+    }
+
+    private String readWord() {
+        int start = position;
+        while (position < text.length()
+                && (Character.isLetter(text.charAt(position)) || text.charAt(position) == '_')) {
+            position++;
+        }
+        return text.substring(start, position).toLowerCase();
+    }
+
+    private boolean acceptWord(String word) {
+        skipSpaces();
+        int end = position + word.length();
+        if (text.regionMatches(true, position, word, 0, word.length())
+                && (end == text.length() || !Character.isLetter(text.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean accept(String symbol) {
+        skipSpaces();
+        if (text.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            throw new RuleSyntaxException(position < text.length() ? "Expected '" + symbol + "'" : "Missing '" + symbol + "'",
+                    position);
+        }
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase().replace(" ", "").replace("_", "");
+    }
+}
@@ -0,0 +1,32 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a scouting rule cannot be parsed.
+ */
+public class RuleSyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Index of the offending character in the rule text.
+     */
+    @Getter
+    private final int position;
+
+    /**
+     * What is wrong, without the position.
+     */
+    @Getter
+    private final String reason;
+
+    /**
+     * @param reason   What is wrong.
+     * @param position Index of the offending character in the rule text.
+     */
+    public RuleSyntaxException(String reason, int position) {
+        super(reason + " at column " + (position + 1));
+        this.position = position;
+        this.reason = reason;
+    }
+}
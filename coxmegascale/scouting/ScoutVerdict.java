@@ -0,0 +1,25 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The outcome of evaluating a scouted layout against the {@link ScoutingCriteria}.
+ */
+@RequiredArgsConstructor
+@Getter
+public class ScoutVerdict {
+    private final long layoutKey;
+    private final boolean desirable;
+    private final int roomCount;
+
+    /**
+     * Names of the matched profiles, comma separated; empty if the layout is not desirable.
+     */
+    private final String matchedProfiles;
+
+    /**
+     * Weighted score of the layout, see {@link LayoutScorer}; 0 without weights.
+     */
+    private final int score;
+}
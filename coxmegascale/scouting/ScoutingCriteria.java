@@ -0,0 +1,282 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig.RoomCount;
+import net.runelite.client.plugins.raids.RaidRoom;
+
+/**
+ * Scouting criteria compiled from {@link CoxMegaScaleConfig} into integer masks.
+ * <p>
+ * Every {@link RaidRoom} maps to one bit ({@code 1 << ordinal}). A scouted layout is reduced to a
+ * room mask and a room count, so deciding whether it is desirable is a handful of integer comparisons
+ * with no allocation. The start order and the layout patterns are compiled into one
+ * {@link LayoutPatterns} automaton, matched in a single scan of the layout. The optional
+ * {@link ScoutingRule} must hold as well. Together these make up the "Config" selection; a layout is desirable when it satisfies the
+ * selection, any of the {@link ScoutingProfiles}, or scores at least the score threshold with the
+ * {@link LayoutScorer}. Instances are immutable and are only rebuilt when the config changes.
+ */
+public final class ScoutingCriteria {
+    /**
+     * Name given to the selection of the scouting section when it matches a layout.
+     */
+    public static final String CONFIG_PROFILE = "Config";
+
+    /**
+     * Name given to the layout weights when the score reaches the threshold.
+     */
+    public static final String SCORE_PROFILE = "Score";
+
+    /**
+     * Rooms that are never counted or matched: start, end, scavengers, farming and empty rooms.
+     */
+    public static final int IGNORED_ROOMS_MASK;
+
+    static {
+        int ignored = 0;
+        for (RaidRoom room : RaidRoom.values()) {
+            switch (room.getName().toLowerCase()) {
+                case "farming":
+                case "scavengers":
+                case "end":
+                case "start":
+                case "empty":
+                    ignored |= roomBit(room);
+                    break;
+                default:
+                    break;
+            }
+        }
+        IGNORED_ROOMS_MASK = ignored;
+    }
+
+    private final int requiredMask;
+    private final int minRooms;
+    private final int maxRooms;
+    private final LayoutPatterns orderPatterns;
+
+    // Patterns of the start order and the layout patterns; at least one of each must match
+    private final long startOrders;
+    private final long layoutOrders;
+    private final ScoutingRule rule;
+    private final ScoutingProfiles profiles;
+    private final LayoutScorer scorer;
+    private final int scoreThreshold;
+
+    private ScoutingCriteria(int requiredMask, int minRooms, int maxRooms, LayoutPatterns orderPatterns,
+                             long startOrders, long layoutOrders, ScoutingRule rule, ScoutingProfiles profiles,
+                             LayoutScorer scorer, int scoreThreshold) {
+        this.requiredMask = requiredMask;
+        this.minRooms = minRooms;
+        this.maxRooms = maxRooms;
+        this.orderPatterns = orderPatterns;
+        this.startOrders = startOrders;
+        this.layoutOrders = layoutOrders;
+        this.rule = rule;
+        this.profiles = profiles;
+        this.scorer = scorer;
+        this.scoreThreshold = scoreThreshold;
+    }
+
+    /**
+     * Compiles the scouting section of the config. This reads every config proxy once and should
+     * only be called on startup and when the config changes.
+     *
+     * @param config The plugin config.
+     * @return The compiled criteria.
+     * @throws RuleSyntaxException If the scouting rule, the profiles, the layout weights or the layout
+     *                             patterns are not valid.
+     */
+    public static ScoutingCriteria compile(CoxMegaScaleConfig config) {
+        return compile(config, ScoutingRule.parse(config.scoutingRule()), ScoutingProfiles.parse(config.scoutingProfiles()),
+                LayoutScorer.parse(config.layoutWeights()), LayoutPatterns.parse(config.layoutPatterns()));
+    }
+
+    /**
+     * Compiles the scouting section of the config with an already parsed rule, profiles, weights and
+     * patterns, e.g. {@link ScoutingRule#NONE} in place of a rule that is not valid.
+     *
+     * @param config   The plugin config.
+     * @param rule     The scouting rule.
+     * @param profiles The scouting profiles.
+     * @param scorer   The layout weights.
+     * @param patterns The layout patterns.
+     * @return The compiled criteria.
+     */
+    public static ScoutingCriteria compile(CoxMegaScaleConfig config, ScoutingRule rule, ScoutingProfiles profiles,
+                                           LayoutScorer scorer, LayoutPatterns patterns) {
+        int required = 0;
+        required |= config.includeMystics() ? roomBit(RaidRoom.MYSTICS) : 0;
+        required |= config.includeShamans() ? roomBit(RaidRoom.SHAMANS) : 0;
+        required |= config.includeVasa() ? roomBit(RaidRoom.VASA) : 0;
+        required |= config.includeTightrope() ? roomBit(RaidRoom.TIGHTROPE) : 0;
+        required |= config.includeThieving() ? roomBit(RaidRoom.THIEVING) : 0;
+        required |= config.includeIceDemon() ? roomBit(RaidRoom.ICE_DEMON) : 0;
+        required |= config.includeGuardians() ? roomBit(RaidRoom.GUARDIANS) : 0;
+        required |= config.includeVespula() ? roomBit(RaidRoom.VESPULA) : 0;
+        required |= config.includeTekton() ? roomBit(RaidRoom.TEKTON) : 0;
+        required |= config.includeVanguards() ? roomBit(RaidRoom.VANGUARDS) : 0;
+        required |= config.includeMuttadiles() ? roomBit(RaidRoom.MUTTADILES) : 0;
+
+        int minRooms = 0;
+        int maxRooms = Integer.MAX_VALUE;
+        RoomCount roomCount = config.roomCount();
+        if (roomCount == RoomCount.FIVE) {
+            minRooms = maxRooms = 5;
+        } else if (roomCount == RoomCount.SIX) {
+            minRooms = maxRooms = 6;
+        }
+
+        // The start order patterns come first, followed by the layout patterns, all in one automaton
+        List<String> orders = new ArrayList<>(config.raidStartOrder().getPatterns());
+        long startOrders = orders.isEmpty() ? 0 : -1L >>> (64 - orders.size());
+        long layoutOrders = 0;
+        for (String pattern : patterns.getPatterns()) {
+            layoutOrders |= 1L << orders.size();
+            orders.add(pattern);
+        }
+        LayoutPatterns orderPatterns = startOrders == 0 ? patterns : LayoutPatterns.compile(orders);
+
+        return new ScoutingCriteria(required, minRooms, maxRooms, orderPatterns, startOrders, layoutOrders, rule,
+                profiles, scorer, config.scoreThreshold());
+    }
+
+    /**
+     * Returns the bit used for a room in room masks.
+     *
+     * @param room The raid room.
+     * @return The room's bit.
+     */
+    public static int roomBit(RaidRoom room) {
+        return 1 << room.ordinal();
+    }
+
+    /**
+     * @return True if at least one room has been selected or a rule has been written; the selection
+     * matches no layout otherwise.
+     */
+    public boolean hasSelectedRooms() {
+        return requiredMask != 0 || !rule.isEmpty();
+    }
+
+    /**
+     * @return The scouting profiles.
+     */
+    public ScoutingProfiles getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * @return The layout weights.
+     */
+    public LayoutScorer getScorer() {
+        return scorer;
+    }
+
+    /**
+     * @return The score at which a layout is desirable, unless the threshold has been relaxed.
+     */
+    public int getScoreThreshold() {
+        return scoreThreshold;
+    }
+
+    /**
+     * @param score A layout score, see {@link LayoutScorer#score(long)}.
+     * @param relax How far the threshold has been lowered, 0 if not at all.
+     * @return True if the score makes a layout desirable; never without weights.
+     */
+    public boolean acceptsScore(int score, int relax) {
+        return !scorer.isEmpty() && score >= scoreThreshold - relax;
+    }
+
+    /**
+     * Checks a scouted layout against the selected rooms and room count.
+     *
+     * @param roomMask  The mask of counted rooms in the layout.
+     * @param roomCount The number of counted rooms in the layout.
+     * @return True if the layout satisfies them.
+     */
+    private boolean matchesSelection(int roomMask, int roomCount) {
+        return (roomMask & requiredMask) == requiredMask
+                && roomCount >= minRooms && roomCount <= maxRooms;
+    }
+
+    /**
+     * Checks a scouted layout against the start order and the layout patterns in one scan.
+     *
+     * @param layoutKey The packed layout.
+     * @return True if the layout has the start order and matches at least one layout pattern.
+     */
+    private boolean matchesOrder(long layoutKey) {
+        if (orderPatterns.size() == 0) {
+            return true;
+        }
+        long matched = orderPatterns.match(layoutKey);
+        return (startOrders == 0 || (matched & startOrders) != 0) && (layoutOrders == 0 || (matched & layoutOrders) != 0);
+    }
+
+    /**
+     * Checks a packed layout against the compiled criteria without allocating.
+     *
+     * @param layoutKey The packed layout, see {@link LayoutKey#pack}.
+     * @return True if the layout is desirable; layouts that could not be packed never are.
+     */
+    public boolean matches(long layoutKey) {
+        if (layoutKey == LayoutKey.NO_KEY) {
+            return false;
+        }
+
+        int roomMask = LayoutKey.roomMask(layoutKey);
+        return matchesConfig(layoutKey, roomMask, LayoutKey.roomCount(layoutKey))
+                || profiles.match(layoutKey, roomMask) != 0
+                || acceptsScore(scorer.score(layoutKey), 0);
+    }
+
+    /**
+     * Evaluates a packed layout.
+     *
+     * @param layoutKey The packed layout, see {@link LayoutKey#pack}.
+     * @return The verdict; layouts that could not be packed are never desirable.
+     */
+    public ScoutVerdict evaluate(long layoutKey) {
+        if (layoutKey == LayoutKey.NO_KEY) {
+            return new ScoutVerdict(layoutKey, false, 0, "", 0);
+        }
+
+        int roomMask = LayoutKey.roomMask(layoutKey);
+        int roomCount = LayoutKey.roomCount(layoutKey);
+        boolean config = matchesConfig(layoutKey, roomMask, roomCount);
+        long matchedProfiles = profiles.match(layoutKey, roomMask);
+        int score = scorer.score(layoutKey);
+        boolean scored = acceptsScore(score, 0);
+
+        // Verdicts are cached per layout, so the names are only joined once
+        String matched = profiles.names(matchedProfiles);
+        if (config) {
+            matched = matched.isEmpty() ? CONFIG_PROFILE : CONFIG_PROFILE + ", " + matched;
+        }
+        if (scored) {
+            matched = matched.isEmpty() ? SCORE_PROFILE : matched + ", " + SCORE_PROFILE;
+        }
+        return new ScoutVerdict(layoutKey, config || matchedProfiles != 0 || scored, roomCount, matched, score);
+    }
+
+    private boolean matchesConfig(long layoutKey, int roomMask, int roomCount) {
+        return hasSelectedRooms()
+                && matchesSelection(roomMask, roomCount)
+                && matchesOrder(layoutKey)
+                && rule.matches(layoutKey, roomMask);
+    }
+
+    @Override
+    public String toString() {
+        return "ScoutingCriteria(required=" + Integer.toBinaryString(requiredMask)
+                + ", rooms=" + minRooms + ".." + maxRooms
+                + ", orders=" + orderPatterns
+                + ", rule=" + rule
+                + ", profiles=" + profiles
+                + ", weights=" + scorer
+                + ", scoreThreshold=" + scoreThreshold + ")";
+    }
+}
@@ -0,0 +1,279 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.client.plugins.raids.RaidRoom;
+
+/**
+ * Named scouting profiles, e.g. a speed layout and a points layout, evaluated together in one pass.
+ * <p>
+ * Profiles are written one per line as {@code name: rule} in the rule language of
+ * {@link RuleParser}; blank lines and lines starting with {@code #} are ignored. The distinct
+ * conditions (atoms) of every profile share one index of up to {@value #MAX_CONDITIONS} bits. A
+ * scouted layout is first turned into a bitset of the conditions it satisfies: room presence bits
+ * come from an inverted index of room to condition bits, every other condition is tested once.
+ * Each profile is then an OR of terms, a term being the condition bits that must be set and those
+ * that must be clear, so the cost grows with the distinct conditions rather than with the number
+ * of profiles. Instances are immutable.
+ */
+public final class ScoutingProfiles {
+    public static final int MAX_PROFILES = 64;
+    public static final int MAX_CONDITIONS = 64;
+
+    // Terms of a single profile, bounds the expansion of nested | under &
+    private static final int MAX_TERMS = 256;
+
+    /**
+     * No profiles; no layout matches.
+     */
+    public static final ScoutingProfiles NONE = new ScoutingProfiles(new String[0], new long[RaidRoom.values().length],
+            new RuleNode[0], new long[0], new int[1], new long[0], new long[0]);
+
+    private final String[] names;
+
+    // Inverted index: condition bits set by each room, by room ordinal
+    private final long[] presenceBits;
+
+    // Conditions other than room presence, with their bits
+    private final RuleNode[] conditions;
+    private final long[] conditionBits;
+
+    // Terms of profile i are termStart[i] until termStart[i + 1]
+    private final int[] termStart;
+    private final long[] termRequired;
+    private final long[] termForbidden;
+
+    private ScoutingProfiles(String[] names, long[] presenceBits, RuleNode[] conditions, long[] conditionBits,
+                             int[] termStart, long[] termRequired, long[] termForbidden) {
+        this.names = names;
+        this.presenceBits = presenceBits;
+        this.conditions = conditions;
+        this.conditionBits = conditionBits;
+        this.termStart = termStart;
+        this.termRequired = termRequired;
+        this.termForbidden = termForbidden;
+    }
+
+    /**
+     * Parses and indexes profiles.
+     *
+     * @param text The profiles, one {@code name: rule} per line.
+     * @return The profiles; {@link #NONE} for blank text.
+     * @throws RuleSyntaxException If a line is not a valid profile; the position is the column in that line.
+     */
+    public static ScoutingProfiles parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+
+        List<String> names = new ArrayList<>();
+        List<RuleNode> rules = new ArrayList<>();
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String name = colon < 0 ? "" : line.substring(0, colon).trim();
+            if (name.isEmpty()) {
+                throw new RuleSyntaxException("Line " + (i + 1) + ": expected 'name: rule'", Math.max(colon, 0));
+            }
+            if (names.contains(name)) {
+                throw new RuleSyntaxException("Line " + (i + 1) + ": duplicate profile '" + name + "'", 0);
+            }
+            if (names.size() == MAX_PROFILES) {
+                throw new RuleSyntaxException("Line " + (i + 1) + ": more than " + MAX_PROFILES + " profiles", 0);
+            }
+
+            try {
+                names.add(name);
+                rules.add(RuleParser.parse(line.substring(colon + 1)));
+            } catch (RuleSyntaxException e) {
+                throw new RuleSyntaxException("Profile '" + name + "' on line " + (i + 1) + ": " + e.getReason(),
+                        colon + 1 + e.getPosition());
+            }
+        }
+
+        return names.isEmpty() ? NONE : index(names, rules);
+    }
+
+    private static ScoutingProfiles index(List<String> names, List<RuleNode> rules) {
+        Map<RuleNode, Integer> atoms = new HashMap<>();
+        long[] presenceBits = new long[RaidRoom.values().length];
+        List<RuleNode> conditions = new ArrayList<>();
+        List<Long> conditionBits = new ArrayList<>();
+
+        int[] termStart = new int[rules.size() + 1];
+        List<long[]> terms = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            List<long[]> profileTerms = terms(rules.get(i), false, atoms, names.get(i));
+            termStart[i] = terms.size();
+            terms.addAll(profileTerms);
+        }
+        termStart[rules.size()] = terms.size();
+
+        for (Map.Entry<RuleNode, Integer> atom : atoms.entrySet()) {
+            long bit = 1L << atom.getValue();
+            if (atom.getKey() instanceof RuleNode.Present) {
+                presenceBits[((RuleNode.Present) atom.getKey()).room.ordinal()] |= bit;
+            } else {
+                conditions.add(atom.getKey());
+                conditionBits.add(bit);
+            }
+        }
+
+        long[] termRequired = new long[terms.size()];
+        long[] termForbidden = new long[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            termRequired[i] = terms.get(i)[0];
+            termForbidden[i] = terms.get(i)[1];
+        }
+
+        return new ScoutingProfiles(names.toArray(new String[0]), presenceBits, conditions.toArray(new RuleNode[0]),
+                conditionBits.stream().mapToLong(Long::longValue).toArray(), termStart, termRequired, termForbidden);
+    }
+
+    // Expands a rule into terms of {required bits, forbidden bits}, pushing negations down to the atoms
+    private static List<long[]> terms(RuleNode node, boolean negated, Map<RuleNode, Integer> atoms, String profile) {
+        if (node instanceof RuleNode.Not) {
+            return terms(((RuleNode.Not) node).child, !negated, atoms, profile);
+        }
+
+        boolean and = node instanceof RuleNode.And;
+        if (and || node instanceof RuleNode.Or) {
+            RuleNode[] children = and ? ((RuleNode.And) node).children : ((RuleNode.Or) node).children;
+            // De Morgan: a negated & is an | of negated children, and the other way around
+            if (and != negated) {
+                List<long[]> product = new ArrayList<>();
+                product.add(new long[2]);
+                for (RuleNode child : children) {
+                    product = product(product, terms(child, negated, atoms, profile), profile);
+                }
+                return product;
+            }
+
+            List<long[]> union = new ArrayList<>();
+            for (RuleNode child : children) {
+                union.addAll(terms(child, negated, atoms, profile));
+            }
+            checkTerms(union.size(), profile);
+            return union;
+        }
+
+        Integer index = atoms.get(node);
+        if (index == null) {
+            if (atoms.size() == MAX_CONDITIONS) {
+                throw new RuleSyntaxException("Profiles use more than " + MAX_CONDITIONS + " distinct conditions", 0);
+            }
+            index = atoms.size();
+            atoms.put(node, index);
+        }
+
+        List<long[]> single = new ArrayList<>(1);
+        long bit = 1L << index;
+        single.add(negated ? new long[]{0, bit} : new long[]{bit, 0});
+        return single;
+    }
+
+    private static List<long[]> product(List<long[]> left, List<long[]> right, String profile) {
+        List<long[]> product = new ArrayList<>();
+        for (long[] a : left) {
+            for (long[] b : right) {
+                long required = a[0] | b[0];
+                long forbidden = a[1] | b[1];
+                // Terms that need a condition both set and clear never match
+                if ((required & forbidden) == 0) {
+                    product.add(new long[]{required, forbidden});
+                }
+            }
+        }
+        checkTerms(product.size(), profile);
+        return product;
+    }
+
+    private static void checkTerms(int count, String profile) {
+        if (count > MAX_TERMS) {
+            throw new RuleSyntaxException("Profile '" + profile + "' is too complex, nest fewer '|' under '&'", 0);
+        }
+    }
+
+    /**
+     * Evaluates every profile against a layout. Does not allocate.
+     *
+     * @param layoutKey The packed layout.
+     * @param roomMask  The layout's room mask, see {@link LayoutKey#roomMask(long)}.
+     * @return The mask of matching profiles, bit i for profile i.
+     */
+    public long match(long layoutKey, int roomMask) {
+        if (names.length == 0) {
+            return 0;
+        }
+
+        long bits = 0;
+        for (int rooms = roomMask; rooms != 0; rooms &= rooms - 1) {
+            bits |= presenceBits[Integer.numberOfTrailingZeros(rooms)];
+        }
+        for (int i = 0; i < conditions.length; i++) {
+            if (conditions[i].test(layoutKey, roomMask)) {
+                bits |= conditionBits[i];
+            }
+        }
+
+        long matched = 0;
+        for (int profile = 0; profile < names.length; profile++) {
+            for (int term = termStart[profile]; term < termStart[profile + 1]; term++) {
+                if ((bits & termRequired[term]) == termRequired[term] && (bits & termForbidden[term]) == 0) {
+                    matched |= 1L << profile;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return The number of profiles.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return The number of distinct conditions shared by the profiles.
+     */
+    public int getConditionCount() {
+        int count = conditions.length;
+        for (long bits : presenceBits) {
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * @param matched A mask of profiles, see {@link #match(long, int)}.
+     * @return The names of the profiles, comma separated.
+     */
+    public String names(long matched) {
+        StringBuilder builder = new StringBuilder();
+        for (long rest = matched; rest != 0; rest &= rest - 1) {
+            int profile = Long.numberOfTrailingZeros(rest);
+            if (profile < names.length) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(names[profile]);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", names);
+    }
+}
@@ -0,0 +1,59 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+/**
+ * A scouting rule written in the rule language of {@link RuleParser}, e.g.
+ * {@code tekton before vasa & !vespula & puzzle in (thieving, tightrope) & rooms<=6}.
+ * <p>
+ * The rule is parsed once and compiled into a tree of room mask and position checks, so testing a
+ * layout costs about as much as a hand-written condition and never allocates. Instances are
+ * immutable.
+ */
+public final class ScoutingRule {
+    /**
+     * The empty rule, which every layout satisfies.
+     */
+    public static final ScoutingRule NONE = new ScoutingRule("", null);
+
+    private final String text;
+    private final RuleNode root;
+
+    private ScoutingRule(String text, RuleNode root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    /**
+     * Parses and compiles a rule.
+     *
+     * @param text The rule text; blank text gives {@link #NONE}.
+     * @return The compiled rule.
+     * @throws RuleSyntaxException If the text is not a valid rule.
+     */
+    public static ScoutingRule parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+        return new ScoutingRule(text.trim(), RuleParser.parse(text).compile());
+    }
+
+    /**
+     * @param layoutKey The packed layout.
+     * @param roomMask  The layout's room mask, see {@link LayoutKey#roomMask(long)}.
+     * @return True if the layout satisfies the rule.
+     */
+    public boolean matches(long layoutKey, int roomMask) {
+        return root == null || root.test(layoutKey, roomMask);
+    }
+
+    /**
+     * @return True for the empty rule.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,197 @@
+package net.runelite.client.plugins.coxmegascale.supplies;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutingCriteria;
+import net.runelite.client.plugins.raids.RaidRoom;
+
+/**
+ * Plans the Chambers of Xeric brew chain, fish, herbs and seeds for a party.
+ * <p>
+ * Potions are planned from a base amount covering Olm plus a per-player amount for every scouted
+ * room, in quarter potions so the amounts stay integer. Herbs and secondaries follow from the potion
+ * recipes:
+ * <ul>
+ * <li>overload: elder (golpar + stinkhorn), twisted (golpar + cicely) and kodai (golpar + endarkened
+ * juice) potions plus a noxifer</li>
+ * <li>revitalisation: buchu leaf + stinkhorn</li>
+ * <li>prayer enhance: buchu leaf + cicely</li>
+ * <li>Xeric's aid: buchu leaf + endarkened juice</li>
+ * </ul>
+ * The plans for party sizes 1 to {@value #MAX_PARTY_SIZE} are precomputed per room mask, the
+ * unscouted one at construction and others on first use, so a lookup is an array read.
+ * Must be used from the client thread.
+ */
+public class SuppliesPlanner
+{
+    public static final int MAX_PARTY_SIZE = 100;
+
+    /**
+     * Room mask used before a raid is scouted; only the base amounts are planned.
+     */
+    public static final int UNSCOUTED = 0;
+
+    // Average herbs harvested from one seed in the farming room
+    static final int HERBS_PER_SEED = 4;
+
+    private static final int QUARTERS = 4;
+
+    private static final int MAX_CACHED_MASKS = 16;
+
+    private static final SupplyItem[] ITEMS = SupplyItem.values();
+    private static final RaidRoom[] ROOMS = RaidRoom.values();
+
+    // Base amounts in quarter potions: per player, and fixed for the whole party
+    private static final int[] BASE_PER_PLAYER = new int[ITEMS.length];
+    private static final int[] BASE_FIXED = new int[ITEMS.length];
+
+    // Extra quarter potions per player, indexed by room ordinal then item ordinal
+    private static final int[][] ROOM_PER_PLAYER = new int[ROOMS.length][ITEMS.length];
+
+    static
+    {
+        base(SupplyItem.OVERLOAD, 5, 5);
+        base(SupplyItem.REVITALISATION, 2, 4);
+        base(SupplyItem.PRAYER_ENHANCE, 2, 4);
+        base(SupplyItem.XERICS_AID, 4, 4);
+        base(SupplyItem.FISH, 80, 80);
+
+        room(RaidRoom.TEKTON, SupplyItem.REVITALISATION, 1);
+        room(RaidRoom.TEKTON, SupplyItem.FISH, 8);
+        room(RaidRoom.MUTTADILES, SupplyItem.PRAYER_ENHANCE, 1);
+        room(RaidRoom.MUTTADILES, SupplyItem.FISH, 8);
+        room(RaidRoom.GUARDIANS, SupplyItem.FISH, 4);
+        room(RaidRoom.VESPULA, SupplyItem.PRAYER_ENHANCE, 1);
+        room(RaidRoom.VESPULA, SupplyItem.REVITALISATION, 1);
+        room(RaidRoom.VESPULA, SupplyItem.FISH, 8);
+        room(RaidRoom.SHAMANS, SupplyItem.FISH, 8);
+        room(RaidRoom.VASA, SupplyItem.FISH, 4);
+        room(RaidRoom.VANGUARDS, SupplyItem.PRAYER_ENHANCE, 1);
+        room(RaidRoom.VANGUARDS, SupplyItem.FISH, 8);
+        room(RaidRoom.MYSTICS, SupplyItem.PRAYER_ENHANCE, 1);
+        room(RaidRoom.MYSTICS, SupplyItem.FISH, 4);
+        room(RaidRoom.ICE_DEMON, SupplyItem.FISH, 4);
+    }
+
+    // Plans indexed by party size, per room mask; access ordered for LRU eviction
+    private final Map<Integer, SupplyPlan[]> tables = new LinkedHashMap<Integer, SupplyPlan[]>(MAX_CACHED_MASKS, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, SupplyPlan[]> eldest)
+        {
+            return size() > MAX_CACHED_MASKS;
+        }
+    };
+
+    private final SupplyPlan[] unscoutedTable;
+
+    public SuppliesPlanner()
+    {
+        unscoutedTable = buildTable(UNSCOUTED);
+    }
+
+    /**
+     * Returns the supplies for a party.
+     *
+     * @param roomMask  The scouted rooms as {@link ScoutingCriteria#roomBit} bits, or {@link #UNSCOUTED}.
+     * @param partySize The party size.
+     * @return The plan.
+     */
+    public SupplyPlan plan(int roomMask, int partySize)
+    {
+        partySize = Math.max(partySize, 1);
+        if (partySize > MAX_PARTY_SIZE)
+        {
+            return compute(roomMask, partySize);
+        }
+
+        if (roomMask == UNSCOUTED)
+        {
+            return unscoutedTable[partySize];
+        }
+
+        SupplyPlan[] table = tables.get(roomMask);
+        if (table == null)
+        {
+            table = buildTable(roomMask);
+            tables.put(roomMask, table);
+        }
+        return table[partySize];
+    }
+
+    private static SupplyPlan[] buildTable(int roomMask)
+    {
+        SupplyPlan[] table = new SupplyPlan[MAX_PARTY_SIZE + 1];
+        for (int partySize = 1; partySize <= MAX_PARTY_SIZE; partySize++)
+        {
+            table[partySize] = compute(roomMask, partySize);
+        }
+        return table;
+    }
+
+    /**
+     * Computes a plan without the tables.
+     *
+     * @param roomMask  The scouted rooms.
+     * @param partySize The party size, at least 1.
+     * @return The plan.
+     */
+    static SupplyPlan compute(int roomMask, int partySize)
+    {
+        int[] amounts = new int[ITEMS.length];
+
+        // Potions and fish: base plus every scouted room, rounded up to whole items
+        for (int item = 0; item < ITEMS.length; item++)
+        {
+            int perPlayer = BASE_PER_PLAYER[item];
+            for (RaidRoom room : ROOMS)
+            {
+                if ((roomMask & ScoutingCriteria.roomBit(room)) != 0)
+                {
+                    perPlayer += ROOM_PER_PLAYER[room.ordinal()][item];
+                }
+            }
+
+            int quarters = perPlayer * partySize + BASE_FIXED[item];
+            amounts[item] = (quarters + QUARTERS - 1) / QUARTERS;
+        }
+
+        int overloads = amounts[SupplyItem.OVERLOAD.ordinal()];
+        int revitalisations = amounts[SupplyItem.REVITALISATION.ordinal()];
+        int prayerEnhances = amounts[SupplyItem.PRAYER_ENHANCE.ordinal()];
+        int xericsAids = amounts[SupplyItem.XERICS_AID.ordinal()];
+
+        // Herbs and secondaries from the recipes
+        int golpar = 3 * overloads;
+        int buchu = revitalisations + prayerEnhances + xericsAids;
+        int noxifer = overloads;
+        amounts[SupplyItem.GOLPAR.ordinal()] = golpar;
+        amounts[SupplyItem.BUCHU_LEAF.ordinal()] = buchu;
+        amounts[SupplyItem.NOXIFER.ordinal()] = noxifer;
+        amounts[SupplyItem.STINKHORN_MUSHROOM.ordinal()] = overloads + revitalisations;
+        amounts[SupplyItem.CICELY.ordinal()] = overloads + prayerEnhances;
+        amounts[SupplyItem.ENDARKENED_JUICE.ordinal()] = overloads + xericsAids;
+
+        amounts[SupplyItem.GOLPAR_SEED.ordinal()] = seedsFor(golpar);
+        amounts[SupplyItem.BUCHU_SEED.ordinal()] = seedsFor(buchu);
+        amounts[SupplyItem.NOXIFER_SEED.ordinal()] = seedsFor(noxifer);
+
+        return new SupplyPlan(partySize, roomMask, amounts);
+    }
+
+    private static int seedsFor(int herbs)
+    {
+        return (herbs + HERBS_PER_SEED - 1) / HERBS_PER_SEED;
+    }
+
+    private static void base(SupplyItem item, int perPlayerQuarters, int fixedQuarters)
+    {
+        BASE_PER_PLAYER[item.ordinal()] = perPlayerQuarters;
+        BASE_FIXED[item.ordinal()] = fixedQuarters;
+    }
+
+    private static void room(RaidRoom room, SupplyItem item, int perPlayerQuarters)
+    {
+        ROOM_PER_PLAYER[room.ordinal()][item.ordinal()] = perPlayerQuarters;
+    }
+}
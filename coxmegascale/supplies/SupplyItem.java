@@ -0,0 +1,35 @@
+package net.runelite.client.plugins.coxmegascale.supplies;
+
+/**
+ * Supplies planned by the {@link SuppliesPlanner}, in display order.
+ */
+public enum SupplyItem
+{
+    OVERLOAD("Overloads"),
+    REVITALISATION("Revitalisations"),
+    PRAYER_ENHANCE("Prayer Enhances"),
+    XERICS_AID("Xeric's Aids"),
+    FISH("Fish"),
+    GOLPAR("Golpar"),
+    BUCHU_LEAF("Buchu Leaves"),
+    NOXIFER("Noxifer"),
+    STINKHORN_MUSHROOM("Stinkhorns"),
+    CICELY("Cicely"),
+    ENDARKENED_JUICE("Endarkened Juice"),
+    GOLPAR_SEED("Golpar Seeds"),
+    BUCHU_SEED("Buchu Seeds"),
+    NOXIFER_SEED("Noxifer Seeds");
+
+    private final String name;
+
+    SupplyItem(String name)
+    {
+        this.name = name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
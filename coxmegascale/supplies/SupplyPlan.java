@@ -0,0 +1,34 @@
+package net.runelite.client.plugins.coxmegascale.supplies;
+
+import lombok.Getter;
+
+/**
+ * Immutable amounts of every {@link SupplyItem} for one party size and set of rooms.
+ */
+public final class SupplyPlan
+{
+    @Getter
+    private final int partySize;
+
+    @Getter
+    private final int roomMask;
+
+    // Indexed by SupplyItem ordinal
+    private final int[] amounts;
+
+    SupplyPlan(int partySize, int roomMask, int[] amounts)
+    {
+        this.partySize = partySize;
+        this.roomMask = roomMask;
+        this.amounts = amounts;
+    }
+
+    /**
+     * @param item The supply.
+     * @return The amount needed.
+     */
+    public int get(SupplyItem item)
+    {
+        return amounts[item.ordinal()];
+    }
+}
@@ -0,0 +1,161 @@
+package net.runelite.client.plugins.coxmegascale.trace;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies over fixed buckets.
+ * <p>
+ * Bucket i counts the values above bound i - 1 and up to bound i; the last bucket counts the
+ * values above every bound. Recording is a binary search over the bounds and never allocates.
+ * Percentiles are reported as the upper bound of the bucket they fall in, or as the largest value
+ * for the last bucket, so they are accurate to one bucket. Not thread safe.
+ */
+public class LatencyHistogram
+{
+    /**
+     * Bounds for nanosecond latencies, 1-2-5 steps from 1 microsecond to 10 seconds.
+     */
+    public static final long[] NANOS_BOUNDS = {
+            1_000L, 2_000L, 5_000L,
+            10_000L, 20_000L, 50_000L,
+            100_000L, 200_000L, 500_000L,
+            1_000_000L, 2_000_000L, 5_000_000L,
+            10_000_000L, 20_000_000L, 50_000_000L,
+            100_000_000L, 200_000_000L, 500_000_000L,
+            1_000_000_000L, 2_000_000_000L, 5_000_000_000L,
+            10_000_000_000L
+    };
+
+    /**
+     * Bounds for game tick latencies, one bucket per tick for the first ticks.
+     */
+    public static final long[] TICKS_BOUNDS = {0, 1, 2, 3, 4, 5, 6, 8, 10, 15, 20, 30, 50, 100, 200};
+
+    private final long[] bounds;
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * @param bounds The inclusive upper bounds of the buckets, ascending.
+     */
+    public LatencyHistogram(long[] bounds)
+    {
+        for (int i = 1; i < bounds.length; i++)
+        {
+            if (bounds[i] <= bounds[i - 1])
+            {
+                throw new IllegalArgumentException("Bounds must be ascending: " + Arrays.toString(bounds));
+            }
+        }
+
+        this.bounds = bounds.clone();
+        this.counts = new long[bounds.length + 1];
+    }
+
+    /**
+     * Records a latency. Does not allocate.
+     *
+     * @param value The latency; negative values count as 0.
+     */
+    public void record(long value)
+    {
+        long latency = Math.max(value, 0);
+        int bucket = Arrays.binarySearch(bounds, latency);
+        counts[bucket >= 0 ? bucket : -bucket - 1]++;
+        count++;
+        sum += latency;
+        max = Math.max(max, latency);
+    }
+
+    /**
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound of the bucket holding the percentile, the largest value if it is in the
+     * last bucket, or 0 without values.
+     */
+    public long getPercentile(double percentile)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        // Rank of the value, 1 based
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return Math.min(bounds[i], max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return The mean of the recorded values, 0 without values.
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @return The largest recorded value, 0 without values.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * @return The inclusive upper bounds of the buckets.
+     */
+    public long[] getBounds()
+    {
+        return bounds.clone();
+    }
+
+    /**
+     * @return The count of every bucket, the last one for values above every bound.
+     */
+    public long[] getCounts()
+    {
+        return counts.clone();
+    }
+
+    /**
+     * Removes every value.
+     */
+    public void clear()
+    {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * @return A copy of the histogram, independent of later values.
+     */
+    public LatencyHistogram copy()
+    {
+        LatencyHistogram copy = new LatencyHistogram(bounds);
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.count = count;
+        copy.sum = sum;
+        copy.max = max;
+        return copy;
+    }
+}
@@ -0,0 +1,297 @@
+package net.runelite.client.plugins.coxmegascale.trace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Measures how fast a scouted layout turns into the right left-click on the steps.
+ * <p>
+ * Every newly scouted layout starts a cycle stamped with {@link System#nanoTime()} and the game tick.
+ * The first time each later {@link Stage} is reached in the cycle, its latency since the scout is
+ * recorded in a nanosecond and a tick {@link LatencyHistogram}; a stage reached again, or without a
+ * cycle, is ignored. Recording never allocates. The summary lines for the debug overlay are only
+ * rebuilt after new scouts or samples. Must be used on the client thread; {@link #copy()} takes a copy that
+ * can be written to a file elsewhere.
+ */
+public class ScoutLatencyTracker
+{
+    /**
+     * Points of a scout cycle whose latency since the scout is measured.
+     */
+    public enum Stage
+    {
+        /**
+         * The scouted layout was judged.
+         */
+        VERDICT("Verdict"),
+        /**
+         * The first Reload or Climb menu entry on the steps was set up with the new verdict.
+         */
+        MENU_ENTRY("Menu Entry"),
+        /**
+         * Reload or Climb was clicked.
+         */
+        CLICK("Click");
+
+        private final String name;
+
+        Stage(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] nanos = new LatencyHistogram[STAGES.length];
+    private final LatencyHistogram[] ticks = new LatencyHistogram[STAGES.length];
+
+    // Start of the current cycle; reached stages are bits of reachedStages
+    private boolean cycleStarted;
+    private long scoutNanos;
+    private int scoutTick;
+    private int reachedStages;
+    private long cycles;
+
+    private String[] summary = new String[0];
+    private boolean summaryStale = true;
+
+    public ScoutLatencyTracker()
+    {
+        for (int i = 0; i < STAGES.length; i++)
+        {
+            nanos[i] = new LatencyHistogram(LatencyHistogram.NANOS_BOUNDS);
+            ticks[i] = new LatencyHistogram(LatencyHistogram.TICKS_BOUNDS);
+        }
+    }
+
+    /**
+     * Starts a cycle for a newly scouted layout.
+     *
+     * @param nanoTime The {@link System#nanoTime()} the scout arrived at.
+     * @param tick     The game tick.
+     */
+    public void scouted(long nanoTime, int tick)
+    {
+        cycleStarted = true;
+        scoutNanos = nanoTime;
+        scoutTick = tick;
+        reachedStages = 0;
+        cycles++;
+        summaryStale = true;
+    }
+
+    /**
+     * @param stage The stage.
+     * @return True if a cycle is running and has not reached the stage yet, i.e. whether calling
+     * {@link #reached(Stage, long, int)} would record anything. Lets callers skip reading the clock.
+     */
+    public boolean isPending(Stage stage)
+    {
+        return cycleStarted && (reachedStages & 1 << stage.ordinal()) == 0;
+    }
+
+    /**
+     * Records the latency of a stage, the first time it is reached in the current cycle.
+     *
+     * @param stage    The stage.
+     * @param nanoTime The {@link System#nanoTime()} the stage was reached at.
+     * @param tick     The game tick.
+     * @return The latency in ticks, or -1 if nothing was recorded.
+     */
+    public int reached(Stage stage, long nanoTime, int tick)
+    {
+        if (!isPending(stage))
+        {
+            return -1;
+        }
+
+        reachedStages |= 1 << stage.ordinal();
+        nanos[stage.ordinal()].record(nanoTime - scoutNanos);
+        ticks[stage.ordinal()].record(tick - scoutTick);
+        summaryStale = true;
+        return tick - scoutTick;
+    }
+
+    /**
+     * Ends the current cycle, e.g. when the raid starts or the player leaves; later stages are not
+     * recorded until the next scout.
+     */
+    public void endCycle()
+    {
+        cycleStarted = false;
+    }
+
+    /**
+     * @param stage The stage.
+     * @return The nanosecond latencies of the stage.
+     */
+    public LatencyHistogram getNanos(Stage stage)
+    {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * @param stage The stage.
+     * @return The tick latencies of the stage.
+     */
+    public LatencyHistogram getTicks(Stage stage)
+    {
+        return ticks[stage.ordinal()];
+    }
+
+    /**
+     * @return The number of scout cycles started.
+     */
+    public long getCycles()
+    {
+        return cycles;
+    }
+
+    /**
+     * Returns the number of scouts, then one line per stage with samples, e.g.
+     * {@code "Verdict:", "p50 20us p99 1.0ms, 0/0t"}, as pairs of label and value: the 50th and 99th
+     * percentile in time, then in ticks. Rebuilt only after new scouts or samples.
+     *
+     * @return The labels and values, alternating.
+     */
+    public String[] getSummary()
+    {
+        if (summaryStale)
+        {
+            summaryStale = false;
+            int lines = 0;
+            String[] built = new String[STAGES.length * 2 + 2];
+            built[lines++] = "Scouts:";
+            built[lines++] = Long.toString(cycles);
+            for (Stage stage : STAGES)
+            {
+                LatencyHistogram stageNanos = nanos[stage.ordinal()];
+                if (stageNanos.getCount() > 0)
+                {
+                    LatencyHistogram stageTicks = ticks[stage.ordinal()];
+                    built[lines++] = stage + ":";
+                    built[lines++] = "p50 " + formatNanos(stageNanos.getPercentile(50))
+                            + " p99 " + formatNanos(stageNanos.getPercentile(99))
+                            + ", " + stageTicks.getPercentile(50) + "/" + stageTicks.getPercentile(99) + "t";
+                }
+            }
+            summary = Arrays.copyOf(built, lines);
+        }
+        return summary;
+    }
+
+    /**
+     * Removes every sample and ends the current cycle.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < STAGES.length; i++)
+        {
+            nanos[i].clear();
+            ticks[i].clear();
+        }
+        cycleStarted = false;
+        cycles = 0;
+        summaryStale = true;
+    }
+
+    /**
+     * @return A copy of the histograms, independent of later samples.
+     */
+    public ScoutLatencyTracker copy()
+    {
+        ScoutLatencyTracker copy = new ScoutLatencyTracker();
+        for (int i = 0; i < STAGES.length; i++)
+        {
+            copy.nanos[i] = nanos[i].copy();
+            copy.ticks[i] = ticks[i].copy();
+        }
+        copy.cycles = cycles;
+        return copy;
+    }
+
+    /**
+     * Writes every stage's count, mean, percentiles and buckets as tab separated lines.
+     *
+     * @param file   The file to write.
+     * @param reason Why the latencies are exported, written on the first line.
+     * @throws IOException If the file cannot be written.
+     */
+    public void dump(File file, String reason) throws IOException
+    {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write("# " + reason + ", " + cycles + " scouts");
+            writer.newLine();
+            writer.write("stage\tunit\tcount\tmean\tp50\tp90\tp99\tmax");
+            writer.newLine();
+            for (Stage stage : STAGES)
+            {
+                writeSummary(writer, stage, "ns", nanos[stage.ordinal()]);
+                writeSummary(writer, stage, "ticks", ticks[stage.ordinal()]);
+            }
+
+            writer.newLine();
+            writer.write("stage\tunit\tupper bound\tcount");
+            writer.newLine();
+            for (Stage stage : STAGES)
+            {
+                writeBuckets(writer, stage, "ns", nanos[stage.ordinal()]);
+                writeBuckets(writer, stage, "ticks", ticks[stage.ordinal()]);
+            }
+        }
+    }
+
+    private static void writeSummary(BufferedWriter writer, Stage stage, String unit, LatencyHistogram histogram)
+            throws IOException
+    {
+        writer.write(stage.name() + "\t" + unit + "\t" + histogram.getCount()
+                + "\t" + String.format("%.1f", histogram.getMean())
+                + "\t" + histogram.getPercentile(50) + "\t" + histogram.getPercentile(90)
+                + "\t" + histogram.getPercentile(99) + "\t" + histogram.getMax());
+        writer.newLine();
+    }
+
+    private static void writeBuckets(BufferedWriter writer, Stage stage, String unit, LatencyHistogram histogram)
+            throws IOException
+    {
+        long[] bounds = histogram.getBounds();
+        long[] counts = histogram.getCounts();
+        for (int i = 0; i < counts.length; i++)
+        {
+            writer.write(stage.name() + "\t" + unit + "\t" + (i < bounds.length ? Long.toString(bounds[i]) : "inf")
+                    + "\t" + counts[i]);
+            writer.newLine();
+        }
+    }
+
+    private static String formatNanos(long nanos)
+    {
+        if (nanos >= 1_000_000_000L)
+        {
+            return String.format("%.1fs", nanos / 1e9);
+        }
+        if (nanos >= 1_000_000L)
+        {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.0fus", nanos / 1e3);
+    }
+}
@@ -0,0 +1,60 @@
+package net.runelite.client.plugins.coxmegascale.trace;
+
+/**
+ * Event types written to the {@link TraceRecorder}, with the meaning of their two payloads.
+ */
+public enum TraceEvent
+{
+    /**
+     * The IN_RAID varbit changed: new value, unused.
+     */
+    IN_RAID_CHANGED,
+    /**
+     * The raid state changed: new {@code RaidState} ordinal, total points.
+     */
+    RAID_STATE,
+    /**
+     * The total points changed: old points, new points.
+     */
+    POINTS,
+    /**
+     * The actual party size changed: old size, new size.
+     */
+    PARTY_SIZE,
+    /**
+     * The drop chances were recomputed: team unique chance in basis points, party size.
+     */
+    DROP_CHANCE,
+    /**
+     * A player died: total deaths, total lost points.
+     */
+    DEATH,
+    /**
+     * A raid was scouted: room count, first-floor room count.
+     */
+    SCOUTED,
+    /**
+     * A scouted layout was judged: 1 if desirable, 1 if the verdict came from the cache.
+     */
+    VERDICT,
+    /**
+     * A steps menu entry was reordered: {@code StepsOption} ordinal, 1 if deprioritized.
+     */
+    MENU_ENTRY,
+    /**
+     * The default steps option was swapped into the left-click slot: {@code StepsOption} ordinal, old index.
+     */
+    MENU_SWAP,
+    /**
+     * The raid was reset: verdict cache size, verdict cache hits.
+     */
+    RAID_RESET,
+    /**
+     * Reload or Climb was clicked on the steps: {@code StepsOption} ordinal, ticks since the layout was scouted or -1.
+     */
+    STEPS_CLICKED,
+    /**
+     * An error was caught: unused, unused.
+     */
+    ERROR
+}
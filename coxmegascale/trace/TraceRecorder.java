@@ -0,0 +1,137 @@
+package net.runelite.client.plugins.coxmegascale.trace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Fixed-size ring of trace records written by the plugin's hot paths.
+ * <p>
+ * A record is a tick, a {@link TraceEvent} and two int payloads, stored in preallocated parallel
+ * arrays, so recording never allocates; once the ring is full the oldest records are overwritten.
+ * {@link #copy()} takes a copy that can be written to a file off the client thread.
+ * Recording must happen on the client thread.
+ */
+public class TraceRecorder
+{
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final TraceEvent[] EVENTS = TraceEvent.values();
+
+    private final int[] ticks;
+    private final byte[] events;
+    private final int[] payloadsA;
+    private final int[] payloadsB;
+    private final int mask;
+
+    // Total records written; the ring holds the last min(written, capacity) of them
+    private long written;
+
+    public TraceRecorder()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of records kept, a power of two.
+     */
+    public TraceRecorder(int capacity)
+    {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        ticks = new int[capacity];
+        events = new byte[capacity];
+        payloadsA = new int[capacity];
+        payloadsB = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Writes a record, overwriting the oldest one when the ring is full.
+     *
+     * @param tick  The game tick.
+     * @param event The event type.
+     * @param a     The first payload.
+     * @param b     The second payload.
+     */
+    public void record(int tick, TraceEvent event, int a, int b)
+    {
+        int index = (int) (written++ & mask);
+        ticks[index] = tick;
+        events[index] = (byte) event.ordinal();
+        payloadsA[index] = a;
+        payloadsB[index] = b;
+    }
+
+    /**
+     * @return The number of records in the ring.
+     */
+    public int size()
+    {
+        return (int) Math.min(written, ticks.length);
+    }
+
+    /**
+     * @return The number of records written since the last clear, including overwritten ones.
+     */
+    public long getWritten()
+    {
+        return written;
+    }
+
+    /**
+     * Removes every record.
+     */
+    public void clear()
+    {
+        written = 0;
+    }
+
+    /**
+     * @return A copy of the ring, independent of later records.
+     */
+    public TraceRecorder copy()
+    {
+        TraceRecorder copy = new TraceRecorder(ticks.length);
+        System.arraycopy(ticks, 0, copy.ticks, 0, ticks.length);
+        System.arraycopy(events, 0, copy.events, 0, events.length);
+        System.arraycopy(payloadsA, 0, copy.payloadsA, 0, payloadsA.length);
+        System.arraycopy(payloadsB, 0, copy.payloadsB, 0, payloadsB.length);
+        copy.written = written;
+        return copy;
+    }
+
+    /**
+     * Writes the records, oldest first, as tab separated lines of tick, event and payloads.
+     *
+     * @param file   The file to write.
+     * @param reason Why the trace is dumped, written on the first line.
+     * @throws IOException If the file cannot be written.
+     */
+    public void dump(File file, String reason) throws IOException
+    {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write("# " + reason + ", " + size() + " of " + written + " records");
+            writer.newLine();
+
+            for (long i = written - size(); i < written; i++)
+            {
+                int index = (int) (i & mask);
+                writer.write(ticks[index] + "\t" + EVENTS[events[index]] + "\t" + payloadsA[index] + "\t" + payloadsB[index]);
+                writer.newLine();
+            }
+        }
+    }
+}
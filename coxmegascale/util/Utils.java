@@ -1,17 +1,86 @@
-package net.runelite.client.plugins.coxmegascale.util;
-
-import net.runelite.client.RuneLite;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-public class Utils
-{
-    private static final Logger log = LoggerFactory.getLogger("Cox Mega Scale");
-
-    public static void log(String message)
-    {
-        log.info("[Cox Mega Scale] " + message);
-    }
-
-    // Add other utility methods as needed
-}
+package net.runelite.client.plugins.coxmegascale.util;
+
+import net.runelite.client.RuneLite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class Utils
+{
+    private static final Logger log = LoggerFactory.getLogger("Cox Mega Scale");
+
+    public static void log(String message)
+    {
+        log.info("[Cox Mega Scale] {}", message);
+    }
+
+    /**
+     * Checks whether a menu text equals a lower-case word once its tags are removed, ignoring case.
+     * Behaves like {@code Text.removeTags(text).toLowerCase().equals(word)} without allocating.
+     *
+     * @param text The menu text, possibly containing tags such as {@code <col=ffff>}.
+     * @param word The word to compare with, in lower case.
+     * @return True if the visible text equals the word.
+     */
+    public static boolean equalsIgnoreTags(String text, String word)
+    {
+        int i = nextVisible(text, 0);
+        for (int j = 0; j < word.length(); j++)
+        {
+            if (i >= text.length() || Character.toLowerCase(text.charAt(i)) != word.charAt(j))
+            {
+                return false;
+            }
+            i = nextVisible(text, i + 1);
+        }
+        return i >= text.length();
+    }
+
+    /**
+     * Checks whether a menu text contains a lower-case word once its tags are removed, ignoring case.
+     * Behaves like {@code Text.removeTags(text).toLowerCase().contains(word)} without allocating.
+     *
+     * @param text The menu text, possibly containing tags such as {@code <col=ffff>}.
+     * @param word The word to look for, in lower case.
+     * @return True if the visible text contains the word.
+     */
+    public static boolean containsIgnoreTags(String text, String word)
+    {
+        if (word.isEmpty())
+        {
+            return true;
+        }
+
+        for (int start = nextVisible(text, 0); start < text.length(); start = nextVisible(text, start + 1))
+        {
+            int i = start;
+            int j = 0;
+            while (i < text.length() && Character.toLowerCase(text.charAt(i)) == word.charAt(j))
+            {
+                if (++j == word.length())
+                {
+                    return true;
+                }
+                i = nextVisible(text, i + 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first character at or after {@code index} that is not part of a tag.
+     * A tag is a {@code <} closed by a later {@code >}, the same as {@code Text.removeTags} matches.
+     */
+    private static int nextVisible(String text, int index)
+    {
+        while (index < text.length() && text.charAt(index) == '<')
+        {
+            int close = text.indexOf('>', index + 1);
+            if (close < 0)
+            {
+                break;
+            }
+            index = close + 1;
+        }
+        return index;
+    }
+}
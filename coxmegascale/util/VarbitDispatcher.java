@@ -0,0 +1,62 @@
+package net.runelite.client.plugins.coxmegascale.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Dispatch table mapping varbit ids to handlers of their new value.
+ * <p>
+ * Handlers live in an array indexed by varbit id, so dispatching a {@code VarbitChanged} is one
+ * bounds check and one array read. Varp changes (varbit id -1) and unregistered varbits are ignored.
+ */
+public class VarbitDispatcher
+{
+    private IntConsumer[] handlers = new IntConsumer[0];
+
+    /**
+     * Registers the handler for a varbit, replacing any previous one.
+     *
+     * @param varbitId The varbit id.
+     * @param handler  Called with the varbit's new value.
+     */
+    public void register(int varbitId, IntConsumer handler)
+    {
+        if (varbitId < 0)
+        {
+            throw new IllegalArgumentException("Invalid varbit id: " + varbitId);
+        }
+
+        if (varbitId >= handlers.length)
+        {
+            handlers = Arrays.copyOf(handlers, varbitId + 1);
+        }
+        handlers[varbitId] = handler;
+    }
+
+    /**
+     * Removes every handler.
+     */
+    public void clear()
+    {
+        handlers = new IntConsumer[0];
+    }
+
+    /**
+     * Calls the handler registered for a varbit, if any.
+     *
+     * @param varbitId The varbit id, or -1 for varp changes.
+     * @param value    The varbit's new value.
+     * @return True if a handler was called.
+     */
+    public boolean dispatch(int varbitId, int value)
+    {
+        IntConsumer handler = varbitId >= 0 && varbitId < handlers.length ? handlers[varbitId] : null;
+        if (handler == null)
+        {
+            return false;
+        }
+
+        handler.accept(value);
+        return true;
+    }
+}
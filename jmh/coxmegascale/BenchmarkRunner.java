@@ -0,0 +1,42 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the plugin benchmarks with the GC profiler, which reports the bytes allocated per operation
+ * next to the throughput.
+ * <p>
+ * Arguments are benchmark name patterns, e.g. {@code MenuBenchmark}; without any, every benchmark
+ * runs.
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner()
+    {
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .shouldFailOnError(true);
+
+        if (args.length == 0)
+        {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        for (String pattern : args)
+        {
+            options.include(pattern);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
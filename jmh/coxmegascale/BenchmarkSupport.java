@@ -0,0 +1,100 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import net.runelite.api.Varbits;
+import net.runelite.client.plugins.coxmegascale.replay.SessionReplayDriver;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutKey;
+import net.runelite.client.plugins.raids.RaidRoom;
+
+/**
+ * Shared setup of the benchmarks: a headless plugin inside the chambers and realistic layouts.
+ */
+public final class BenchmarkSupport
+{
+    private static final int IN_RAID_VARBIT_ID = 5432;
+    private static final int ACTUAL_PARTY_SIZE_VARBIT_ID = 9540;
+
+    private static final RaidRoom[] COMBAT = {
+        RaidRoom.TEKTON, RaidRoom.MUTTADILES, RaidRoom.GUARDIANS, RaidRoom.VESPULA,
+        RaidRoom.SHAMANS, RaidRoom.VASA, RaidRoom.VANGUARDS, RaidRoom.MYSTICS
+    };
+    private static final RaidRoom[] PUZZLE = {
+        RaidRoom.CRABS, RaidRoom.ICE_DEMON, RaidRoom.TIGHTROPE, RaidRoom.THIEVING
+    };
+
+    private BenchmarkSupport()
+    {
+    }
+
+    /**
+     * Starts a headless plugin and moves it into the chambers.
+     *
+     * @param partySize       The party size.
+     * @param totalPoints     The team's total points; above 0 the raid has begun.
+     * @param configOverrides Config values by key name.
+     * @return The driver holding the plugin.
+     * @throws Exception If the plugin fails to start.
+     */
+    public static SessionReplayDriver startInRaid(int partySize, int totalPoints, Map<String, Object> configOverrides) throws Exception
+    {
+        SessionReplayDriver driver = new SessionReplayDriver(configOverrides);
+        driver.start();
+        driver.setVarbit(ACTUAL_PARTY_SIZE_VARBIT_ID, partySize);
+        driver.setVarbit(Varbits.TOTAL_POINTS, totalPoints);
+        driver.setVarbit(IN_RAID_VARBIT_ID, 1);
+        driver.tick();
+        return driver;
+    }
+
+    /**
+     * Generates layouts shaped like real rotations: two floors of combat and puzzle rooms, with
+     * scavengers on the first floor and farming on the second.
+     *
+     * @param count The number of layouts.
+     * @param seed  The random seed.
+     * @return The packed layouts.
+     */
+    public static long[] layouts(int count, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] layouts = new long[count];
+        for (int i = 0; i < count; i++)
+        {
+            RaidRoom[] combat = shuffled(COMBAT, random);
+            RaidRoom[] puzzle = shuffled(PUZZLE, random);
+            boolean longFirstFloor = random.nextBoolean();
+
+            RaidRoom[] rooms = longFirstFloor
+                ? new RaidRoom[]{combat[0], puzzle[0], RaidRoom.SCAVENGERS, combat[1], combat[2], RaidRoom.FARMING, puzzle[1]}
+                : new RaidRoom[]{combat[0], RaidRoom.SCAVENGERS, puzzle[0], combat[1], RaidRoom.FARMING, combat[2], puzzle[1]};
+            layouts[i] = LayoutKey.of(longFirstFloor ? 4 : 3, rooms);
+        }
+        return layouts;
+    }
+
+    /**
+     * Builds one layout with a chosen first room, e.g. to scout a desirable or undesirable raid.
+     *
+     * @param firstRoom The first combat room.
+     * @return The packed layout.
+     */
+    public static long layout(RaidRoom firstRoom)
+    {
+        return LayoutKey.of(4, firstRoom, RaidRoom.CRABS, RaidRoom.SCAVENGERS, RaidRoom.GUARDIANS,
+            RaidRoom.MYSTICS, RaidRoom.FARMING, RaidRoom.THIEVING);
+    }
+
+    private static RaidRoom[] shuffled(RaidRoom[] rooms, SplittableRandom random)
+    {
+        RaidRoom[] copy = rooms.clone();
+        for (int i = copy.length - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            RaidRoom room = copy[i];
+            copy[i] = copy[j];
+            copy[j] = room;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,117 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.client.plugins.coxmegascale.replay.SessionReplayDriver;
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Steps menu handling on a mega-scale menu: a right-click on the steps while {@code players} other
+ * players stand on the same tile, each adding their own Follow, Trade with and Report entries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MenuBenchmark
+{
+    private static final int STEPS_OBJECT_ID = 29778;
+    private static final String STEPS_TARGET = "<col=ffff>Steps";
+
+    @Param({"0", "50", "200"})
+    public int players;
+
+    @Param({"false", "true"})
+    public boolean desirable;
+
+    private SessionReplayDriver driver;
+    private CoxMegaScalePlugin plugin;
+    private MenuEntry[] template;
+    private MenuEntry[] menu;
+    private MenuEntryAdded[] addedEvents;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        driver = BenchmarkSupport.startInRaid(players + 1, 0, Collections.singletonMap("includeTekton", true));
+        plugin = driver.getPlugin();
+
+        RaidRoom first = desirable ? RaidRoom.TEKTON : RaidRoom.VASA;
+        plugin.onLayoutScouted(BenchmarkSupport.layout(first));
+        if (plugin.isDesirableRaidFound() != desirable)
+        {
+            throw new IllegalStateException("Scouted layout did not give the expected verdict");
+        }
+
+        template = buildMenu(players);
+        menu = new MenuEntry[template.length];
+        addedEvents = new MenuEntryAdded[template.length];
+        for (int i = 0; i < template.length; i++)
+        {
+            addedEvents[i] = new MenuEntryAdded(template[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        driver.stop();
+    }
+
+    /**
+     * Every entry of the menu goes through the MenuEntryAdded handler, as the client adds them.
+     */
+    @Benchmark
+    public void onMenuEntryAdded()
+    {
+        for (MenuEntryAdded event : addedEvents)
+        {
+            plugin.onStepsMenuEntryAdded(event);
+        }
+    }
+
+    /**
+     * The opened menu is restored from the template first, since the handler swaps entries in place.
+     */
+    @Benchmark
+    public MenuEntry onMenuOpened()
+    {
+        System.arraycopy(template, 0, menu, 0, template.length);
+        driver.setMenuEntries(menu);
+        plugin.onStepsMenuOpened();
+        return menu[menu.length - 1];
+    }
+
+    // Ordered as the client holds it: Cancel first, the left-click entry last
+    private static MenuEntry[] buildMenu(int players)
+    {
+        List<MenuEntry> entries = new ArrayList<>(4 + 3 * players + 2);
+        entries.add(SessionReplayDriver.menuEntry("Cancel", "", MenuAction.CANCEL, 0));
+        entries.add(SessionReplayDriver.menuEntry("Examine", STEPS_TARGET, MenuAction.EXAMINE_OBJECT, STEPS_OBJECT_ID));
+        for (int i = 0; i < players; i++)
+        {
+            String target = "<col=ffffff>Raider " + i + "<col=ff00>  (level-126)";
+            entries.add(SessionReplayDriver.menuEntry("Report", target, MenuAction.PLAYER_THIRD_OPTION, i));
+            entries.add(SessionReplayDriver.menuEntry("Trade with", target, MenuAction.PLAYER_SECOND_OPTION, i));
+            entries.add(SessionReplayDriver.menuEntry("Follow", target, MenuAction.PLAYER_FIRST_OPTION, i));
+        }
+        entries.add(SessionReplayDriver.menuEntry("Reload", STEPS_TARGET, MenuAction.GAME_OBJECT_SECOND_OPTION, STEPS_OBJECT_ID));
+        entries.add(SessionReplayDriver.menuEntry("Climb", STEPS_TARGET, MenuAction.GAME_OBJECT_FIRST_OPTION, STEPS_OBJECT_ID));
+        entries.add(SessionReplayDriver.menuEntry("Walk here", STEPS_TARGET, MenuAction.WALK, 0));
+        return entries.toArray(new MenuEntry[0]);
+    }
+}
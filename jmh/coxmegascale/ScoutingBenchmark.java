@@ -0,0 +1,89 @@
+package net.runelite.client.plugins.coxmegascale;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.client.plugins.coxmegascale.replay.SessionReplayDriver;
+import net.runelite.client.plugins.coxmegascale.scouting.ScoutingCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Scouting: compiled criteria evaluation alone, and the plugin's full scouted-layout path with the
+ * verdict cache. {@code distinctLayouts} above the cache size makes most scouts cache misses, and
+ * {@code rule} compares the checkbox criteria alone with an added scouting rule. {@code profiles}
+ * adds three profiles sharing most of their conditions, and {@code weights} adds layout scoring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ScoutingBenchmark
+{
+    @Param({"64", "100000"})
+    public int distinctLayouts;
+
+    @Param({"", "tekton before vasa & !vespula & puzzle in (thieving, tightrope) & rooms<=6"})
+    public String rule;
+
+    @Param({"", "speed: rooms<=5 & !vespula\npoints: combat>=3 & (tekton | vasa) & !vespula\nmega: puzzle in (crabs, thieving) & rooms<=5"})
+    public String profiles;
+
+    @Param({"", "tekton=5, vasa=4, vespula=-10, tekton@1=3, puzzle=-1, crabs=2, rooms5=4"})
+    public String weights;
+
+    private SessionReplayDriver driver;
+    private CoxMegaScalePlugin plugin;
+    private ScoutingCriteria criteria;
+    private long[] layouts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        Map<String, Object> config = new HashMap<>();
+        config.put("includeTekton", true);
+        config.put("includeVasa", true);
+        config.put("scoutingRule", rule);
+        config.put("scoutingProfiles", profiles);
+        config.put("layoutWeights", weights);
+
+        driver = BenchmarkSupport.startInRaid(40, 0, config);
+        plugin = driver.getPlugin();
+        criteria = ScoutingCriteria.compile(driver.getConfig());
+        layouts = BenchmarkSupport.layouts(distinctLayouts, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        driver.stop();
+    }
+
+    @Benchmark
+    public Object evaluate()
+    {
+        return criteria.evaluate(nextLayout());
+    }
+
+    @Benchmark
+    public boolean onLayoutScouted()
+    {
+        plugin.onLayoutScouted(nextLayout());
+        return plugin.isDesirableRaidFound();
+    }
+
+    private long nextLayout()
+    {
+        long layout = layouts[next];
+        next = next + 1 == layouts.length ? 0 : next + 1;
+        return layout;
+    }
+}
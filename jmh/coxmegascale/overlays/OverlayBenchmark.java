@@ -0,0 +1,101 @@
+package net.runelite.client.plugins.coxmegascale.overlays;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.client.plugins.coxmegascale.BenchmarkSupport;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.replay.SessionReplayDriver;
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Overlay rendering into a headless image, with the snapshot of a scouted mega-scale raid in
+ * progress. Rendering is repeated on an unchanged snapshot, as it is on every frame between ticks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class OverlayBenchmark
+{
+    @Param({"1", "50", "100"})
+    public int partySize;
+
+    private SessionReplayDriver driver;
+    private PointsOverlay pointsOverlay;
+    private DropChanceOverlay dropChanceOverlay;
+    private SuppliesCalculationOverlay suppliesOverlay;
+    private CompositeHudOverlay compositeOverlay;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        Map<String, Object> config = new HashMap<>();
+        config.put("enableSuppliesCalculationOverlay", true);
+        config.put("enablePointsOverlay", true);
+        config.put("enableDropChanceOverlay", true);
+
+        driver = BenchmarkSupport.startInRaid(partySize, 250_000, config);
+        CoxMegaScaleConfig overlayConfig = driver.getConfig();
+        CoxMegaScalePlugin plugin = driver.getPlugin();
+        plugin.onLayoutScouted(BenchmarkSupport.layout(RaidRoom.TEKTON));
+        driver.tick();
+
+        pointsOverlay = new PointsOverlay(overlayConfig, plugin);
+        dropChanceOverlay = new DropChanceOverlay(overlayConfig, plugin);
+        suppliesOverlay = new SuppliesCalculationOverlay(overlayConfig, plugin);
+        compositeOverlay = new CompositeHudOverlay(overlayConfig, plugin, pointsOverlay, dropChanceOverlay, suppliesOverlay);
+
+        image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        graphics.setFont(new Font(Font.DIALOG, Font.PLAIN, 16));
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        graphics.dispose();
+        driver.stop();
+    }
+
+    @Benchmark
+    public Object points()
+    {
+        return pointsOverlay.render(graphics);
+    }
+
+    @Benchmark
+    public Object dropChance()
+    {
+        return dropChanceOverlay.render(graphics);
+    }
+
+    @Benchmark
+    public Object supplies()
+    {
+        return suppliesOverlay.render(graphics);
+    }
+
+    @Benchmark
+    public Object composite()
+    {
+        return compositeOverlay.render(graphics);
+    }
+}
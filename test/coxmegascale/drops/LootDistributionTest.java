@@ -0,0 +1,76 @@
+package net.runelite.client.plugins.coxmegascale.drops;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class LootDistributionTest
+{
+    private static final int TRIALS = 400_000;
+
+    // Percentage points the simulation may be off by, over 6 standard deviations at 400,000 trials
+    private static final double TOLERANCE = 0.5;
+
+    @Test
+    public void testExactAnyUnique()
+    {
+        int[] points = {20_000, 15_000, 10_000};
+        double none = 1.0;
+        for (int roll = 0; roll < DropChanceEngine.MAX_UNIQUE_ROLLS; roll++)
+        {
+            none *= 1.0 - DropChanceEngine.rollChance(45_000, roll);
+        }
+
+        LootDistribution distribution = LootDistribution.exact(points);
+        assertEquals(3, distribution.getPartySize());
+        assertEquals(45_000, distribution.getTotalPoints());
+        assertEquals(0, distribution.getTrials());
+        assertEquals((1.0 - none) * 100.0, percent(distribution.getAnyUniqueText()), 0.005);
+    }
+
+    @Test
+    public void testExactSoloGetsEveryUnique()
+    {
+        LootDistribution distribution = LootDistribution.exact(new int[]{60_000});
+        assertEquals(distribution.getAnyUniqueText(), distribution.getFirstPlayerText());
+    }
+
+    @Test
+    public void testExactWithoutPoints()
+    {
+        LootDistribution distribution = LootDistribution.exact(new int[]{0, -5});
+        assertEquals("0.00%", distribution.getAnyUniqueText());
+        assertEquals("0.00%", distribution.getMultipleUniquesText());
+        assertEquals("0.00%", distribution.getFirstPlayerText());
+        assertEquals("-", LootDistribution.exact(new int[0]).getFirstPlayerText());
+    }
+
+    @Test
+    public void testExactAgreesWithSimulation()
+    {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            int[][] parties = {{30_000}, {40_000, 20_000}, {20_000, 15_000, 10_000, 5_000}, {90_000, 1_000, 1_000}};
+            for (int[] points : parties)
+            {
+                LootDistribution exact = LootDistribution.exact(points);
+                LootDistribution simulated = LootSimulator.simulate(pool, points, TRIALS);
+                assertEquals(exact.getTotalPoints(), simulated.getTotalPoints());
+                assertEquals(percent(exact.getAnyUniqueText()), percent(simulated.getAnyUniqueText()), TOLERANCE);
+                assertEquals(percent(exact.getMultipleUniquesText()), percent(simulated.getMultipleUniquesText()), TOLERANCE);
+                assertEquals(percent(exact.getFirstPlayerText()), percent(simulated.getFirstPlayerText()), TOLERANCE);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    // The texts are formatted in the default locale, which may use a decimal comma
+    private static double percent(String text)
+    {
+        return Double.parseDouble(text.substring(0, text.length() - 1).replace(',', '.'));
+    }
+}
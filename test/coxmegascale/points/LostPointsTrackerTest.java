@@ -0,0 +1,121 @@
+package net.runelite.client.plugins.coxmegascale.points;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class LostPointsTrackerTest
+{
+    private final LostPointsTracker tracker = new LostPointsTracker();
+
+    @Test
+    public void testDropBeforeDeath()
+    {
+        tracker.onPointsChanged(10, 1000, 800);
+        assertEquals(200, tracker.getUnattributedLoss());
+
+        // The death joins the drop's group and takes its loss from the unattributed slot
+        tracker.onPlayerDeath(10 + LostPointsTracker.MATCH_WINDOW_TICKS, "Alice");
+        assertEquals(200, tracker.getLostPoints("Alice"));
+        assertEquals(1, tracker.getDeaths("Alice"));
+        assertEquals(0, tracker.getUnattributedLoss());
+        assertEquals(200, tracker.getTotalLost());
+        assertEquals(1, tracker.getTotalDeaths());
+    }
+
+    @Test
+    public void testDeathBeforeDrop()
+    {
+        tracker.onPlayerDeath(10, "Alice");
+        assertEquals(0, tracker.getLostPoints("Alice"));
+
+        tracker.onPointsChanged(11, 1000, 700);
+        assertEquals(300, tracker.getLostPoints("Alice"));
+        assertEquals(0, tracker.getUnattributedLoss());
+    }
+
+    @Test
+    public void testDeathsInOneWindowSplitTheLoss()
+    {
+        tracker.onPlayerDeath(10, "Alice");
+        tracker.onPlayerDeath(11, "Bob");
+        tracker.onPointsChanged(12, 1000, 899);
+        // The remainder goes to the first death
+        assertEquals(51, tracker.getLostPoints("Alice"));
+        assertEquals(50, tracker.getLostPoints("Bob"));
+
+        // A later drop and death of the same group split the whole loss again
+        tracker.onPointsChanged(13, 899, 800);
+        tracker.onPlayerDeath(14, "Carol");
+        assertEquals(67, tracker.getLostPoints("Alice"));
+        assertEquals(67, tracker.getLostPoints("Bob"));
+        assertEquals(66, tracker.getLostPoints("Carol"));
+        assertEquals(0, tracker.getUnattributedLoss());
+        assertEquals(200, tracker.getTotalLost());
+        assertEquals(3, tracker.getTotalDeaths());
+    }
+
+    @Test
+    public void testSimultaneousDeathsOfOnePlayerCountTwice()
+    {
+        tracker.onPointsChanged(10, 1000, 700);
+        tracker.onPlayerDeath(10, "Alice");
+        tracker.onPlayerDeath(11, "Alice");
+        assertEquals(300, tracker.getLostPoints("Alice"));
+        assertEquals(2, tracker.getDeaths("Alice"));
+    }
+
+    @Test
+    public void testWindowExpires()
+    {
+        int late = 10 + LostPointsTracker.MATCH_WINDOW_TICKS + 1;
+
+        tracker.onPlayerDeath(10, "Alice");
+        tracker.onPointsChanged(late, 1000, 900);
+        assertEquals(0, tracker.getLostPoints("Alice"));
+        assertEquals(100, tracker.getUnattributedLoss());
+
+        // The drop opened a group of its own, which a later death still joins
+        tracker.onPlayerDeath(late + 1, "Bob");
+        assertEquals(100, tracker.getLostPoints("Bob"));
+        assertEquals(0, tracker.getUnattributedLoss());
+
+        // A drop long after the last death stays unattributed
+        tracker.onPointsChanged(late + 10, 900, 850);
+        tracker.onPlayerDeath(late + 10 + LostPointsTracker.MATCH_WINDOW_TICKS + 1, "Carol");
+        assertEquals(50, tracker.getUnattributedLoss());
+        assertEquals(0, tracker.getLostPoints("Carol"));
+        assertEquals(1, tracker.getDeaths("Carol"));
+        assertEquals(150, tracker.getTotalLost());
+    }
+
+    @Test
+    public void testRaidEndResetIsNotALoss()
+    {
+        tracker.onPlayerDeath(10, "Alice");
+        tracker.onPointsChanged(10, 30000, 0);
+        assertEquals(0, tracker.getTotalLost());
+        assertEquals(0, tracker.getLostPoints("Alice"));
+        assertEquals(0, tracker.getUnattributedLoss());
+
+        // Gains are not losses either
+        tracker.onPointsChanged(11, 0, 500);
+        assertEquals(0, tracker.getTotalLost());
+    }
+
+    @Test
+    public void testReset()
+    {
+        tracker.onPointsChanged(10, 1000, 800);
+        tracker.onPlayerDeath(10, "Alice");
+        tracker.reset();
+        assertEquals(0, tracker.getLostPoints("Alice"));
+        assertEquals(0, tracker.getDeaths("Alice"));
+        assertEquals(0, tracker.getTotalLost());
+        assertEquals(0, tracker.getTotalDeaths());
+
+        // The group before the reset is gone
+        tracker.onPlayerDeath(11, "Bob");
+        assertEquals(0, tracker.getLostPoints("Bob"));
+        assertEquals(0, tracker.getUnattributedLoss());
+    }
+}
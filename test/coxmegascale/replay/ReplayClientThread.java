@@ -0,0 +1,96 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import net.runelite.client.callback.ClientThread;
+
+/**
+ * {@link ClientThread} for session replay: the thread driving the replay stands in for the client
+ * thread. Tasks invoked on it run inline, as on the client; tasks invoked from any other thread, e.g.
+ * the executor, are queued and run by the driver at the end of the next replayed tick.
+ */
+class ReplayClientThread extends ClientThread
+{
+    // Filled from any thread, drained by the replay thread
+    private final Queue<BooleanSupplier> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile Thread thread;
+
+    /**
+     * Makes the calling thread the client thread. Called by the driver whenever it replays events,
+     * so a benchmark may set up and measure on different threads.
+     */
+    void enter()
+    {
+        thread = Thread.currentThread();
+    }
+
+    /**
+     * @return True if called on the thread driving the replay.
+     */
+    boolean isClientThread()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void invoke(Runnable runnable)
+    {
+        if (isClientThread())
+        {
+            runnable.run();
+        }
+        else
+        {
+            invokeLater(runnable);
+        }
+    }
+
+    @Override
+    public void invoke(BooleanSupplier supplier)
+    {
+        if (!isClientThread() || !supplier.getAsBoolean())
+        {
+            tasks.add(supplier);
+        }
+    }
+
+    @Override
+    public void invokeLater(Runnable runnable)
+    {
+        tasks.add(() ->
+        {
+            runnable.run();
+            return true;
+        });
+    }
+
+    @Override
+    public void invokeLater(BooleanSupplier supplier)
+    {
+        tasks.add(supplier);
+    }
+
+    @Override
+    public void invokeAtTickEnd(Runnable runnable)
+    {
+        invokeLater(runnable);
+    }
+
+    /**
+     * Runs the tasks queued so far once; tasks returning false stay queued for the next tick, as do
+     * tasks queued meanwhile.
+     */
+    void runTickEnd()
+    {
+        for (int i = tasks.size(); i > 0; i--)
+        {
+            BooleanSupplier task = tasks.poll();
+            if (!task.getAsBoolean())
+            {
+                tasks.add(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counts and timing of one replayed session.
+ */
+@RequiredArgsConstructor
+@Getter
+public class ReplayStats
+{
+    private final long events;
+    private final long ticks;
+    private final long scouts;
+    private final long desirableScouts;
+    private final long menuEvents;
+    private final long elapsedNanos;
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d events (%d ticks, %d scouts, %d desirable, %d menu events) in %.1f ms",
+                events, ticks, scouts, desirableScouts, menuEvents, elapsedNanos / 1e6);
+    }
+}
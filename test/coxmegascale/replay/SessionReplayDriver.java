@@ -0,0 +1,497 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.MenuOpened;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.plugins.Plugin;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScaleConfig;
+import net.runelite.client.plugins.coxmegascale.CoxMegaScalePlugin;
+import net.runelite.client.plugins.coxmegascale.events.PartySizeChangedPublisher;
+import net.runelite.client.plugins.coxmegascale.overlays.CompositeHudOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.DropChanceOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.PointsOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.ScoutLatencyOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.ScoutingOverlay;
+import net.runelite.client.plugins.coxmegascale.overlays.SuppliesCalculationOverlay;
+import net.runelite.client.plugins.raids.events.RaidReset;
+import net.runelite.client.ui.overlay.OverlayManager;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replays recorded sessions through a headless {@link CoxMegaScalePlugin} as fast as possible.
+ * <p>
+ * The plugin gets a stand-in {@link Client} that answers from the replayed varbits and menu, a
+ * config that returns the defaults unless overridden, a real {@link EventBus}, a mocked
+ * {@link OverlayManager}, and a {@link ClientThread} played by the thread calling the driver: tasks
+ * invoked on that thread run inline, every other task runs at the end of the next replayed tick.
+ * Recorded scouts are fed to {@link CoxMegaScalePlugin#onLayoutScouted(long)}.
+ */
+@Slf4j
+public class SessionReplayDriver
+{
+    private final Map<String, Object> configOverrides = new HashMap<>();
+    private final Map<Integer, Integer> varbits = new HashMap<>();
+    private MenuEntry[] menuEntries = new MenuEntry[0];
+    private int tickCount;
+
+    private final Client client;
+    private final CoxMegaScaleConfig config;
+    private final EventBus eventBus = new EventBus();
+    private final ReplayClientThread clientThread = new ReplayClientThread();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "cox-mega-scale-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CoxMegaScalePlugin plugin;
+
+    /**
+     * @param configOverrides Config values by key name; every other item returns its default.
+     */
+    public SessionReplayDriver(Map<String, Object> configOverrides)
+    {
+        // Replays are deterministic and quiet unless asked otherwise
+        this.configOverrides.put("lootSimulationTrials", 0);
+        this.configOverrides.put("recordSessions", false);
+        this.configOverrides.put("recordScoutHistory", false);
+        this.configOverrides.putAll(configOverrides);
+
+        this.client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+                (proxy, method, args) -> clientCall(method, args));
+        this.config = (CoxMegaScaleConfig) Proxy.newProxyInstance(CoxMegaScaleConfig.class.getClassLoader(),
+                new Class<?>[]{CoxMegaScaleConfig.class}, (proxy, method, args) -> configCall(proxy, method, args));
+    }
+
+    /**
+     * Creates the plugin, injects the stand-ins and starts it.
+     *
+     * @throws Exception If the plugin fails to start.
+     */
+    public void start() throws Exception
+    {
+        clientThread.enter();
+        plugin = new CoxMegaScalePlugin();
+
+        Map<Class<?>, Object> bindings = new HashMap<>();
+        bindings.put(Client.class, client);
+        bindings.put(CoxMegaScaleConfig.class, config);
+        bindings.put(EventBus.class, eventBus);
+        bindings.put(ClientThread.class, clientThread);
+        bindings.put(OverlayManager.class, mock(OverlayManager.class));
+        bindings.put(ScheduledExecutorService.class, executor);
+        bindings.put(CoxMegaScalePlugin.class, plugin);
+
+        PointsOverlay pointsOverlay = new PointsOverlay(config, plugin);
+        DropChanceOverlay dropChanceOverlay = new DropChanceOverlay(config, plugin);
+        SuppliesCalculationOverlay suppliesOverlay = new SuppliesCalculationOverlay(config, plugin);
+        bindings.put(PointsOverlay.class, pointsOverlay);
+        bindings.put(DropChanceOverlay.class, dropChanceOverlay);
+        bindings.put(SuppliesCalculationOverlay.class, suppliesOverlay);
+        bindings.put(CompositeHudOverlay.class,
+                new CompositeHudOverlay(config, plugin, pointsOverlay, dropChanceOverlay, suppliesOverlay));
+        bindings.put(ScoutingOverlay.class, new ScoutingOverlay(config, plugin));
+        bindings.put(ScoutLatencyOverlay.class, new ScoutLatencyOverlay(config, plugin));
+        bindings.put(PartySizeChangedPublisher.class, new PartySizeChangedPublisher(eventBus, clientThread));
+
+        inject(plugin, bindings);
+
+        lifecycle("startUp");
+        eventBus.register(plugin);
+        clientThread.runTickEnd();
+    }
+
+    /**
+     * Stops the plugin, runs the tasks it left on the client thread, and stops the executor.
+     *
+     * @throws Exception If the plugin fails to stop.
+     */
+    public void stop() throws Exception
+    {
+        clientThread.enter();
+        if (plugin != null)
+        {
+            eventBus.unregister(plugin);
+            lifecycle("shutDown");
+            clientThread.runTickEnd();
+            plugin = null;
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * @return The replayed plugin, for inspecting its state between replays.
+     */
+    public CoxMegaScalePlugin getPlugin()
+    {
+        return plugin;
+    }
+
+    /**
+     * @return The config handed to the plugin.
+     */
+    public CoxMegaScaleConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * Sets a varbit on the stand-in client and posts the change, as the client would.
+     *
+     * @param varbitId The varbit id.
+     * @param value    The new value.
+     */
+    public void setVarbit(int varbitId, int value)
+    {
+        clientThread.enter();
+        varbits.put(varbitId, value);
+        VarbitChanged event = new VarbitChanged();
+        event.setVarbitId(varbitId);
+        event.setValue(value);
+        eventBus.post(event);
+    }
+
+    /**
+     * Sets the menu returned by the stand-in client.
+     *
+     * @param entries The menu entries, left-click entry last.
+     */
+    public void setMenuEntries(MenuEntry[] entries)
+    {
+        menuEntries = entries;
+    }
+
+    /**
+     * Ends the current tick, running the queued client thread tasks, and posts the next GameTick.
+     */
+    public void tick()
+    {
+        clientThread.enter();
+        clientThread.runTickEnd();
+        tickCount++;
+        eventBus.post(new GameTick());
+    }
+
+    /**
+     * Creates a stand-in menu entry.
+     *
+     * @param option     The option, e.g. "Reload".
+     * @param target     The target, e.g. "&lt;col=ffff&gt;Steps".
+     * @param type       The menu action.
+     * @param identifier The object or player identifier.
+     * @return The menu entry.
+     */
+    public static MenuEntry menuEntry(String option, String target, MenuAction type, int identifier)
+    {
+        ReplayMenuEntry entry = new ReplayMenuEntry();
+        entry.option = option;
+        entry.target = target;
+        entry.type = type;
+        entry.identifier = identifier;
+        return entry.proxy();
+    }
+
+    /**
+     * Replays a session file.
+     *
+     * @param file The session file.
+     * @return The counts and timing of the replay.
+     * @throws IOException If the file cannot be read or is not a session file.
+     */
+    public ReplayStats replay(File file) throws IOException
+    {
+        long events = 0;
+        long ticks = 0;
+        long scouts = 0;
+        long desirableScouts = 0;
+        long menuEvents = 0;
+        long start = System.nanoTime();
+        clientThread.enter();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != SessionFormat.MAGIC)
+            {
+                throw new IOException("Not a session file: " + file);
+            }
+            int version = in.readInt();
+            if (version != SessionFormat.VERSION)
+            {
+                throw new IOException("Unsupported session version " + version + ": " + file);
+            }
+
+            while (true)
+            {
+                int type;
+                try
+                {
+                    type = in.readByte();
+                }
+                catch (EOFException e)
+                {
+                    break;
+                }
+                events++;
+
+                switch (type)
+                {
+                    case SessionFormat.VARBIT:
+                    {
+                        int varbitId = in.readInt();
+                        int value = in.readInt();
+                        varbits.put(varbitId, value);
+                        VarbitChanged event = new VarbitChanged();
+                        event.setVarbitId(varbitId);
+                        event.setValue(value);
+                        eventBus.post(event);
+                        break;
+                    }
+                    case SessionFormat.TICK:
+                        // The previous tick ends before the next one starts
+                        clientThread.runTickEnd();
+                        tickCount = in.readInt();
+                        eventBus.post(new GameTick());
+                        ticks++;
+                        break;
+                    case SessionFormat.SCOUTED:
+                        plugin.onLayoutScouted(in.readLong());
+                        scouts++;
+                        if (plugin.isDesirableRaidFound())
+                        {
+                            desirableScouts++;
+                        }
+                        break;
+                    case SessionFormat.MENU_ENTRY_ADDED:
+                        eventBus.post(new MenuEntryAdded(readEntry(in)));
+                        menuEvents++;
+                        break;
+                    case SessionFormat.MENU_OPENED:
+                    {
+                        MenuEntry[] entries = new MenuEntry[in.readInt()];
+                        for (int i = 0; i < entries.length; i++)
+                        {
+                            entries[i] = readEntry(in);
+                        }
+                        menuEntries = entries;
+                        eventBus.post(new MenuOpened());
+                        menuEvents++;
+                        break;
+                    }
+                    case SessionFormat.RAID_RESET:
+                        eventBus.post(new RaidReset());
+                        break;
+                    default:
+                        throw new IOException("Unknown record type " + type + " in " + file);
+                }
+            }
+        }
+        clientThread.runTickEnd();
+
+        return new ReplayStats(events, ticks, scouts, desirableScouts, menuEvents, System.nanoTime() - start);
+    }
+
+    private Object clientCall(Method method, Object[] args)
+    {
+        switch (method.getName())
+        {
+            case "getVarbitValue":
+            case "getVar":
+                return varbits.getOrDefault((Integer) args[0], 0);
+            case "getTickCount":
+                return tickCount;
+            case "getMenuEntries":
+                return menuEntries;
+            case "setMenuEntries":
+                menuEntries = (MenuEntry[]) args[0];
+                return null;
+            case "isClientThread":
+                return clientThread.isClientThread();
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private Object configCall(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        if (configOverrides.containsKey(method.getName()))
+        {
+            return configOverrides.get(method.getName());
+        }
+
+        if (method.isDefault())
+        {
+            return MethodHandles.privateLookupIn(CoxMegaScaleConfig.class, MethodHandles.lookup())
+                    .unreflectSpecial(method, CoxMegaScaleConfig.class)
+                    .bindTo(proxy)
+                    .invokeWithArguments(args != null ? args : new Object[0]);
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    private static MenuEntry readEntry(DataInputStream in) throws IOException
+    {
+        String option = in.readUTF();
+        String target = in.readUTF();
+        MenuAction type = MenuAction.of(in.readInt());
+        return menuEntry(option, target, type, in.readInt());
+    }
+
+    private void lifecycle(String name) throws Exception
+    {
+        Method method = Plugin.class.getDeclaredMethod(name);
+        method.setAccessible(true);
+        method.invoke(plugin);
+    }
+
+    /**
+     * Sets every {@link Inject} field of the target whose type has a binding.
+     */
+    private static void inject(Object target, Map<Class<?>, Object> bindings) throws IllegalAccessException
+    {
+        for (Field field : target.getClass().getDeclaredFields())
+        {
+            if (!field.isAnnotationPresent(Inject.class))
+            {
+                continue;
+            }
+
+            Object value = bindings.get(field.getType());
+            if (value == null)
+            {
+                log.debug("No replay binding for {} {}", field.getType().getSimpleName(), field.getName());
+                continue;
+            }
+
+            field.setAccessible(true);
+            field.set(target, value);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == int.class)
+        {
+            return 0;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        if (type == double.class)
+        {
+            return 0.0;
+        }
+        if (type == float.class)
+        {
+            return 0.0f;
+        }
+        if (type == short.class)
+        {
+            return (short) 0;
+        }
+        if (type == byte.class)
+        {
+            return (byte) 0;
+        }
+        if (type == char.class)
+        {
+            return '\0';
+        }
+        return null;
+    }
+
+    /**
+     * Mutable menu entry backing a {@link MenuEntry} proxy.
+     */
+    private static final class ReplayMenuEntry
+    {
+        private String option;
+        private String target;
+        private MenuAction type;
+        private int identifier;
+        private int param0;
+        private int param1;
+        private boolean deprioritized;
+
+        private MenuEntry proxy()
+        {
+            return (MenuEntry) Proxy.newProxyInstance(MenuEntry.class.getClassLoader(), new Class<?>[]{MenuEntry.class},
+                    (proxy, method, args) ->
+                    {
+                        switch (method.getName())
+                        {
+                            case "getOption":
+                                return option;
+                            case "setOption":
+                                option = (String) args[0];
+                                return proxy;
+                            case "getTarget":
+                                return target;
+                            case "setTarget":
+                                target = (String) args[0];
+                                return proxy;
+                            case "getType":
+                                return type;
+                            case "setType":
+                                type = (MenuAction) args[0];
+                                return proxy;
+                            case "getIdentifier":
+                                return identifier;
+                            case "setIdentifier":
+                                identifier = (Integer) args[0];
+                                return proxy;
+                            case "getParam0":
+                                return param0;
+                            case "setParam0":
+                                param0 = (Integer) args[0];
+                                return proxy;
+                            case "getParam1":
+                                return param1;
+                            case "setParam1":
+                                param1 = (Integer) args[0];
+                                return proxy;
+                            case "isDeprioritized":
+                                return deprioritized;
+                            case "setDeprioritized":
+                                deprioritized = (Boolean) args[0];
+                                return proxy;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            case "toString":
+                                return "MenuEntry(" + option + ", " + target + ")";
+                            default:
+                                return method.getReturnType() == MenuEntry.class ? proxy : defaultValue(method.getReturnType());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package net.runelite.client.plugins.coxmegascale.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Varbits;
+import net.runelite.client.plugins.coxmegascale.RaidStateSnapshot;
+import net.runelite.client.plugins.coxmegascale.scouting.LayoutKey;
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SessionReplayDriverTest
+{
+    private static final int IN_RAID_VARBIT_ID = 5432;
+    private static final int ACTUAL_PARTY_SIZE_VARBIT_ID = 9540;
+    private static final int STEPS_OBJECT_ID = 29778;
+    private static final String STEPS_TARGET = "<col=ffff>Steps";
+
+    private static final long VASA_LAYOUT = LayoutKey.of(4, RaidRoom.VASA, RaidRoom.CRABS, RaidRoom.SCAVENGERS,
+            RaidRoom.GUARDIANS, RaidRoom.MYSTICS, RaidRoom.FARMING, RaidRoom.THIEVING);
+    private static final long TEKTON_LAYOUT = LayoutKey.of(4, RaidRoom.TEKTON, RaidRoom.CRABS, RaidRoom.SCAVENGERS,
+            RaidRoom.GUARDIANS, RaidRoom.MYSTICS, RaidRoom.FARMING, RaidRoom.THIEVING);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplayCountsEveryRecord() throws Exception
+    {
+        File session = recordSession();
+
+        SessionReplayDriver driver = new SessionReplayDriver(Collections.singletonMap("includeTekton", true));
+        driver.start();
+        try
+        {
+            ReplayStats stats = driver.replay(session);
+            assertEquals(13, stats.getEvents());
+            assertEquals(4, stats.getTicks());
+            assertEquals(3, stats.getScouts());
+            assertEquals(1, stats.getDesirableScouts());
+            assertEquals(2, stats.getMenuEvents());
+
+            RaidStateSnapshot snapshot = driver.getPlugin().getSnapshot();
+            assertEquals(5000, snapshot.getTotalPoints());
+            assertEquals(3, snapshot.getActualPartySize());
+            assertEquals(TEKTON_LAYOUT, snapshot.getLayoutKey());
+            assertTrue(driver.getPlugin().isDesirableRaidFound());
+        }
+        finally
+        {
+            driver.stop();
+        }
+    }
+
+    @Test
+    public void testReplayIsDeterministic() throws Exception
+    {
+        File session = recordSession();
+
+        ReplayStats first = replayOnce(session);
+        ReplayStats second = replayOnce(session);
+        assertEquals(first.getEvents(), second.getEvents());
+        assertEquals(first.getTicks(), second.getTicks());
+        assertEquals(first.getScouts(), second.getScouts());
+        assertEquals(first.getDesirableScouts(), second.getDesirableScouts());
+        assertEquals(first.getMenuEvents(), second.getMenuEvents());
+    }
+
+    @Test
+    public void testWithoutSelectionNoScoutIsDesirable() throws Exception
+    {
+        SessionReplayDriver driver = new SessionReplayDriver(Collections.emptyMap());
+        driver.start();
+        try
+        {
+            ReplayStats stats = driver.replay(recordSession());
+            assertEquals(3, stats.getScouts());
+            assertEquals(0, stats.getDesirableScouts());
+            assertFalse(driver.getPlugin().isDesirableRaidFound());
+        }
+        finally
+        {
+            driver.stop();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws Exception
+    {
+        File file = folder.newFile("not-a-session.bin");
+        SessionReplayDriver driver = new SessionReplayDriver(Collections.emptyMap());
+        driver.start();
+        try
+        {
+            driver.replay(file);
+        }
+        finally
+        {
+            driver.stop();
+        }
+    }
+
+    private static ReplayStats replayOnce(File session) throws Exception
+    {
+        SessionReplayDriver driver = new SessionReplayDriver(Collections.singletonMap("includeTekton", true));
+        driver.start();
+        try
+        {
+            return driver.replay(session);
+        }
+        finally
+        {
+            driver.stop();
+        }
+    }
+
+    /**
+     * Records a party of three scouting twice, reloading once, then starting the raid and scoring
+     * points.
+     */
+    private File recordSession() throws IOException
+    {
+        File directory = folder.newFolder("sessions-" + System.nanoTime());
+        SessionRecorder recorder = SessionRecorder.open(directory);
+        recorder.recordVarbit(ACTUAL_PARTY_SIZE_VARBIT_ID, 3);
+        recorder.recordVarbit(IN_RAID_VARBIT_ID, 1);
+        recorder.recordTick(1);
+        recorder.recordScouted(VASA_LAYOUT);
+        recorder.recordScouted(VASA_LAYOUT);
+        recorder.recordRaidReset();
+        recorder.recordTick(2);
+        recorder.recordScouted(TEKTON_LAYOUT);
+        recorder.recordMenuEntryAdded(SessionReplayDriver.menuEntry("Climb", STEPS_TARGET,
+                MenuAction.GAME_OBJECT_FIRST_OPTION, STEPS_OBJECT_ID));
+        recorder.recordMenuOpened(new MenuEntry[]{
+            SessionReplayDriver.menuEntry("Cancel", "", MenuAction.CANCEL, 0),
+            SessionReplayDriver.menuEntry("Reload", STEPS_TARGET, MenuAction.GAME_OBJECT_SECOND_OPTION, STEPS_OBJECT_ID),
+            SessionReplayDriver.menuEntry("Climb", STEPS_TARGET, MenuAction.GAME_OBJECT_FIRST_OPTION, STEPS_OBJECT_ID)
+        });
+        recorder.recordTick(3);
+        recorder.recordVarbit(Varbits.TOTAL_POINTS, 5000);
+        recorder.recordTick(4);
+        recorder.close();
+
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+}
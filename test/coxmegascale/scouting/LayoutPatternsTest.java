@@ -0,0 +1,183 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import net.runelite.client.plugins.coxmegascale.RaidStartOrder;
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LayoutPatternsTest {
+    private static final RaidRoom[] COMBAT = {
+            RaidRoom.TEKTON, RaidRoom.MUTTADILES, RaidRoom.GUARDIANS, RaidRoom.VESPULA,
+            RaidRoom.SHAMANS, RaidRoom.VASA, RaidRoom.VANGUARDS, RaidRoom.MYSTICS
+    };
+    private static final RaidRoom[] PUZZLE = {
+            RaidRoom.CRABS, RaidRoom.ICE_DEMON, RaidRoom.TIGHTROPE, RaidRoom.THIEVING
+    };
+
+    // Split in two, since all of them together need more states than allowed
+    private static final List<List<String>> PATTERN_GROUPS = Arrays.asList(
+            Arrays.asList("SCP*", "*|CP*", "???*|*F", "S*", "*F", "*S*P*", "|*", "*|", "C?P*|*"),
+            Arrays.asList("??|*", "SC|P*", "????*|????*", "*C*C*C*|*", "*|*S*", "*P|*", "?*|?*", "*"));
+
+    @Test
+    public void testAutomatonAgreesWithRegularExpressions() {
+        long[] layouts = TestLayouts.random(20_000, 24);
+        for (List<String> patterns : PATTERN_GROUPS) {
+            LayoutPatterns compiled = LayoutPatterns.compile(patterns);
+            Pattern[] expressions = new Pattern[patterns.size()];
+            for (int i = 0; i < expressions.length; i++) {
+                expressions[i] = regex(patterns.get(i));
+            }
+
+            for (long layout : layouts) {
+                String code = code(layout);
+                long expected = 0;
+                for (int i = 0; i < expressions.length; i++) {
+                    if (expressions[i].matcher(code).matches()) {
+                        expected |= 1L << i;
+                    }
+                }
+                assertEquals(code, expected, compiled.match(layout));
+            }
+        }
+    }
+
+    @Test
+    public void testStartOrdersOnBothFloorSplits() {
+        for (RaidStartOrder order : RaidStartOrder.values()) {
+            if (order == RaidStartOrder.ANY) {
+                assertTrue(order.getPatterns().isEmpty());
+                continue;
+            }
+
+            LayoutPatterns patterns = LayoutPatterns.compile(order.getPatterns());
+            String start = order.toString();
+            String other = start.charAt(2) == 'C' ? "P" : "C";
+            // The first floor holds 3 or 4 rooms, the start order may cross the change of floor anywhere
+            for (int firstFloor = 0; firstFloor <= 4; firstFloor++) {
+                assertTrue(order + " split after " + firstFloor,
+                        patterns.match(layout(firstFloor, start + "CPFC")) != 0);
+                assertEquals(order + " with another third room", 0,
+                        patterns.match(layout(firstFloor, start.substring(0, 2) + other + "CPFC")));
+            }
+        }
+    }
+
+    @Test
+    public void testStarSpansTheFloorChange() {
+        long layout = layout(2, "SCPCFP");
+        assertMatches("S*P", layout, true);
+        assertMatches("S*C", layout, false);
+        assertMatches("S*", layout, true);
+        assertMatches("S*F?", layout, true);
+        assertMatches("S*|*F?", layout, true);
+        // Rooms and '?' never match the change of floor itself
+        assertMatches("SCPCFP", layout, false);
+        assertMatches("SC?CFP", layout, false);
+        assertMatches("SC|PCFP", layout, true);
+        assertMatches("SCP*", layout, false);
+        assertMatches("SC|P*", layout, true);
+        // Every layout has a change of floor, even with every room on the first floor
+        assertMatches("SCPCFP|", layout(6, "SCPCFP"), true);
+        assertMatches("|SCPCFP", layout(0, "SCPCFP"), true);
+    }
+
+    @Test
+    public void testParse() {
+        LayoutPatterns patterns = LayoutPatterns.parse("scp*, * | cp*\n# comment\n\n???*|*f,");
+        assertEquals(Arrays.asList("SCP*", "*|CP*", "???*|*F"), patterns.getPatterns());
+        assertEquals(patterns.getStateCount(), LayoutPatterns.compile(patterns.getPatterns()).getStateCount());
+
+        // Repeated stars match the same as one
+        assertEquals(LayoutPatterns.parse("S*P").getStateCount(), LayoutPatterns.parse("S***P").getStateCount());
+
+        assertEquals(LayoutPatterns.NONE, LayoutPatterns.parse(" \n# nothing\n"));
+        assertEquals(LayoutPatterns.NONE, LayoutPatterns.compile(Collections.emptyList()));
+        assertEquals(0, LayoutPatterns.NONE.match(layout(3, "SCPCFP")));
+        assertEquals(0, LayoutPatterns.parse("*").match(LayoutKey.NO_KEY));
+    }
+
+    @Test
+    public void testErrors() {
+        assertError("SC|P|*", "Line 1: A layout has only one change of floor", 4);
+        assertError("SCX", "Line 1: Unexpected 'X', expected S, C, P, F, ?, * or |", 2);
+        assertError("SCP*\nSCP*, SQ", "Line 2: Unexpected 'Q', expected S, C, P, F, ?, * or |", 7);
+
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i <= LayoutPatterns.MAX_PARSED_PATTERNS; i++) {
+            many.append("S*,");
+        }
+        assertError(many.toString(), "Line 1: more than " + LayoutPatterns.MAX_PARSED_PATTERNS + " layout patterns",
+                3 * LayoutPatterns.MAX_PARSED_PATTERNS);
+
+        List<String> all = new ArrayList<>(PATTERN_GROUPS.get(0));
+        all.addAll(PATTERN_GROUPS.get(1));
+        RuleSyntaxException e = assertThrows(RuleSyntaxException.class, () -> LayoutPatterns.compile(all));
+        assertEquals("Layout patterns are too complex, use fewer '*'", e.getReason());
+    }
+
+    private static void assertMatches(String pattern, long layout, boolean expected) {
+        assertEquals(pattern + " on " + code(layout), expected ? 1 : 0, LayoutPatterns.parse(pattern).match(layout));
+    }
+
+    private static void assertError(String text, String reason, int position) {
+        RuleSyntaxException e = assertThrows(RuleSyntaxException.class, () -> LayoutPatterns.parse(text));
+        assertEquals(text, reason, e.getReason());
+        assertEquals(text, position, e.getPosition());
+    }
+
+    // The pattern as a regular expression over code(layout)
+    private static Pattern regex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            regex.append(c == '?' ? "[SCPF]" : c == '*' ? ".*" : c == '|' ? "\\|" : String.valueOf(c));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    // The room types of a layout with '|' at the change of floor, which every layout has
+    private static String code(long layout) {
+        StringBuilder code = new StringBuilder();
+        for (int slot = 0; slot <= LayoutKey.size(layout); slot++) {
+            if (slot == LayoutKey.firstFloorSize(layout)) {
+                code.append('|');
+            }
+            RaidRoom room = LayoutKey.roomAt(layout, slot);
+            if (room != null) {
+                code.append(room.getType().getCode());
+            }
+        }
+        return code.toString();
+    }
+
+    // A layout of distinct combat and puzzle rooms with the given room types
+    private static long layout(int firstFloor, String types) {
+        RaidRoom[] rooms = new RaidRoom[types.length()];
+        int combat = 0;
+        int puzzle = 0;
+        for (int i = 0; i < rooms.length; i++) {
+            switch (types.charAt(i)) {
+                case 'S':
+                    rooms[i] = RaidRoom.SCAVENGERS;
+                    break;
+                case 'F':
+                    rooms[i] = RaidRoom.FARMING;
+                    break;
+                case 'C':
+                    rooms[i] = COMBAT[combat++];
+                    break;
+                default:
+                    rooms[i] = PUZZLE[puzzle++];
+                    break;
+            }
+        }
+        return LayoutKey.of(firstFloor, rooms);
+    }
+}
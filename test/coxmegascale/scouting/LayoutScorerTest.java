@@ -0,0 +1,128 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import net.runelite.client.plugins.raids.RaidRoom;
+import net.runelite.client.plugins.raids.RoomType;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LayoutScorerTest {
+    // Counted rooms: tekton, crabs, vasa, guardians, thieving
+    private static final long LAYOUT = LayoutKey.of(3, RaidRoom.TEKTON, RaidRoom.SCAVENGERS, RaidRoom.CRABS,
+            RaidRoom.VASA, RaidRoom.FARMING, RaidRoom.GUARDIANS, RaidRoom.THIEVING);
+
+    @Test
+    public void testRoomWeights() {
+        assertEquals(5, score("tekton=5, vespula=-10"));
+        assertEquals(-5, score("tekton=5, vasa=-10"));
+        assertEquals(5, score("tekton=+5"));
+        // Repeated entries add up, also across lines
+        assertEquals(3, score("tekton=1\ntekton=2"));
+    }
+
+    @Test
+    public void testPositionsCountOnlyCountedRooms() {
+        // Scavengers sit between tekton and crabs, farming between vasa and guardians
+        assertEquals(3, score("tekton@1=3"));
+        assertEquals(2, score("crabs@2=2"));
+        assertEquals(4, score("guardians@4=4"));
+        assertEquals(1, score("thieving@5=1"));
+        assertEquals(0, score("crabs@3=100, vasa@2=100, tekton@2=100"));
+    }
+
+    @Test
+    public void testTypeWeights() {
+        assertEquals(3 * 2 - 2, score("combat=2, puzzle=-1"));
+        // Type weights fold into the room weights
+        assertEquals(3 + 2, score("combat=1, tekton=2"));
+    }
+
+    @Test
+    public void testCountWeights() {
+        assertEquals(4 + 1 + 10, score("rooms5=4, combat3=1, puzzle2=10, rooms6=100, combat2=100, puzzle3=100"));
+        assertEquals(7, score("rooms0=100, rooms5=7"));
+    }
+
+    @Test
+    public void testCommentsAndSeparators() {
+        assertEquals(8, score("# speed\ntekton=1,, Ice Demon=100\n  # vasa=100\n\nthieving = 7 ,"));
+    }
+
+    @Test
+    public void testScoresMatchEachWeightApplied() {
+        String text = "tekton=5, vespula=-10, vasa@1=7, crabs@2=-3, thieving@5=4, mystics@3=2, combat=1, puzzle=-2,"
+                + " rooms5=6, rooms6=-6, combat3=3, puzzle1=-9";
+        LayoutScorer scorer = LayoutScorer.parse(text);
+        for (long layout : TestLayouts.random(20_000, 23)) {
+            assertEquals(LayoutKey.toCodeString(layout), reference(layout), scorer.score(layout));
+        }
+    }
+
+    @Test
+    public void testNoWeights() {
+        assertSame(LayoutScorer.NONE, LayoutScorer.parse(" "));
+        assertSame(LayoutScorer.NONE, LayoutScorer.parse("# tekton=5"));
+        assertTrue(LayoutScorer.NONE.isEmpty());
+        assertEquals(0, LayoutScorer.NONE.score(LAYOUT));
+        assertEquals(0, LayoutScorer.parse("tekton=5").score(LayoutKey.NO_KEY));
+        assertFalse(LayoutScorer.parse("tekton=0").isEmpty());
+    }
+
+    @Test
+    public void testErrors() {
+        assertError("tekton", "Line 1: Expected 'name=weight'", 0);
+        assertError("tekton=5, vasa=abc", "Line 1: Expected a weight from -1000 to 1000", 15);
+        assertError("tekton=1001", "Line 1: Expected a weight from -1000 to 1000", 7);
+        assertError("tekton=5\nfoo=1", "Line 2: Unknown room 'foo'", 0);
+        assertError("tekton=5,  foo=1", "Line 1: Unknown room 'foo'", 11);
+        assertError("=5", "Line 1: Expected a room", 0);
+        assertError("tekton@0=1", "Line 1: Positions start at 1", 7);
+        assertError("tekton@13=1", "Line 1: Expected a number from 0 to 12", 7);
+        assertError("rooms13=1", "Line 1: Expected a number from 0 to 12", 5);
+    }
+
+    private static int score(String text) {
+        return LayoutScorer.parse(text).score(LAYOUT);
+    }
+
+    // The weights of testScoresMatchEachWeightApplied, applied one by one
+    private static int reference(long layout) {
+        int score = 0;
+        int position = 0;
+        int combat = 0;
+        int puzzle = 0;
+        for (int slot = 0; slot < LayoutKey.size(layout); slot++) {
+            RaidRoom room = LayoutKey.roomAt(layout, slot);
+            if (room.getType() != RoomType.COMBAT && room.getType() != RoomType.PUZZLE) {
+                continue;
+            }
+
+            position++;
+            if (room.getType() == RoomType.COMBAT) {
+                combat++;
+                score += 1;
+            } else {
+                puzzle++;
+                score -= 2;
+            }
+            score += room == RaidRoom.TEKTON ? 5 : room == RaidRoom.VESPULA ? -10 : 0;
+            score += room == RaidRoom.VASA && position == 1 ? 7 : 0;
+            score += room == RaidRoom.CRABS && position == 2 ? -3 : 0;
+            score += room == RaidRoom.THIEVING && position == 5 ? 4 : 0;
+            score += room == RaidRoom.MYSTICS && position == 3 ? 2 : 0;
+        }
+        score += position == 5 ? 6 : position == 6 ? -6 : 0;
+        score += combat == 3 ? 3 : 0;
+        score += puzzle == 1 ? -9 : 0;
+        return score;
+    }
+
+    private static void assertError(String text, String reason, int position) {
+        RuleSyntaxException e = assertThrows(RuleSyntaxException.class, () -> LayoutScorer.parse(text));
+        assertEquals(text, reason, e.getReason());
+        assertEquals(text, position, e.getPosition());
+    }
+}
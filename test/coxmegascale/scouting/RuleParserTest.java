@@ -0,0 +1,109 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class RuleParserTest {
+    private static final String[] RULES = {
+            "tekton",
+            "!tekton",
+            "!!tekton",
+            "tekton & vasa",
+            "tekton | vasa",
+            "tekton & !vespula & guardians",
+            "!(vespula | muttadiles)",
+            "!(tekton & vasa)",
+            "(tekton | vasa) & !(vespula | muttadiles) & crabs",
+            "tekton | vasa | rooms >= 6",
+            "tekton before vasa",
+            "tekton after vasa",
+            "!(tekton before vasa) & (mystics | shamans)",
+            "combat in (tekton, vasa, guardians, mystics)",
+            "puzzle in (thieving, tightrope) & !crabs",
+            "rooms <= 6 & combat >= 3 & puzzle != 1",
+            "rooms < 5 | rooms > 7 | combat == 4",
+            "!(!tekton | !(vasa | !muttadiles))",
+            "ice demon before thieving | ice_demon after crabs | IceDemon & combat = 2"
+    };
+
+    @Test
+    public void testCompiledRulesAgreeWithTheParsedTree() {
+        long[] layouts = TestLayouts.random(20_000, 21);
+        for (String rule : RULES) {
+            RuleNode parsed = RuleParser.parse(rule);
+            RuleNode compiled = parsed.compile();
+            for (long layout : layouts) {
+                int roomMask = LayoutKey.roomMask(layout);
+                assertEquals(rule + " on " + LayoutKey.toCodeString(layout),
+                        parsed.test(layout, roomMask), compiled.test(layout, roomMask));
+            }
+        }
+    }
+
+    @Test
+    public void testRulesMatchLayouts() {
+        long layout = LayoutKey.of(3, RaidRoom.TEKTON, RaidRoom.CRABS, RaidRoom.SCAVENGERS, RaidRoom.VASA,
+                RaidRoom.THIEVING, RaidRoom.FARMING, RaidRoom.GUARDIANS);
+        int roomMask = LayoutKey.roomMask(layout);
+
+        assertTrue(matches("tekton before vasa", layout, roomMask));
+        assertFalse(matches("tekton after vasa", layout, roomMask));
+        assertFalse(matches("tekton before vespula", layout, roomMask));
+        assertTrue(matches("combat in (tekton, vasa, guardians)", layout, roomMask));
+        assertFalse(matches("combat in (tekton, vasa)", layout, roomMask));
+        // Scavengers and farming are not counted
+        assertTrue(matches("rooms = 5 & combat = 3 & puzzle = 2", layout, roomMask));
+        assertTrue(matches("!(vespula | muttadiles) & (crabs | ice demon)", layout, roomMask));
+    }
+
+    @Test
+    public void testCompileFoldsRoomChecksIntoMasks() {
+        assertTrue(RuleParser.parse("tekton & !vespula & guardians").compile() instanceof RuleNode.Masks);
+        assertTrue(RuleParser.parse("tekton | vasa | mystics").compile() instanceof RuleNode.AnyOf);
+        assertTrue(RuleParser.parse("!!tekton").compile() instanceof RuleNode.Present);
+
+        RuleNode mixed = RuleParser.parse("tekton & tekton before vasa & !vespula").compile();
+        assertTrue(mixed instanceof RuleNode.And);
+        assertTrue(((RuleNode.And) mixed).children[0] instanceof RuleNode.Masks);
+    }
+
+    @Test
+    public void testRoomNames() {
+        assertSame(RaidRoom.ICE_DEMON, RuleParser.room("ice demon"));
+        assertSame(RaidRoom.ICE_DEMON, RuleParser.room("Ice_Demon"));
+        assertSame(RaidRoom.ICE_DEMON, RuleParser.room("ICEDEMON"));
+        assertSame(null, RuleParser.room("scavengers"));
+        assertSame(null, RuleParser.room("unknown (combat)"));
+    }
+
+    @Test
+    public void testErrorColumns() {
+        assertError("tekton &", "Unexpected end of rule", 8);
+        assertError("tekton & foo", "Unknown room 'foo'", 9);
+        assertError("tekton vasa", "Expected '&' or '|'", 7);
+        assertError("tekton)", "Unexpected ')'", 6);
+        assertError("(tekton", "Missing ')'", 7);
+        assertError("(tekton vasa)", "Expected ')'", 8);
+        assertError("rooms ~ 5", "Expected a comparison after 'rooms'", 6);
+        assertError("rooms >= 123", "Expected a room count", 9);
+        assertError("combat in (tekton, thieving)", "'thieving' is not a combat room", 19);
+        assertError("tekton before", "Expected a room", 13);
+        assertError("& tekton", "Expected a condition", 0);
+    }
+
+    private static boolean matches(String rule, long layout, int roomMask) {
+        return RuleParser.parse(rule).compile().test(layout, roomMask);
+    }
+
+    private static void assertError(String rule, String reason, int position) {
+        RuleSyntaxException e = assertThrows(RuleSyntaxException.class, () -> RuleParser.parse(rule));
+        assertEquals(rule, reason, e.getReason());
+        assertEquals(rule, position, e.getPosition());
+        assertEquals(reason + " at column " + (position + 1), e.getMessage());
+    }
+}
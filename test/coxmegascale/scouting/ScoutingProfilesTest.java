@@ -0,0 +1,96 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import net.runelite.client.plugins.raids.RaidRoom;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class ScoutingProfilesTest {
+    private static final String[] RULES = {
+            "tekton & vasa",
+            "tekton | !vasa",
+            "!(tekton & vasa)",
+            "!(tekton | vasa)",
+            "!(tekton | !(vasa & guardians)) | mystics",
+            "(tekton | vasa) & (crabs | thieving) & !(vespula | muttadiles)",
+            "!((tekton | vasa) & (crabs | !thieving))",
+            "tekton before vasa | !(mystics after shamans) & rooms <= 6",
+            "combat in (tekton, vasa, guardians, mystics) & !(puzzle = 2 | ice demon)",
+            "!!(combat >= 3 & !(rooms != 5))"
+    };
+
+    @Test
+    public void testProfilesAgreeWithTheirRules() {
+        StringBuilder text = new StringBuilder();
+        RuleNode[] rules = new RuleNode[RULES.length];
+        for (int i = 0; i < RULES.length; i++) {
+            text.append("profile ").append(i).append(": ").append(RULES[i]).append('\n');
+            rules[i] = RuleParser.parse(RULES[i]);
+        }
+        ScoutingProfiles profiles = ScoutingProfiles.parse(text.toString());
+        assertEquals(RULES.length, profiles.size());
+
+        for (long layout : TestLayouts.random(20_000, 22)) {
+            int roomMask = LayoutKey.roomMask(layout);
+            long expected = 0;
+            for (int i = 0; i < rules.length; i++) {
+                if (rules[i].test(layout, roomMask)) {
+                    expected |= 1L << i;
+                }
+            }
+            assertEquals(LayoutKey.toCodeString(layout), expected, profiles.match(layout, roomMask));
+        }
+    }
+
+    @Test
+    public void testProfilesShareConditions() {
+        ScoutingProfiles profiles = ScoutingProfiles.parse("# Comments and blank lines are skipped\n"
+                + "speed: tekton & !vespula\n"
+                + "\n"
+                + "points: !(vespula | !tekton) | tekton before vasa\n");
+        assertEquals(2, profiles.size());
+        // tekton, vespula and "tekton before vasa"
+        assertEquals(3, profiles.getConditionCount());
+
+        long layout = LayoutKey.of(3, RaidRoom.TEKTON, RaidRoom.CRABS, RaidRoom.VASA);
+        long matched = profiles.match(layout, LayoutKey.roomMask(layout));
+        assertEquals(3, matched);
+        assertEquals("speed, points", profiles.names(matched));
+        assertEquals("points", profiles.names(2));
+    }
+
+    @Test
+    public void testContradictionsMatchNothing() {
+        ScoutingProfiles profiles = ScoutingProfiles.parse("never: tekton & !tekton\nalways: tekton | !tekton");
+        for (long layout : TestLayouts.random(1_000, 23)) {
+            assertEquals(2, profiles.match(layout, LayoutKey.roomMask(layout)));
+        }
+    }
+
+    @Test
+    public void testBlankTextHasNoProfiles() {
+        assertSame(ScoutingProfiles.NONE, ScoutingProfiles.parse(" \n# only a comment\n"));
+        assertEquals(0, ScoutingProfiles.NONE.match(LayoutKey.of(1, RaidRoom.TEKTON), ScoutingCriteria.roomBit(RaidRoom.TEKTON)));
+    }
+
+    @Test
+    public void testErrors() {
+        assertError("tekton & vasa", "Line 1: expected 'name: rule'", 0);
+        assertError("a: tekton\na: vasa", "Line 2: duplicate profile 'a'", 0);
+        // The column is that of the line, past the name
+        assertError("speed: tekton &", "Profile 'speed' on line 1: Unexpected end of rule", 15);
+        assertError("a: vasa\n\nspeed: tekton & foo", "Profile 'speed' on line 3: Unknown room 'foo'", 16);
+        // Nine two-way alternatives under one & expand to 512 terms
+        assertError("big: (tekton | vasa) & (guardians | mystics) & (shamans | vespula) & (crabs | thieving)"
+                        + " & (tightrope | ice demon) & (rooms = 5 | combat = 3) & (puzzle = 1 | rooms = 6)"
+                        + " & (combat = 4 | puzzle = 2) & (vanguards | muttadiles)",
+                "Profile 'big' is too complex, nest fewer '|' under '&'", 0);
+    }
+
+    private static void assertError(String text, String reason, int position) {
+        RuleSyntaxException e = assertThrows(RuleSyntaxException.class, () -> ScoutingProfiles.parse(text));
+        assertEquals(text, reason, e.getReason());
+        assertEquals(text, position, e.getPosition());
+    }
+}
@@ -0,0 +1,47 @@
+package net.runelite.client.plugins.coxmegascale.scouting;
+
+import java.util.SplittableRandom;
+import net.runelite.client.plugins.raids.RaidRoom;
+
+/**
+ * Layouts shared by the scouting tests.
+ */
+final class TestLayouts {
+    private static final RaidRoom[] ROOMS = {
+            RaidRoom.TEKTON, RaidRoom.MUTTADILES, RaidRoom.GUARDIANS, RaidRoom.VESPULA,
+            RaidRoom.SHAMANS, RaidRoom.VASA, RaidRoom.VANGUARDS, RaidRoom.MYSTICS,
+            RaidRoom.CRABS, RaidRoom.ICE_DEMON, RaidRoom.TIGHTROPE, RaidRoom.THIEVING,
+            RaidRoom.SCAVENGERS, RaidRoom.FARMING
+    };
+
+    private TestLayouts() {
+    }
+
+    /**
+     * Generates layouts of 1 to {@link LayoutKey#MAX_ROOMS} distinct rooms in any order, with any
+     * first floor size, scavengers and farming included.
+     *
+     * @param count The number of layouts.
+     * @param seed  The random seed.
+     * @return The packed layouts.
+     */
+    static long[] random(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] layouts = new long[count];
+        for (int i = 0; i < count; i++) {
+            RaidRoom[] rooms = ROOMS.clone();
+            for (int j = rooms.length - 1; j > 0; j--) {
+                int k = random.nextInt(j + 1);
+                RaidRoom room = rooms[j];
+                rooms[j] = rooms[k];
+                rooms[k] = room;
+            }
+
+            int size = 1 + random.nextInt(LayoutKey.MAX_ROOMS);
+            RaidRoom[] layout = new RaidRoom[size];
+            System.arraycopy(rooms, 0, layout, 0, size);
+            layouts[i] = LayoutKey.of(random.nextInt(size + 1), layout);
+        }
+        return layouts;
+    }
+}